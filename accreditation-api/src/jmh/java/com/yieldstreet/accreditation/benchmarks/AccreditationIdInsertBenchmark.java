@@ -0,0 +1,120 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.persistence.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares inserting accreditations with random UUIDs against the time-ordered ones of {@link
+ * TimeOrderedUuidGenerator}: the time each insert of {@value #BATCH_SIZE} rows takes, into a table
+ * growing to 2 million rows, and the size its primary key index ends up with, printed at the end of
+ * each run. Random ids land all over the index, splitting its pages and leaving them half empty,
+ * while ordered ones are appended to its rightmost page.
+ *
+ * <p>It runs against the database of the service ({@code DB_HOST}, {@code DB_PORT}, {@code
+ * DB_NAME}, {@code DB_USERNAME} and {@code DB_PASSWORD}), in an {@code id_insert_benchmark} schema
+ * of its own which is dropped afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 20)
+@Fork(1)
+public class AccreditationIdInsertBenchmark {
+
+  private static final int BATCH_SIZE = 100_000;
+
+  private static final String SCHEMA = "id_insert_benchmark";
+
+  @Param({"random", "timeOrdered"})
+  public String ids;
+
+  private Connection connection;
+
+  private PreparedStatement insert;
+
+  @Setup
+  public void setup() throws SQLException {
+    connection =
+        DriverManager.getConnection(
+            "jdbc:postgresql://"
+                + env("DB_HOST", "localhost")
+                + ":"
+                + env("DB_PORT", "5432")
+                + "/"
+                + env("DB_NAME", "yieldstreet"),
+            env("DB_USERNAME", "yieldstreet"),
+            env("DB_PASSWORD", ""));
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+      statement.execute("CREATE SCHEMA " + SCHEMA);
+      // the columns of an accreditation, but for the document reference
+      statement.execute(
+          "CREATE TABLE "
+              + SCHEMA
+              + ".accreditations (id uuid NOT NULL, user_id int NOT NULL, type varchar NOT NULL,"
+              + " status varchar NOT NULL,"
+              + " created_ts timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+              + " PRIMARY KEY (id))");
+    }
+    insert =
+        connection.prepareStatement(
+            "INSERT INTO "
+                + SCHEMA
+                + ".accreditations (id, user_id, type, status)"
+                + " SELECT id, ordinality, 'BY_INCOME', 'PENDING'"
+                + " FROM unnest(?::uuid[]) WITH ORDINALITY AS ids (id, ordinality)");
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null ? defaultValue : value;
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      try (ResultSet rs =
+          statement.executeQuery(
+              "SELECT count(*), pg_relation_size('"
+                  + SCHEMA
+                  + ".accreditations_pkey') FROM "
+                  + SCHEMA
+                  + ".accreditations")) {
+        rs.next();
+        System.out.printf(
+            "%n%s ids: %d rows, primary key index of %d MB%n",
+            ids, rs.getLong(1), rs.getLong(2) >> 20);
+      }
+      statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Benchmark
+  public int insertBatch() throws SQLException {
+    UUID[] batch = new UUID[BATCH_SIZE];
+    boolean timeOrdered = "timeOrdered".equals(ids);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch[i] = timeOrdered ? TimeOrderedUuidGenerator.generate() : UUID.randomUUID();
+    }
+    Array array = connection.createArrayOf("uuid", batch);
+    try {
+      insert.setArray(1, array);
+      return insert.executeUpdate();
+    } finally {
+      array.free();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.model.AccreditationStatusResponse;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON (de)serialization of the generated API model, with an {@link ObjectMapper}
+ * configured the way Spring MVC configures its own: the create request, whose document is {@code
+ * documentSize} bytes before base64 encoding, and the status response of a user with {@code
+ * accreditationCount} accreditations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiModelJsonBenchmark {
+
+  private static final String USER_ID = "g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V";
+
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+  private static final ObjectWriter WRITER = OBJECT_MAPPER.writer();
+
+  @State(Scope.Benchmark)
+  public static class CreateRequest {
+
+    @Param({"65536", "2097152"})
+    public int documentSize;
+
+    private final ObjectReader reader = OBJECT_MAPPER.readerFor(CreateAccreditationRequest.class);
+
+    private CreateAccreditationRequest request;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+      byte[] content = new byte[documentSize];
+      new Random(42).nextBytes(content);
+      request =
+          new CreateAccreditationRequest()
+              .userId(USER_ID)
+              .accreditationType(AccreditationType.INCOME)
+              .document(
+                  new Document()
+                      .name("2018.pdf")
+                      .mimeType("application/pdf")
+                      .content(Base64.getEncoder().encodeToString(content)));
+      json = WRITER.writeValueAsBytes(request);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class StatusResponse {
+
+    @Param({"4", "64"})
+    public int accreditationCount;
+
+    private final ObjectReader reader = OBJECT_MAPPER.readerFor(AccreditationStatusResponse.class);
+
+    private AccreditationStatusResponse response;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+      List<AccreditationStatusView> views = new ArrayList<>(accreditationCount);
+      for (int i = 0; i < accreditationCount; i++) {
+        views.add(
+            new AccreditationStatusView(
+                UUID.randomUUID(),
+                Accreditation.AccreditationType.values()[i % 2],
+                Accreditation.AccreditationStatus.values()[i % 4]));
+      }
+      response = AccreditationMapper.mapToStatusResponse(USER_ID, views);
+      json = WRITER.writeValueAsBytes(response);
+    }
+  }
+
+  @Benchmark
+  public CreateAccreditationRequest readCreateRequest(CreateRequest state) throws IOException {
+    return state.reader.readValue(state.json);
+  }
+
+  @Benchmark
+  public byte[] writeCreateRequest(CreateRequest state) throws IOException {
+    return WRITER.writeValueAsBytes(state.request);
+  }
+
+  @Benchmark
+  public AccreditationStatusResponse readStatusResponse(StatusResponse state) throws IOException {
+    return state.reader.readValue(state.json);
+  }
+
+  @Benchmark
+  public byte[] writeStatusResponse(StatusResponse state) throws IOException {
+    return WRITER.writeValueAsBytes(state.response);
+  }
+}
@@ -0,0 +1,130 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.documents.DocumentCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compares encoding ({@link #encode}) and decoding ({@link #decode}) a 1 MiB document with each
+ * codec, for a plain text statement, a JSON export of bank transactions and a PDF, whose page
+ * streams are already deflated as they are in real PDFs. The stored size is printed once per
+ * trial, next to the size of the document in base64.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentCodecBenchmark {
+
+  private static final int SIZE = 1024 * 1024;
+
+  @Param({"none", "lz4", "zstd"})
+  public String codec;
+
+  @Param({"text", "json", "pdf"})
+  public String document;
+
+  private DocumentCodec documentCodec;
+
+  private byte[] content;
+
+  private byte[] encoded;
+
+  @Setup
+  public void setup() {
+    documentCodec = DocumentCodec.fromName(codec);
+    Random random = new Random(42);
+    content =
+        switch (document) {
+          case "text" -> text(random);
+          case "json" -> json(random);
+          default -> pdf(random);
+        };
+
+    encoded = encode();
+    System.out.printf(
+        "%n%s %s: %d bytes, %d in base64, %d stored (%.1f%%)%n",
+        codec,
+        document,
+        content.length,
+        (content.length + 2) / 3 * 4,
+        encoded.length,
+        100.0 * encoded.length / content.length);
+  }
+
+  private static byte[] text(Random random) {
+    StringBuilder text = new StringBuilder(SIZE);
+    String[] items = {"Wages", "Dividends", "Interest", "Capital gains", "Rental income"};
+    for (int line = 1; text.length() < SIZE; line++) {
+      text.append(
+          String.format(
+              "%06d  %-16s %-28s %12.2f USD%n",
+              line,
+              items[random.nextInt(items.length)],
+              "Account ending " + (1000 + random.nextInt(9000)),
+              random.nextInt(10_000_000) / 100.0));
+    }
+    return text.substring(0, SIZE).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] json(Random random) {
+    StringBuilder json = new StringBuilder(SIZE).append('[');
+    while (json.length() < SIZE) {
+      json.append(
+          String.format(
+              "{\"date\":\"2022-%02d-%02d\",\"description\":\"TRANSFER %08d\","
+                  + "\"amount\":%d.%02d,\"currency\":\"USD\",\"balance\":%d.%02d},",
+              1 + random.nextInt(12),
+              1 + random.nextInt(28),
+              random.nextInt(100_000_000),
+              random.nextInt(100_000),
+              random.nextInt(100),
+              random.nextInt(10_000_000),
+              random.nextInt(100)));
+    }
+    return json.substring(0, SIZE).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] pdf(Random random) {
+    ByteArrayOutputStream pdf = new ByteArrayOutputStream(SIZE);
+    pdf.writeBytes("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII));
+    for (int object = 1; pdf.size() < SIZE; object++) {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      try (DeflaterOutputStream deflated =
+          new DeflaterOutputStream(stream, new Deflater(Deflater.DEFAULT_COMPRESSION))) {
+        deflated.write(text(random), 0, 64 * 1024);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      pdf.writeBytes(
+          String.format(
+                  "%d 0 obj\n<< /Length %d /Filter /FlateDecode >>\nstream\n",
+                  object, stream.size())
+              .getBytes(StandardCharsets.US_ASCII));
+      pdf.writeBytes(stream.toByteArray());
+      pdf.writeBytes("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+    }
+    byte[] bytes = new byte[SIZE];
+    System.arraycopy(pdf.toByteArray(), 0, bytes, 0, SIZE);
+    return bytes;
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return documentCodec.encode(content);
+  }
+
+  @Benchmark
+  public byte[] decode() {
+    return documentCodec.decode(encoded);
+  }
+}
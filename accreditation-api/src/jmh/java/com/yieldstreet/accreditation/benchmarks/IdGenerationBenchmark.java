@@ -0,0 +1,42 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.persistence.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares generating the id of an accreditation with {@link TimeOrderedUuidGenerator} against the
+ * random UUIDs used before, from one and from several threads (the generator shares its counter).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+  @Benchmark
+  public UUID randomUuid() {
+    return UUID.randomUUID();
+  }
+
+  @Benchmark
+  public UUID timeOrderedUuid() {
+    return TimeOrderedUuidGenerator.generate();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID randomUuidContended() {
+    return UUID.randomUUID();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID timeOrderedUuidContended() {
+    return TimeOrderedUuidGenerator.generate();
+  }
+}
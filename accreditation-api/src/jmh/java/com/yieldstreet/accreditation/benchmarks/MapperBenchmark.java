@@ -0,0 +1,80 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.accreditation.mappers.AccreditationTypeMapper;
+import com.yieldstreet.accreditation.mappers.StatusMapper;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.model.AccreditationStatusDetails;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.FinalStatus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mappers between the API model and the persisted enums, one call per operation. The
+ * inputs cycle through every enum constant, so that the switches are not measured on a single,
+ * perfectly predicted branch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+  /** A power of two, so that the next input is picked with a mask */
+  private static final int INPUTS = 64;
+
+  private final AccreditationStatusView[] views = new AccreditationStatusView[INPUTS];
+
+  private final Accreditation.AccreditationStatus[] statuses =
+      new Accreditation.AccreditationStatus[INPUTS];
+
+  private final FinalStatus[] finalStatuses = new FinalStatus[INPUTS];
+
+  private final Accreditation.AccreditationType[] types = new Accreditation.AccreditationType[INPUTS];
+
+  private final AccreditationType[] modelTypes = new AccreditationType[INPUTS];
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < INPUTS; i++) {
+      statuses[i] = Accreditation.AccreditationStatus.values()[i % 4];
+      finalStatuses[i] = FinalStatus.values()[i % 3];
+      types[i] = Accreditation.AccreditationType.values()[(i / 4) % 2];
+      modelTypes[i] = AccreditationType.values()[(i / 4) % 2];
+      views[i] = new AccreditationStatusView(UUID.randomUUID(), types[i], statuses[i]);
+    }
+  }
+
+  private int nextInput() {
+    return next++ & (INPUTS - 1);
+  }
+
+  @Benchmark
+  public AccreditationStatusDetails mapToStatusDetails() {
+    return AccreditationMapper.mapToStatusDetails(views[nextInput()]);
+  }
+
+  @Benchmark
+  public void mapStatuses(Blackhole blackhole) {
+    int i = nextInput();
+    blackhole.consume(StatusMapper.mapToStatus(statuses[i]));
+    blackhole.consume(StatusMapper.mapToStatus(finalStatuses[i]));
+    blackhole.consume(StatusMapper.mapToDatabaseStatus(finalStatuses[i]));
+  }
+
+  @Benchmark
+  public void mapAccreditationTypes(Blackhole blackhole) {
+    int i = nextInput();
+    blackhole.consume(AccreditationTypeMapper.mapAccreditationType(modelTypes[i]));
+    blackhole.consume(AccreditationTypeMapper.mapPersistedAccreditationType(types[i]));
+  }
+}
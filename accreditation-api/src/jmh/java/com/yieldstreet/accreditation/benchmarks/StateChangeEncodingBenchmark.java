@@ -0,0 +1,106 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeCompactSerializer;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeDeserializer;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeSerializer;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import com.yieldstreet.model.Status;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding ({@link #encode}) and decoding ({@link #decode}) a state change in JSON and in
+ * the compact binary encoding, for a slim (version 2) message and for a full (version 1) one, which
+ * carries a 64 KiB document. The message size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateChangeEncodingBenchmark {
+
+  @Param({"json", "compact"})
+  public String encoding;
+
+  @Param({"slim", "full"})
+  public String message;
+
+  private Serializer<AccreditationStateChange> serializer;
+
+  private final AccreditationStateChangeDeserializer deserializer =
+      new AccreditationStateChangeDeserializer();
+
+  private AccreditationStateChange stateChange;
+
+  private byte[] encoded;
+
+  @Setup
+  public void setup() {
+    serializer =
+        encoding.equals("json")
+            ? new AccreditationStateChangeSerializer()
+            : new AccreditationStateChangeCompactSerializer();
+
+    byte[] content = new byte[65536];
+    new Random(42).nextBytes(content);
+    DocumentReference reference = DocumentReference.forContent(content);
+
+    stateChange =
+        message.equals("slim")
+            ? new AccreditationStateChange(
+                AccreditationStateChange.SLIM_VERSION,
+                OffsetDateTime.now(),
+                AccreditationStateChange.Action.FINALISE,
+                "g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V",
+                UUID.randomUUID().toString(),
+                AccreditationType.INCOME,
+                Status.CONFIRMED,
+                Status.PENDING,
+                new AccreditationStateChange.DocumentDetails(
+                    "2018.pdf", "application/pdf", reference.hash(), reference.size()),
+                null)
+            : new AccreditationStateChange(
+                null,
+                OffsetDateTime.now(),
+                AccreditationStateChange.Action.FINALISE,
+                "g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V",
+                UUID.randomUUID().toString(),
+                null,
+                Status.CONFIRMED,
+                Status.PENDING,
+                null,
+                new CreateAccreditationRequest()
+                    .userId("g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V")
+                    .accreditationType(AccreditationType.INCOME)
+                    .document(
+                        new Document()
+                            .name("2018.pdf")
+                            .mimeType("application/pdf")
+                            .content(Base64.getEncoder().encodeToString(content))));
+
+    encoded = encode();
+    System.out.printf("%n%s %s message: %d bytes%n", encoding, message, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return serializer.serialize("accreditations", stateChange);
+  }
+
+  @Benchmark
+  public AccreditationStateChange decode() {
+    return deserializer.deserialize("accreditations", encoded);
+  }
+}
@@ -0,0 +1,122 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeFactory;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeSerializer;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.User;
+import com.yieldstreet.model.Status;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of producing the Kafka message of a state change, from the accreditation to
+ * the serialized bytes ({@link #produce}) or from the state change only ({@link #serialize}), for
+ * each {@link AccreditationStateChangeFactory.Format}: {@code FULL} is the version 1 message as
+ * sent before, {@code SLIM} the version 2 one.
+ *
+ * <p>Run with the gc profiler (the default of the jmh profile) and compare {@code
+ * gc.alloc.rate.norm} along with the time; the message size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateChangeSerializationBenchmark {
+
+  @Param({"FULL", "COMPAT", "SLIM"})
+  public AccreditationStateChangeFactory.Format format;
+
+  @Param({"65536", "2097152"})
+  public int documentSize;
+
+  private AccreditationStateChangeFactory stateChangeFactory;
+
+  private final AccreditationStateChangeSerializer serializer =
+      new AccreditationStateChangeSerializer();
+
+  private Accreditation accreditation;
+
+  private AccreditationStateChange stateChange;
+
+  @Setup
+  public void setup() {
+    byte[] content = new byte[documentSize];
+    new Random(42).nextBytes(content);
+    DocumentReference reference = DocumentReference.forContent(content);
+
+    stateChangeFactory = new AccreditationStateChangeFactory(new SingleDocumentStore(content), format);
+
+    User user = new User();
+    user.setId(1);
+    user.setUserId("g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V");
+    user.setCreatedTs(OffsetDateTime.now());
+
+    accreditation = new Accreditation();
+    accreditation.setId(UUID.randomUUID());
+    accreditation.setUser(user);
+    accreditation.setType(Accreditation.AccreditationType.BY_INCOME);
+    accreditation.setStatus(Accreditation.AccreditationStatus.CONFIRMED);
+    accreditation.setDocumentName("2018.pdf");
+    accreditation.setDocumentMimeType("application/pdf");
+    accreditation.setDocumentHash(reference.hash());
+    accreditation.setDocumentSize(reference.size());
+    accreditation.setCreatedTs(OffsetDateTime.now());
+    accreditation.setUpdatedTs(OffsetDateTime.now());
+
+    stateChange =
+        stateChangeFactory.create(
+            AccreditationStateChange.Action.SCHEDULED_EXPIRE,
+            accreditation,
+            Status.EXPIRED,
+            Status.CONFIRMED);
+
+    System.out.printf("%n%s message of a %d bytes document: %d bytes%n", format, documentSize, produce().length);
+  }
+
+  @Benchmark
+  public byte[] produce() {
+    AccreditationStateChange stateChange =
+        stateChangeFactory.create(
+            AccreditationStateChange.Action.SCHEDULED_EXPIRE,
+            accreditation,
+            Status.EXPIRED,
+            Status.CONFIRMED);
+    return serializer.serialize("accreditations", stateChange);
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return serializer.serialize("accreditations", stateChange);
+  }
+
+  /** Hands out the one document, as the filesystem store would: straight from a buffer. */
+  private record SingleDocumentStore(byte[] content) implements DocumentStore {
+
+    @Override
+    public DocumentReference store(byte[] content, String mimeType) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DocumentReference store(InputStream content, String mimeType) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<ByteBuffer> load(String hash) {
+      return Optional.of(ByteBuffer.wrap(content).asReadOnlyBuffer());
+    }
+  }
+}
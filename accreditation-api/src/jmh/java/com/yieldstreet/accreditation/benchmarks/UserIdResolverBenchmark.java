@@ -0,0 +1,64 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the internal id of a known user with {@link UserIdResolver} against a
+ * Caffeine cache of boxed ids, as used for the accreditation statuses. Both are filled with the
+ * same users and only looked up for them, so neither reads the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserIdResolverBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int users;
+
+  private String[] userIds;
+
+  private UserIdResolver resolver;
+
+  private Cache<String, Integer> caffeine;
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    userIds = new String[users];
+    // twice the users, so that few of them share a slot
+    resolver = new UserIdResolver(null, new SimpleMeterRegistry(), users * 2);
+    caffeine = Caffeine.newBuilder().maximumSize(users * 2L).build();
+    for (int i = 0; i < users; i++) {
+      userIds[i] = UUID.randomUUID().toString();
+      resolver.remember(userIds[i], i);
+      caffeine.put(userIds[i], i);
+    }
+  }
+
+  private String nextUserId() {
+    next = next + 1 < users ? next + 1 : 0;
+    return userIds[next];
+  }
+
+  @Benchmark
+  public OptionalInt resolver() {
+    return resolver.getIfPresent(nextUserId());
+  }
+
+  @Benchmark
+  public Integer caffeine() {
+    return caffeine.getIfPresent(nextUserId());
+  }
+}
@@ -0,0 +1,87 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads {@code GET /user/{userId}/accreditation} of a running service over HTTP, from many
+ * threads, and samples the latency of each request: its throughput and tail latency (the p0.99 and
+ * p0.999 percentiles), for the servlet service ({@link com.yieldstreet.accreditation.Main}, on its
+ * default port) and for the reactive reader ({@link
+ * com.yieldstreet.accreditation.reader.ReaderMain}). Both must be running against the same
+ * database, and the accreditation status cache of the service disabled ({@code
+ * USER_ACCREDITATIONS_CACHE_SIZE=0}) for both to read the database on each request.
+ *
+ * <p>For a fair comparison, give both the same CPUs, e.g. by starting each under {@code taskset
+ * -c}, and run the benchmark on other ones. The users are created through the service on setup,
+ * with a pending accreditation each, if they do not exist yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class UserStatusHttpLoadBenchmark {
+
+  private static final String SERVICE_URL = "http://localhost:9999";
+
+  private static final int USERS = 1000;
+
+  @Param({SERVICE_URL, "http://localhost:9997"})
+  public String baseUrl;
+
+  private HttpClient client;
+
+  private URI[] uris;
+
+  @Setup
+  public void setup() throws IOException, InterruptedException {
+    client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    uris = new URI[USERS];
+    for (int i = 0; i < USERS; i++) {
+      String userId = "load-" + i;
+      createUser(userId);
+      uris[i] = URI.create(baseUrl + "/user/" + userId + "/accreditation");
+    }
+  }
+
+  private void createUser(String userId) throws IOException, InterruptedException {
+    String body =
+        """
+        {"user_id":"%s","accreditation_type":"BY_INCOME",\
+        "document":{"name":"2018.pdf","mime_type":"application/pdf","content":"ICAiQC8qIjogWyJzcmMvKiJdCiAgICB9CiAgfQp9Cg=="}}
+        """
+            .formatted(userId);
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(SERVICE_URL + "/user/accreditation"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    // 400 if the user already has a pending accreditation, from a previous run
+    if (status != 200 && status != 400) {
+      throw new IllegalStateException("Could not create the user " + userId + ": " + status);
+    }
+  }
+
+  @Benchmark
+  public String getStatuses() throws IOException, InterruptedException {
+    URI uri = uris[ThreadLocalRandom.current().nextInt(USERS)];
+    HttpResponse<String> response =
+        client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException(uri + ": " + response.statusCode());
+    }
+    return response.body();
+  }
+}
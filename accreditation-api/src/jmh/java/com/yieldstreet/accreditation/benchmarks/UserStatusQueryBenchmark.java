@@ -0,0 +1,152 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.documents.DocumentCodecMigration;
+import com.yieldstreet.accreditation.documents.DocumentCodecs;
+import com.yieldstreet.accreditation.documents.DocumentStoreBackfillMigration;
+import com.yieldstreet.accreditation.documents.PostgresDocumentStore;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the statuses of a user by joining the users on their external id, as {@code
+ * findStatusesByUserId} did, against resolving the internal id with {@link UserIdResolver} and
+ * filtering the accreditations on it, as {@code findStatusesByUserInternalId} does: the SQL
+ * Hibernate generates for each, run over JDBC on one connection.
+ *
+ * <p>It runs against the database of the service ({@code DB_HOST}, {@code DB_PORT}, {@code
+ * DB_NAME}, {@code DB_USERNAME} and {@code DB_PASSWORD}), in a {@code user_status_benchmark} schema
+ * of its own which is dropped afterwards, migrated and seeded as for {@code QueryPlanTest}: 20 000
+ * users with 10 accreditations each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserStatusQueryBenchmark {
+
+  private static final String SCHEMA = "user_status_benchmark";
+
+  private Connection connection;
+
+  private PreparedStatement byUserId;
+
+  private PreparedStatement byUserInternalId;
+
+  private UserIdResolver resolver;
+
+  private String[] userIds;
+
+  @Setup
+  public void setup() throws SQLException {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:postgresql://"
+                + env("DB_HOST", "localhost")
+                + ":"
+                + env("DB_PORT", "5432")
+                + "/"
+                + env("DB_NAME", "yieldstreet")
+                + "?currentSchema="
+                + SCHEMA,
+            env("DB_USERNAME", "yieldstreet"),
+            env("DB_PASSWORD", ""));
+    DocumentCodecs documentCodecs = new DocumentCodecs("", "none");
+    Flyway flyway =
+        Flyway.configure()
+            .dataSource(dataSource)
+            .schemas(SCHEMA)
+            .locations("classpath:db/migration", "classpath:db/query-plans")
+            .javaMigrations(
+                new DocumentStoreBackfillMigration(
+                    new PostgresDocumentStore(dataSource, documentCodecs), "postgres", 500),
+                new DocumentCodecMigration(documentCodecs, 100))
+            .cleanDisabled(false)
+            .load();
+    flyway.clean();
+    flyway.migrate();
+
+    connection = dataSource.getConnection();
+    byUserId =
+        connection.prepareStatement(
+            "SELECT a.id, a.type, a.status FROM accreditations a"
+                + " CROSS JOIN users u WHERE a.user_id = u.id AND u.user_id = ?"
+                + " ORDER BY a.created_ts");
+    byUserInternalId =
+        connection.prepareStatement(
+            "SELECT a.id, a.type, a.status FROM accreditations a WHERE a.user_id = ?"
+                + " ORDER BY a.created_ts");
+
+    // the users are known to the resolver, as they would be once looked up, but for those which
+    // lost their slot to another one: both benchmarks read the statuses of the same users
+    resolver = new UserIdResolver(null, new SimpleMeterRegistry(), 65536);
+    List<String> users = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT id, user_id FROM users ORDER BY id")) {
+      while (rs.next()) {
+        users.add(rs.getString("user_id"));
+        resolver.remember(rs.getString("user_id"), rs.getInt("id"));
+      }
+    }
+    userIds =
+        users.stream()
+            .filter(userId -> resolver.getIfPresent(userId).isPresent())
+            .toArray(String[]::new);
+  }
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null ? defaultValue : value;
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+    } finally {
+      connection.close();
+    }
+  }
+
+  private String anyUserId() {
+    return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+  }
+
+  private static void readStatuses(PreparedStatement query, Blackhole blackhole)
+      throws SQLException {
+    try (ResultSet rs = query.executeQuery()) {
+      while (rs.next()) {
+        blackhole.consume(rs.getObject(1));
+        blackhole.consume(rs.getString(2));
+        blackhole.consume(rs.getString(3));
+      }
+    }
+  }
+
+  @Benchmark
+  public void joinByUserId(Blackhole blackhole) throws SQLException {
+    byUserId.setString(1, anyUserId());
+    readStatuses(byUserId, blackhole);
+  }
+
+  @Benchmark
+  public void filterByUserInternalId(Blackhole blackhole) throws SQLException {
+    byUserInternalId.setInt(1, resolver.resolve(anyUserId()).orElseThrow());
+    readStatuses(byUserInternalId, blackhole);
+  }
+}
@@ -0,0 +1,112 @@
+package com.yieldstreet.accreditation.benchmarks;
+
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.accreditation.persistence.User;
+import com.yieldstreet.model.AccreditationStatusResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of building the status response of a user from full {@link
+ * Accreditation} entities (as the entity query hydrates them, document content included) against
+ * the {@link AccreditationStatusView} projection.
+ *
+ * <p>Run with the gc profiler (the default of the jmh profile) and compare {@code
+ * gc.alloc.rate.norm}, the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserStatusReadBenchmark {
+
+  private static final String USER_ID = "g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V";
+
+  @Param({"4", "16"})
+  public int accreditationCount;
+
+  @Param({"65536", "2097152"})
+  public int documentSize;
+
+  /** The raw column values, as the JDBC driver receives them from the wire. */
+  private UUID[] ids;
+
+  private byte[][] documentColumns;
+
+  private Accreditation.AccreditationType[] types;
+
+  private Accreditation.AccreditationStatus[] statuses;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    ids = new UUID[accreditationCount];
+    documentColumns = new byte[accreditationCount][];
+    types = new Accreditation.AccreditationType[accreditationCount];
+    statuses = new Accreditation.AccreditationStatus[accreditationCount];
+
+    for (int i = 0; i < accreditationCount; i++) {
+      byte[] document = new byte[documentSize];
+      random.nextBytes(document);
+      ids[i] = UUID.randomUUID();
+      documentColumns[i] = Base64.getEncoder().encode(document);
+      types[i] = Accreditation.AccreditationType.values()[i % 2];
+      statuses[i] = Accreditation.AccreditationStatus.values()[i % 4];
+    }
+  }
+
+  @Benchmark
+  public AccreditationStatusResponse entityQuery(Blackhole blackhole) {
+    User user = new User();
+    user.setId(1);
+    user.setUserId(USER_ID);
+    user.setCreatedTs(OffsetDateTime.now());
+
+    List<Accreditation> entities = new ArrayList<>(accreditationCount);
+    for (int i = 0; i < accreditationCount; i++) {
+      Accreditation accreditation = new Accreditation();
+      accreditation.setId(ids[i]);
+      accreditation.setUser(user);
+      accreditation.setType(types[i]);
+      accreditation.setStatus(statuses[i]);
+      accreditation.setDocumentName("2018.pdf");
+      accreditation.setDocumentMimeType("application/pdf");
+      // the (former) document_content varchar column was decoded into a String, used or not
+      blackhole.consume(new String(documentColumns[i], StandardCharsets.US_ASCII));
+      accreditation.setCreatedTs(OffsetDateTime.now());
+      accreditation.setUpdatedTs(OffsetDateTime.now());
+      entities.add(accreditation);
+    }
+    blackhole.consume(entities);
+
+    List<AccreditationStatusView> views = new ArrayList<>(accreditationCount);
+    for (Accreditation accreditation : entities) {
+      views.add(
+          new AccreditationStatusView(
+              accreditation.getId(), accreditation.getType(), accreditation.getStatus()));
+    }
+    return AccreditationMapper.mapToStatusResponse(USER_ID, views);
+  }
+
+  @Benchmark
+  public AccreditationStatusResponse projectionQuery() {
+    List<AccreditationStatusView> views = new ArrayList<>(accreditationCount);
+    for (int i = 0; i < accreditationCount; i++) {
+      views.add(new AccreditationStatusView(ids[i], types[i], statuses[i]));
+    }
+    return AccreditationMapper.mapToStatusResponse(USER_ID, views);
+  }
+}
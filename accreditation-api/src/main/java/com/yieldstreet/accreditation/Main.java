@@ -2,9 +2,11 @@ package com.yieldstreet.accreditation;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+/** The service, with JPA on servlet threads. The reactive reader is {@link com.yieldstreet.accreditation.reader.ReaderMain}. */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableScheduling
 public class Main {
 
@@ -0,0 +1,103 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.yieldstreet.accreditation.persistence.AccreditationArchivalRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Archives the FAILED accreditations not updated for {@link #archiveAfterDays}, moving them from
+ * the live partition of the {@code accreditations} table to the archive one. They are still read
+ * through the table, so neither the users nor the admin listing see a difference. FAILED is the
+ * only status the service never changes: an EXPIRED accreditation can still be finalised again.
+ *
+ * <p>The accreditations are archived in chunks of {@link #chunkSize}, oldest first, each chunk one
+ * transaction. Archived accreditations leave the live partition, so an interrupted run needs no
+ * checkpoint: the next one simply finds those which are left. Instances running at the same time
+ * skip the rows locked by each other.
+ *
+ * <p>Each run is timed as {@code accreditation.archival.runs}, by outcome, and the accreditations
+ * archived by each completed run are recorded as {@code accreditation.archival.archived}.
+ */
+@Component
+public class AccreditationArchivalJob {
+
+  private static final Logger logger = LoggerFactory.getLogger(AccreditationArchivalJob.class);
+
+  private final AccreditationArchivalRepository archivalRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int archiveAfterDays;
+
+  private final int chunkSize;
+
+  private final MeterRegistry meterRegistry;
+
+  private final DistributionSummary archivedPerRun;
+
+  public AccreditationArchivalJob(
+      AccreditationArchivalRepository archivalRepository,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${yieldstreet.accreditations.archive_after_days:365}") int archiveAfterDays,
+      @Value("${yieldstreet.accreditations.archive_chunk_size:1000}") int chunkSize) {
+    this.archivalRepository = archivalRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.archiveAfterDays = archiveAfterDays;
+    this.chunkSize = chunkSize;
+    this.meterRegistry = meterRegistry;
+    this.archivedPerRun =
+        DistributionSummary.builder("accreditation.archival.archived")
+            .description("Accreditations archived by each run of the archival job")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Archives the old FAILED accreditations.
+   *
+   * @return the number of accreditations archived by the run
+   */
+  public long archiveTerminalAccreditations() {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "failure";
+    try {
+      long archived = archive();
+      outcome = "success";
+      archivedPerRun.record(archived);
+      return archived;
+    } finally {
+      sample.stop(
+          Timer.builder("accreditation.archival.runs")
+              .description("Duration of the runs of the archival job")
+              .tag("outcome", outcome)
+              .register(meterRegistry));
+    }
+  }
+
+  private long archive() {
+    OffsetDateTime cutoffTs = OffsetDateTime.now().minusDays(archiveAfterDays);
+
+    long archived = 0;
+    int chunk;
+    do {
+      chunk =
+          transactionTemplate.execute(status -> archivalRepository.archiveChunk(cutoffTs, chunkSize));
+      archived += chunk;
+      if (chunk > 0) {
+        logger.info(
+            "Archived {} terminal accreditations last updated before {}", archived, cutoffTs);
+      }
+    } while (chunk == chunkSize);
+
+    logger.info("Archival run complete, {} terminal accreditations archived", archived);
+    return archived;
+  }
+}
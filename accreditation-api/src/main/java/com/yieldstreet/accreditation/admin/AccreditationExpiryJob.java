@@ -0,0 +1,142 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.yieldstreet.accreditation.audit.KafkaProducer;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationExpiryRepository;
+import com.yieldstreet.accreditation.persistence.ExpiryCheckpoint;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Expires the CONFIRMED accreditations not updated for {@link #expireConfirmedDays}.
+ *
+ * <p>The accreditations are expired in chunks of {@link #chunkSize}, in id order. Each chunk is
+ * one transaction: a single set-based UPDATE, the audit messages of the whole chunk, and the
+ * checkpoint recording how far the run got. A failure only rolls back the chunk at hand, and the
+ * next run carries on from the checkpoint with the same cutoff. Instances running at the same
+ * time take turns on the checkpoint, rather than expiring the same chunk twice.
+ *
+ * <p>Each run is timed as {@code accreditation.expiry.runs}, by outcome, and the accreditations
+ * expired by each completed run are recorded as {@code accreditation.expiry.expired}.
+ */
+@Component
+public class AccreditationExpiryJob {
+
+  private static final Logger logger = LoggerFactory.getLogger(AccreditationExpiryJob.class);
+
+  static final String JOB = "expire_confirmed";
+
+  private final AccreditationExpiryRepository expiryRepository;
+
+  private final KafkaProducer kafkaProducer;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int expireConfirmedDays;
+
+  private final int chunkSize;
+
+  private final MeterRegistry meterRegistry;
+
+  private final DistributionSummary expiredPerRun;
+
+  public AccreditationExpiryJob(
+      AccreditationExpiryRepository expiryRepository,
+      KafkaProducer kafkaProducer,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${yieldstreet.accreditations.expire_confirmed_days:30}") int expireConfirmedDays,
+      @Value("${yieldstreet.accreditations.expire_chunk_size:1000}") int chunkSize) {
+    this.expiryRepository = expiryRepository;
+    this.kafkaProducer = kafkaProducer;
+    this.transactionTemplate = transactionTemplate;
+    this.expireConfirmedDays = expireConfirmedDays;
+    this.chunkSize = chunkSize;
+    this.meterRegistry = meterRegistry;
+    this.expiredPerRun =
+        DistributionSummary.builder("accreditation.expiry.expired")
+            .description("Accreditations expired by each run of the expiry job")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Expires old CONFIRMED accreditations, resuming the previous run instead if it was interrupted.
+   *
+   * @return the number of accreditations expired by the run
+   */
+  public long expireOldConfirmedAccreditations() {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "failure";
+    try {
+      long expired = expire();
+      outcome = "success";
+      expiredPerRun.record(expired);
+      return expired;
+    } finally {
+      sample.stop(
+          Timer.builder("accreditation.expiry.runs")
+              .description("Duration of the runs of the expiry job")
+              .tag("outcome", outcome)
+              .register(meterRegistry));
+    }
+  }
+
+  private long expire() {
+    expiryRepository.startRun(JOB, OffsetDateTime.now().minusDays(expireConfirmedDays));
+
+    long expired = 0;
+    Optional<ExpiryCheckpoint> checkpoint;
+    do {
+      checkpoint = transactionTemplate.execute(status -> expireChunk());
+      if (checkpoint.isPresent()) {
+        expired = checkpoint.get().expired();
+      }
+    } while (checkpoint.isPresent());
+
+    logger.info("Expiry run complete, {} confirmed accreditations expired", expired);
+    return expired;
+  }
+
+  /** @return the checkpoint after the chunk, or empty once the run is complete */
+  private Optional<ExpiryCheckpoint> expireChunk() {
+    Optional<ExpiryCheckpoint> checkpoint = expiryRepository.lockCheckpoint(JOB);
+    if (checkpoint.isEmpty()) {
+      // completed by another instance
+      return Optional.empty();
+    }
+
+    ExpiryCheckpoint current = checkpoint.get();
+    List<Accreditation> expired =
+        expiryRepository.expireChunk(current.cutoffTs(), current.lastId(), chunkSize);
+    if (expired.isEmpty()) {
+      expiryRepository.deleteCheckpoint(JOB);
+      return Optional.empty();
+    }
+
+    kafkaProducer.notifyScheduledExpire(expired, Status.CONFIRMED);
+
+    ExpiryCheckpoint next =
+        new ExpiryCheckpoint(
+            current.cutoffTs(),
+            expired.get(expired.size() - 1).getId(),
+            current.expired() + expired.size());
+    expiryRepository.saveCheckpoint(JOB, next);
+    logger.info(
+        "Expired {} confirmed accreditations last updated before {}, up to {}",
+        next.expired(),
+        next.cutoffTs(),
+        next.lastId());
+    return Optional.of(next);
+  }
+}
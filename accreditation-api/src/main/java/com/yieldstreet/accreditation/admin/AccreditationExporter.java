@@ -0,0 +1,282 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
+import com.yieldstreet.accreditation.persistence.AccreditationListingRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationListingView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Locale;
+
+import static com.yieldstreet.accreditation.mappers.AccreditationTypeMapper.mapPersistedAccreditationType;
+import static com.yieldstreet.accreditation.mappers.StatusMapper.mapToStatus;
+
+/**
+ * Exports the accreditations matching a filter, as NDJSON or CSV, streaming them from a database
+ * cursor to the response as they are read.
+ *
+ * <p>Each row is written as soon as it is read, without building an entity, and the document
+ * contents are only loaded when asked for, one at a time, and encoded straight to the response.
+ * The driver reads a bounded number of rows ahead, and a
+ * client reading slowly blocks the writes, and so the reads, so the memory used does not depend
+ * on the number of rows exported. The rows are read in a read-only transaction, on the replica if
+ * there is one, held for the whole export.
+ */
+@Component
+public class AccreditationExporter {
+
+  public enum Format {
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson"),
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+    private final MediaType mediaType;
+
+    private final String extension;
+
+    Format(MediaType mediaType, String extension) {
+      this.mediaType = mediaType;
+      this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+      return mediaType;
+    }
+
+    public String getExtension() {
+      return extension;
+    }
+
+    /** @throws IllegalArgumentException if the name is not one of the formats */
+    public static Format fromName(String name) {
+      return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(AccreditationExporter.class);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Leaves the response open, to the servlet container */
+  private static final JsonFactory JSON_FACTORY =
+      new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private static final String[] CSV_COLUMNS = {
+    "accreditation_id",
+    "user_id",
+    "accreditation_type",
+    "status",
+    "document_name",
+    "document_mime_type",
+    "document_size",
+    "created_ts",
+    "updated_ts"
+  };
+
+  private final AccreditationListingRepository accreditationListingRepository;
+
+  private final DocumentStore documentStore;
+
+  private final TransactionTemplate readOnlyTransaction;
+
+  private final Counter exportedRows;
+
+  public AccreditationExporter(
+      AccreditationListingRepository accreditationListingRepository,
+      DocumentStore documentStore,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.accreditationListingRepository = accreditationListingRepository;
+    this.documentStore = documentStore;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.exportedRows =
+        Counter.builder("accreditation.export.rows")
+            .description("Accreditations written by the exports")
+            .register(meterRegistry);
+  }
+
+  /**
+   * @param includeDocuments whether to add the (base64 encoded) content of the documents
+   * @return the body of the response, which runs the export when written
+   */
+  public StreamingResponseBody export(
+      AccreditationFilter filter, Format format, boolean includeDocuments) {
+    return out -> {
+      long start = System.nanoTime();
+      long rows;
+      try (RowWriter writer =
+          open(format, new BufferedOutputStream(out, BUFFER_SIZE), includeDocuments)) {
+        rows = readOnlyTransaction.execute(status -> writeRows(filter, includeDocuments, writer));
+      } catch (UncheckedIOException ex) {
+        // most likely the client went away: the transaction, and with it the cursor, are closed
+        logger.warn("Export aborted: {}", ex.getCause().toString());
+        throw ex.getCause();
+      }
+      logger.info(
+          "Exported {} accreditations as {} in {} ms",
+          rows,
+          format,
+          (System.nanoTime() - start) / 1_000_000);
+    };
+  }
+
+  private long writeRows(AccreditationFilter filter, boolean includeDocuments, RowWriter writer) {
+    long[] rows = {0};
+    accreditationListingRepository.forEach(
+        filter,
+        accreditation -> {
+          try {
+            writer.write(accreditation, includeDocuments ? content(accreditation) : null);
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+          rows[0]++;
+          exportedRows.increment();
+        });
+    return rows[0];
+  }
+
+  private ByteBuffer content(AccreditationListingView accreditation) {
+    return documentStore
+        .load(accreditation.documentHash())
+        .orElseThrow(() -> new IllegalStateException("Missing document of " + accreditation.id()));
+  }
+
+  private static RowWriter open(Format format, OutputStream out, boolean includeDocuments)
+      throws IOException {
+    return switch (format) {
+      case NDJSON -> new NdjsonWriter(out);
+      case CSV -> new CsvWriter(out, includeDocuments);
+    };
+  }
+
+  /** Writes the rows to the response, and flushes them when closed, leaving the response open. */
+  private interface RowWriter extends Closeable {
+    /** @param content the content of the document, written base64 encoded, or null */
+    void write(AccreditationListingView accreditation, ByteBuffer content) throws IOException;
+  }
+
+  /** One JSON object per line, with the fields of the listing. */
+  private static class NdjsonWriter implements RowWriter {
+
+    private final JsonGenerator json;
+
+    NdjsonWriter(OutputStream out) throws IOException {
+      this.json = JSON_FACTORY.createGenerator(out);
+      this.json.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(AccreditationListingView accreditation, ByteBuffer content)
+        throws IOException {
+      json.writeStartObject();
+      json.writeStringField("accreditation_id", accreditation.id().toString());
+      json.writeStringField("user_id", accreditation.userId());
+      json.writeStringField(
+          "accreditation_type", mapPersistedAccreditationType(accreditation.type()).getValue());
+      json.writeStringField("status", mapToStatus(accreditation.status()).getValue());
+      json.writeStringField("document_name", accreditation.documentName());
+      json.writeStringField("document_mime_type", accreditation.documentMimeType());
+      json.writeNumberField("document_size", accreditation.documentSize());
+      json.writeStringField(
+          "created_ts", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(accreditation.createdTs()));
+      json.writeStringField(
+          "updated_ts", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(accreditation.updatedTs()));
+      if (content != null) {
+        json.writeFieldName("document_content");
+        json.writeBinary(new ByteBufferBackedInputStream(content), content.remaining());
+      }
+      json.writeEndObject();
+      json.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      json.close();
+    }
+  }
+
+  /** A header line, then one line per accreditation, quoted as in RFC 4180. */
+  private static class CsvWriter implements RowWriter {
+
+    private final OutputStream out;
+
+    private final Writer csv;
+
+    CsvWriter(OutputStream out, boolean includeDocuments) throws IOException {
+      this.out = out;
+      this.csv = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      this.csv.write(String.join(",", CSV_COLUMNS));
+      if (includeDocuments) {
+        this.csv.write(",document_content");
+      }
+      this.csv.write("\r\n");
+    }
+
+    @Override
+    public void write(AccreditationListingView accreditation, ByteBuffer content)
+        throws IOException {
+      csv.write(accreditation.id().toString());
+      field(accreditation.userId());
+      field(mapPersistedAccreditationType(accreditation.type()).getValue());
+      field(mapToStatus(accreditation.status()).getValue());
+      field(accreditation.documentName());
+      field(accreditation.documentMimeType());
+      field(Long.toString(accreditation.documentSize()));
+      field(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(accreditation.createdTs()));
+      field(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(accreditation.updatedTs()));
+      if (content != null) {
+        // base64 needs no quoting
+        csv.write(',');
+        csv.flush();
+        try (OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+          Channels.newChannel(base64).write(content);
+        }
+      }
+      csv.write("\r\n");
+    }
+
+    private void field(String value) throws IOException {
+      csv.write(',');
+      if (value.indexOf(',') < 0
+          && value.indexOf('"') < 0
+          && value.indexOf('\n') < 0
+          && value.indexOf('\r') < 0) {
+        csv.write(value);
+      } else {
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      csv.flush();
+    }
+  }
+}
@@ -1,26 +1,93 @@
 package com.yieldstreet.accreditation.admin;
 
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
 import com.yieldstreet.api.AdminApi;
+import com.yieldstreet.model.AccreditationPage;
 import com.yieldstreet.model.AccreditationResponse;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.BatchAccreditationResponse;
+import com.yieldstreet.model.BatchCreateAccreditationRequest;
+import com.yieldstreet.model.BatchFinaliseAccreditationRequest;
 import com.yieldstreet.model.CreateAccreditationRequest;
 import com.yieldstreet.model.FinaliseAccreditationRequest;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static com.yieldstreet.accreditation.mappers.AccreditationTypeMapper.mapAccreditationType;
+import static com.yieldstreet.accreditation.mappers.StatusMapper.mapToDatabaseStatus;
 
 @RestController
 public class AdminApiController implements AdminApi {
 
   private static final Logger logger = LoggerFactory.getLogger(AdminApiController.class);
 
+  /** The same pattern the API definition enforces on the MIME type of JSON documents */
+  private static final Pattern MIME_TYPE = Pattern.compile("^[-\\w.]+/[-\\w.]+$");
+
+  /** The same limit the API definition enforces on the number of items of a batch */
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  /** The same limit the API definition enforces on the number of accreditations of a page */
+  private static final int MAX_PAGE_SIZE = 1000;
+
   private final AdminService adminService;
 
-  public AdminApiController(AdminService adminService) {
+  private final AccreditationExporter accreditationExporter;
+
+  private final MeterRegistry meterRegistry;
+
+  /** The latency of each operation, transaction commit included */
+  private final Timer createTimer;
+
+  private final Timer uploadTimer;
+
+  private final Timer createBatchTimer;
+
+  private final Timer finaliseTimer;
+
+  private final Timer finaliseBatchTimer;
+
+  private final Timer listTimer;
+
+  public AdminApiController(
+      AdminService adminService,
+      AccreditationExporter accreditationExporter,
+      MeterRegistry meterRegistry) {
     this.adminService = adminService;
+    this.accreditationExporter = accreditationExporter;
+    this.meterRegistry = meterRegistry;
+    this.createTimer = requestTimer(meterRegistry, "create");
+    this.uploadTimer = requestTimer(meterRegistry, "upload");
+    this.createBatchTimer = requestTimer(meterRegistry, "create_batch");
+    this.finaliseTimer = requestTimer(meterRegistry, "finalise");
+    this.finaliseBatchTimer = requestTimer(meterRegistry, "finalise_batch");
+    this.listTimer = requestTimer(meterRegistry, "list");
+  }
+
+  private static Timer requestTimer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("accreditation.requests")
+        .description("Latency of the accreditation API operations")
+        .tag("operation", operation)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
   }
 
   @Override
@@ -33,6 +100,7 @@ public class AdminApiController implements AdminApi {
         request.getAccreditationType(),
         request.getDocument().getName());
 
+    Timer.Sample sample = Timer.start(meterRegistry);
     try {
       AccreditationResponse response = adminService.createAccreditation(request);
       return ResponseEntity.ok(response);
@@ -43,6 +111,46 @@ public class AdminApiController implements AdminApi {
       // let's avoid leaking internal errors to the front-end
       throw new UnableToPerformOperationException(
           "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(createTimer);
+    }
+  }
+
+  @Override
+  public ResponseEntity<AccreditationResponse> uploadAccreditation(
+      String userId, AccreditationType accreditationType, MultipartFile document) {
+
+    logger.info(
+        "Received Accreditation Upload for user {} of type {} with document {} of {} bytes",
+        userId,
+        accreditationType,
+        document.getOriginalFilename(),
+        document.getSize());
+
+    String documentName = document.getOriginalFilename();
+    if (userId.isEmpty() || documentName == null || documentName.isEmpty()) {
+      return ResponseEntity.badRequest().build();
+    }
+    String documentMimeType = document.getContentType();
+    if (documentMimeType == null || !MIME_TYPE.matcher(documentMimeType).matches()) {
+      documentMimeType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try (InputStream content = document.getInputStream()) {
+      AccreditationResponse response =
+          adminService.uploadAccreditation(
+              userId, accreditationType, documentName, documentMimeType, content);
+      return ResponseEntity.ok(response);
+    } catch (AdminService.AdminServiceError ex) {
+      throw ex;
+    } catch (Exception ex) {
+      logger.error("Unable to perform operation", ex);
+      // let's avoid leaking internal errors to the front-end
+      throw new UnableToPerformOperationException(
+          "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(uploadTimer);
     }
   }
 
@@ -54,6 +162,7 @@ public class AdminApiController implements AdminApi {
         accreditationId,
         request.getOutcome());
 
+    Timer.Sample sample = Timer.start(meterRegistry);
     try {
       return adminService
           .finalizeAccreditation(accreditationId, request.getOutcome())
@@ -66,7 +175,172 @@ public class AdminApiController implements AdminApi {
       // let's avoid leaking internal errors to the front-end
       throw new UnableToPerformOperationException(
           "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(finaliseTimer);
+    }
+  }
+
+  @Override
+  public ResponseEntity<BatchAccreditationResponse> createAccreditations(
+      BatchCreateAccreditationRequest request) {
+
+    if (request == null
+        || !isValidBatch(request.getItems())
+        || request.getItems().stream()
+            .anyMatch(
+                item ->
+                    item.getUserId() == null
+                        || item.getAccreditationType() == null
+                        || item.getDocument() == null
+                        || item.getDocument().getContent() == null)) {
+      return ResponseEntity.badRequest().build();
+    }
+    logger.info("Received Batch Accreditation Request of {} items", request.getItems().size());
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return ResponseEntity.ok(adminService.createAccreditations(request.getItems()));
+    } catch (AdminService.AdminServiceError ex) {
+      throw ex;
+    } catch (Exception ex) {
+      logger.error("Unable to perform operation", ex);
+      // let's avoid leaking internal errors to the front-end
+      throw new UnableToPerformOperationException(
+          "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(createBatchTimer);
+    }
+  }
+
+  @Override
+  public ResponseEntity<BatchAccreditationResponse> finalizeAccreditations(
+      BatchFinaliseAccreditationRequest request) {
+
+    if (request == null
+        || !isValidBatch(request.getItems())
+        || request.getItems().stream()
+            .anyMatch(item -> item.getAccreditationId() == null || item.getOutcome() == null)) {
+      return ResponseEntity.badRequest().build();
+    }
+    logger.info(
+        "Received Batch Finalize Accreditation Request of {} items", request.getItems().size());
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return ResponseEntity.ok(adminService.finalizeAccreditations(request.getItems()));
+    } catch (AdminService.AdminServiceError ex) {
+      throw ex;
+    } catch (Exception ex) {
+      logger.error("Unable to perform operation", ex);
+      // let's avoid leaking internal errors to the front-end
+      throw new UnableToPerformOperationException(
+          "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(finaliseBatchTimer);
+    }
+  }
+
+  @Override
+  public ResponseEntity<AccreditationPage> listAccreditations(
+      Status status,
+      AccreditationType accreditationType,
+      OffsetDateTime createdFrom,
+      OffsetDateTime createdTo,
+      OffsetDateTime updatedFrom,
+      OffsetDateTime updatedTo,
+      String cursor,
+      Integer limit) {
+
+    if (limit == null || limit < 1 || limit > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
     }
+    AccreditationFilter filter =
+        filter(status, accreditationType, createdFrom, createdTo, updatedFrom, updatedTo);
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return ResponseEntity.ok(adminService.listAccreditations(filter, cursor, limit));
+    } catch (AdminService.AdminServiceError ex) {
+      throw ex;
+    } catch (Exception ex) {
+      logger.error("Unable to perform operation", ex);
+      // let's avoid leaking internal errors to the front-end
+      throw new UnableToPerformOperationException(
+          "Unable to perform the requested operation. Please refer to the logs for more details.");
+    } finally {
+      sample.stop(listTimer);
+    }
+  }
+
+  /**
+   * Exports the accreditations matching the filters of the listing, oldest first, as NDJSON or
+   * CSV, streamed as they are read. It is not part of the API definition, as the interface
+   * generated from it cannot stream the body of a response.
+   */
+  @GetMapping("/user/accreditation/export")
+  public ResponseEntity<StreamingResponseBody> exportAccreditations(
+      @RequestParam(value = "format", defaultValue = "ndjson") String format,
+      @RequestParam(value = "status", required = false) Status status,
+      @RequestParam(value = "accreditation_type", required = false)
+          AccreditationType accreditationType,
+      @RequestParam(value = "created_from", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          OffsetDateTime createdFrom,
+      @RequestParam(value = "created_to", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          OffsetDateTime createdTo,
+      @RequestParam(value = "updated_from", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          OffsetDateTime updatedFrom,
+      @RequestParam(value = "updated_to", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          OffsetDateTime updatedTo,
+      @RequestParam(value = "include_documents", defaultValue = "false")
+          boolean includeDocuments) {
+
+    AccreditationExporter.Format exportFormat;
+    try {
+      exportFormat = AccreditationExporter.Format.fromName(format);
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().build();
+    }
+    AccreditationFilter filter =
+        filter(status, accreditationType, createdFrom, createdTo, updatedFrom, updatedTo);
+    logger.info("Exporting the accreditations matching {} as {}", filter, exportFormat);
+
+    return ResponseEntity.ok()
+        .contentType(exportFormat.getMediaType())
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"accreditations." + exportFormat.getExtension() + "\"")
+        .body(accreditationExporter.export(filter, exportFormat, includeDocuments));
+  }
+
+  private static AccreditationFilter filter(
+      Status status,
+      AccreditationType accreditationType,
+      OffsetDateTime createdFrom,
+      OffsetDateTime createdTo,
+      OffsetDateTime updatedFrom,
+      OffsetDateTime updatedTo) {
+    return new AccreditationFilter(
+        status == null ? null : mapToDatabaseStatus(status),
+        accreditationType == null ? null : mapAccreditationType(accreditationType),
+        createdFrom,
+        createdTo,
+        updatedFrom,
+        updatedTo);
+  }
+
+  private static boolean isValidBatch(List<?> items) {
+    return items != null && !items.isEmpty() && items.size() <= MAX_BATCH_SIZE;
+  }
+
+  /** Uploads over spring.servlet.multipart.max-file-size are rejected before reaching us. */
+  @ExceptionHandler(MaxUploadSizeExceededException.class)
+  public ResponseEntity<Void> uploadTooLarge(MaxUploadSizeExceededException ex) {
+    logger.warn("Rejected upload: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
   }
 
   @ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR, reason = "Unable to perform operation")
@@ -1,27 +1,44 @@
 package com.yieldstreet.accreditation.admin;
 
 import com.yieldstreet.accreditation.audit.KafkaProducer;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.accreditation.documents.DocumentStore;
 import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.accreditation.persistence.AccreditationBatchRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationCursor;
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
+import com.yieldstreet.accreditation.persistence.AccreditationListingRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationListingView;
 import com.yieldstreet.accreditation.persistence.AccreditationRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationStamp;
+import com.yieldstreet.accreditation.persistence.StampedStatusUpdate;
 import com.yieldstreet.accreditation.persistence.User;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
 import com.yieldstreet.accreditation.persistence.UserRepository;
 import com.yieldstreet.model.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.yieldstreet.accreditation.mappers.AccreditationTypeMapper.mapAccreditationType;
-import static com.yieldstreet.accreditation.mappers.AccreditationTypeMapper.mapPersistedAccreditationType;
 import static com.yieldstreet.accreditation.mappers.StatusMapper.mapToDatabaseStatus;
 import static com.yieldstreet.accreditation.mappers.StatusMapper.mapToStatus;
 
@@ -33,20 +50,83 @@ public class AdminService {
   /** The repositories used to store the data * */
   private final UserRepository userRepository;
 
+  /** The internal ids of the users, which saves looking them up when creating accreditations */
+  private final UserIdResolver userIdResolver;
+
   private final AccreditationRepository accreditationRepository;
 
+  private final AccreditationBatchRepository accreditationBatchRepository;
+
+  private final AccreditationListingRepository accreditationListingRepository;
+
   private final KafkaProducer kafkaProducer;
 
-  @Value("${yieldstreet.accreditations.expire_confirmed_days:30}")
-  private int expireConfirmedDays;
+  /** Where the content of the documents is kept, outside the accreditations table */
+  private final DocumentStore documentStore;
+
+  /** The transactions of the finalisations, one for each attempt */
+  private final TransactionTemplate transactionTemplate;
+
+  /** The requests rejected, by reason, batch items included */
+  private final Counter concurrentUpdates;
+
+  private final Counter alreadyPending;
+
+  private final Counter alreadyFailed;
+
+  /** The stamped-lock updates which found the accreditation changed, and the retries they led to */
+  private final Counter conflicts;
+
+  private final Counter retries;
+
+  /** The largest (decoded) document accepted */
+  @Value("${yieldstreet.documents.max_size:25MB}")
+  private DataSize maxDocumentSize = DataSize.ofMegabytes(25);
+
+  /** How many times a finalisation is attempted before giving up with a concurrent update */
+  @Value("${yieldstreet.accreditations.finalise_max_attempts:3}")
+  private int maxFinaliseAttempts = 3;
+
+  /** The upper bound of the random wait before the first retry, doubled for each further one */
+  @Value("${yieldstreet.accreditations.finalise_retry_backoff:20ms}")
+  private Duration finaliseRetryBackoff = Duration.ofMillis(20);
 
   public AdminService(
       UserRepository userRepository,
+      UserIdResolver userIdResolver,
       AccreditationRepository accreditationRepository,
-      KafkaProducer kafkaProducer) {
+      AccreditationBatchRepository accreditationBatchRepository,
+      AccreditationListingRepository accreditationListingRepository,
+      KafkaProducer kafkaProducer,
+      DocumentStore documentStore,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry) {
     this.userRepository = userRepository;
+    this.userIdResolver = userIdResolver;
     this.accreditationRepository = accreditationRepository;
+    this.accreditationBatchRepository = accreditationBatchRepository;
+    this.accreditationListingRepository = accreditationListingRepository;
     this.kafkaProducer = kafkaProducer;
+    this.documentStore = documentStore;
+    this.transactionTemplate = transactionTemplate;
+    this.concurrentUpdates = rejections(meterRegistry, "concurrent_update");
+    this.alreadyPending = rejections(meterRegistry, "already_pending");
+    this.alreadyFailed = rejections(meterRegistry, "already_failed");
+    this.conflicts =
+        Counter.builder("accreditation.finalise.conflicts")
+            .description("Stamped-lock updates which found the accreditation changed by someone else")
+            .register(meterRegistry);
+    this.retries =
+        Counter.builder("accreditation.finalise.retries")
+            .description("Finalisations attempted again after a conflict")
+            .register(meterRegistry);
+  }
+
+  private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("accreditation.rejections")
+        .description("Admin requests rejected, by reason")
+        .tag("reason", reason)
+        .register(meterRegistry);
   }
 
   @Transactional
@@ -54,157 +134,572 @@ public class AdminService {
       CreateAccreditationRequest createAccreditationRequest) {
 
     String userId = createAccreditationRequest.getUserId();
-    List<Accreditation> pendingRequests = accreditationRepository.findByUserUserIdAndStatus(userId, Accreditation.AccreditationStatus.PENDING);
-    if (!pendingRequests.isEmpty()) {
-      logger.warn("User {} already has {} PENDING request(s).", userId, pendingRequests.size());
-      throw new UserAlreadyPendingAccreditationError(userId);
-    }
+    checkNoPendingAccreditation(userId);
 
-    User user = getOrCreateUser(userId);
+    Document document = createAccreditationRequest.getDocument();
+    DocumentReference documentReference =
+        documentStore.store(decodeContent(document.getContent()), document.getMimeType());
 
-    Accreditation accreditation = new Accreditation();
-    accreditation.setUser(user);
-    accreditation.setType(mapAccreditationType(createAccreditationRequest.getAccreditationType()));
-    accreditation.setStatus(Accreditation.AccreditationStatus.PENDING);
+    Accreditation accreditation =
+        saveAccreditation(
+            userId,
+            createAccreditationRequest.getAccreditationType(),
+            document.getName(),
+            document.getMimeType(),
+            documentReference);
 
-    Document document = createAccreditationRequest.getDocument();
-    accreditation.setDocumentName(document.getName());
-    accreditation.setDocumentMimeType(document.getMimeType());
-    accreditation.setDocumentContent(document.getContent());
+    kafkaProducer.notifyCreate(accreditation);
 
-    accreditation = accreditationRepository.save(accreditation);
+    return new AccreditationResponse().accreditationId(accreditation.getId());
+  }
 
-    kafkaProducer.notifyCreate(createAccreditationRequest, accreditation.getId(), Status.PENDING);
+  /**
+   * Creates a new accreditation whose document is read from a stream of raw bytes. The content is
+   * streamed to the document store as it is read, so it is never held in memory as a whole.
+   * @param content the document content, read up to {@link #maxDocumentSize}
+   * @return the response containing the ID of the new accreditation request
+   */
+  @Transactional
+  public AccreditationResponse uploadAccreditation(
+      String userId,
+      AccreditationType accreditationType,
+      String documentName,
+      String documentMimeType,
+      InputStream content) {
+
+    checkNoPendingAccreditation(userId);
+
+    DocumentReference documentReference =
+        documentStore.store(
+            new SizeLimitedInputStream(content, maxDocumentSize.toBytes()), documentMimeType);
+
+    Accreditation accreditation =
+        saveAccreditation(
+            userId, accreditationType, documentName, documentMimeType, documentReference);
+
+    kafkaProducer.notifyCreate(accreditation);
 
     return new AccreditationResponse().accreditationId(accreditation.getId());
   }
 
   /**
-   * Finalizes an accreditation to a specified final status.
+   * Creates a batch of accreditations in one transaction, checking for pending accreditations and
+   * fetching the users of the whole batch at once. An item which cannot be created is reported in
+   * its result instead of failing the others.
+   * <p>The users already pending are found before inserting, so an accreditation created
+   * concurrently for one of them fails the whole batch, on the unique index of the PENDING
+   * accreditations, rather than being reported as its result.
+   * @return the result of each request, in the same order
+   */
+  @Transactional
+  public BatchAccreditationResponse createAccreditations(List<CreateAccreditationRequest> requests) {
+    Set<String> userIds =
+        requests.stream().map(CreateAccreditationRequest::getUserId).collect(Collectors.toSet());
+    Set<String> pendingUserIds =
+        new HashSet<>(
+            accreditationRepository.findUserIdsWithStatus(
+                userIds, Accreditation.AccreditationStatus.PENDING));
+
+    BatchItemResult[] results = new BatchItemResult[requests.size()];
+    List<Integer> createdAt = new ArrayList<>();
+    List<Accreditation> accreditations = new ArrayList<>();
+    for (int i = 0; i < requests.size(); i++) {
+      CreateAccreditationRequest request = requests.get(i);
+      String userId = request.getUserId();
+      // a second request of the same user in the batch finds the first one pending
+      if (pendingUserIds.contains(userId)) {
+        logger.warn("User {} already has a PENDING request.", userId);
+        alreadyPending.increment();
+        results[i] = batchItemResult(null, BatchItemOutcome.ALREADY_PENDING);
+        continue;
+      }
+
+      Document document = request.getDocument();
+      DocumentReference documentReference;
+      try {
+        documentReference =
+            documentStore.store(decodeContent(document.getContent()), document.getMimeType());
+      } catch (InvalidDocumentContentError ex) {
+        logger.warn("Invalid document for user {}: {}", userId, ex.getMessage());
+        results[i] = batchItemResult(null, BatchItemOutcome.INVALID_DOCUMENT);
+        continue;
+      } catch (DocumentTooLargeError ex) {
+        logger.warn("Document too large for user {}: {}", userId, ex.getMessage());
+        results[i] = batchItemResult(null, BatchItemOutcome.DOCUMENT_TOO_LARGE);
+        continue;
+      }
+
+      pendingUserIds.add(userId);
+      createdAt.add(i);
+      accreditations.add(
+          newAccreditation(
+              null,
+              request.getAccreditationType(),
+              document.getName(),
+              document.getMimeType(),
+              documentReference));
+    }
+
+    if (!accreditations.isEmpty()) {
+      Map<String, User> users =
+          getOrCreateUsers(
+              createdAt.stream().map(i -> requests.get(i).getUserId()).collect(Collectors.toSet()));
+      for (int j = 0; j < accreditations.size(); j++) {
+        accreditations.get(j).setUser(users.get(requests.get(createdAt.get(j)).getUserId()));
+      }
+
+      accreditations = accreditationRepository.saveAll(accreditations);
+      for (int j = 0; j < accreditations.size(); j++) {
+        results[createdAt.get(j)] =
+            batchItemResult(accreditations.get(j).getId(), BatchItemOutcome.OK);
+      }
+
+      kafkaProducer.notifyCreate(accreditations);
+    }
+
+    logger.info("Created {} of {} accreditations", accreditations.size(), requests.size());
+    return new BatchAccreditationResponse().results(Arrays.asList(results));
+  }
+
+  /**
+   * Rejects the request of a user who already has a PENDING accreditation before the document is
+   * read and stored, from the index of the PENDING accreditations. A PENDING accreditation created
+   * concurrently is only detected when inserting, see {@link #saveAccreditation}.
+   */
+  private void checkNoPendingAccreditation(String userId) {
+    if (!accreditationRepository
+        .findUserIdsWithStatus(List.of(userId), Accreditation.AccreditationStatus.PENDING)
+        .isEmpty()) {
+      throw alreadyPending(userId);
+    }
+  }
+
+  private UserAlreadyPendingAccreditationError alreadyPending(String userId) {
+    logger.warn("User {} already has a PENDING request.", userId);
+    alreadyPending.increment();
+    return new UserAlreadyPendingAccreditationError(userId);
+  }
+
+  /**
+   * Creates the user if needed and the accreditation in a single statement, which is where a
+   * PENDING accreditation of the same user, even one being created concurrently, is detected.
+   */
+  private Accreditation saveAccreditation(
+      String userId,
+      AccreditationType accreditationType,
+      String documentName,
+      String documentMimeType,
+      DocumentReference documentReference) {
+    User user = new User();
+    user.setUserId(userId);
+    userIdResolver.getIfPresent(userId).ifPresent(user::setId);
+    Accreditation accreditation =
+        accreditationBatchRepository
+            .insertPendingAccreditation(
+                newAccreditation(
+                    user, accreditationType, documentName, documentMimeType, documentReference))
+            .orElseThrow(() -> alreadyPending(userId));
+    userIdResolver.remember(userId, user.getId());
+    return accreditation;
+  }
+
+  private Accreditation newAccreditation(
+      User user,
+      AccreditationType accreditationType,
+      String documentName,
+      String documentMimeType,
+      DocumentReference documentReference) {
+    Accreditation accreditation = new Accreditation();
+    accreditation.setUser(user);
+    accreditation.setType(mapAccreditationType(accreditationType));
+    accreditation.setStatus(Accreditation.AccreditationStatus.PENDING);
+
+    accreditation.setDocumentName(documentName);
+    accreditation.setDocumentMimeType(documentMimeType);
+    accreditation.setDocumentHash(documentReference.hash());
+    accreditation.setDocumentSize(documentReference.size());
+    return accreditation;
+  }
+
+  /**
+   * Finalizes an accreditation to a specified final status, re-reading it and deciding again if it
+   * was updated concurrently, up to {@link #maxFinaliseAttempts} times: the concurrent update may
+   * have made the finalisation idempotent, or impossible.
+   * <p>Each attempt is a transaction of its own, so no connection is held while waiting to retry,
+   * and the retry reads what was committed in the meantime.
    * @param accreditationId the unique ID of the accreditation request
-   * @param status the status to be set
+   * @param finalStatus the status to be set
    * @return the response containing the ID if the accreditation request exists, or empty if it does not exist
    */
-  @Transactional
   public Optional<AccreditationResponse> finalizeAccreditation(
-      UUID accreditationId, FinalStatus status) {
-    return accreditationRepository
-        .findById(accreditationId)
-        .map(accreditation -> finalizeAccreditation(accreditation, status));
+      UUID accreditationId, FinalStatus finalStatus) {
+
+    Accreditation accreditation = null;
+    for (int attempt = 1; ; attempt++) {
+      Accreditation read = accreditation;
+      FinaliseAttempt result =
+          transactionTemplate.execute(
+              status -> attemptFinalisation(accreditationId, read, finalStatus));
+      if (result.accreditation() == null) {
+        return Optional.empty();
+      }
+      if (result.done()) {
+        return Optional.of(new AccreditationResponse().accreditationId(accreditationId));
+      }
+      accreditation = result.accreditation();
+
+      conflicts.increment();
+      if (attempt >= maxFinaliseAttempts) {
+        logger.warn(
+            "No accreditation status update took place for {} after {} attempts! Did someone else updated it in parallel?", accreditationId, attempt);
+        concurrentUpdates.increment();
+        throw new ConcurrentUpdateError(accreditationId);
+      }
+      retries.increment();
+      backOff(attempt);
+    }
   }
 
-  private AccreditationResponse finalizeAccreditation(
-      Accreditation accreditation, FinalStatus finalStatus) {
+  private static AccreditationStamp stampOf(Accreditation accreditation) {
+    return new AccreditationStamp(
+        accreditation.getId(), accreditation.getStatus(), accreditation.getVersion());
+  }
 
-    Accreditation.AccreditationStatus newStatus = mapToDatabaseStatus(finalStatus);
-    Accreditation.AccreditationStatus oldStatus = accreditation.getStatus();
+  /**
+   * The outcome of an attempt to finalise an accreditation.
+   * @param accreditation the accreditation, null if it does not exist
+   * @param done whether it is finalised, false if it was updated concurrently
+   */
+  private record FinaliseAttempt(Accreditation accreditation, boolean done) {}
 
+  /**
+   * Reads the accreditation, or only its current status and version if it was already read by a
+   * previous attempt, and finalizes it unless it was updated concurrently.
+   */
+  private FinaliseAttempt attemptFinalisation(
+      UUID accreditationId, Accreditation accreditation, FinalStatus finalStatus) {
+
+    AccreditationStamp stamp;
+    if (accreditation == null) {
+      accreditation = accreditationRepository.findById(accreditationId).orElse(null);
+      if (accreditation == null) {
+        return new FinaliseAttempt(null, false);
+      }
+      stamp = stampOf(accreditation);
+    } else {
+      stamp =
+          accreditationRepository
+              .findStampById(accreditationId)
+              .orElseThrow(() -> new ConcurrentUpdateError(accreditationId));
+    }
+
+    Accreditation.AccreditationStatus newStatus = mapToDatabaseStatus(finalStatus);
+    Accreditation.AccreditationStatus oldStatus = stamp.status();
     if (newStatus.equals(oldStatus)) {
       //make the API call idempotent (PUT should be), just return the same result
-      logger.info("Idempotent finalisation of {} with status {} when it was already {}", accreditation.getId(), newStatus, oldStatus);
-      return new AccreditationResponse().accreditationId(accreditation.getId());
+      logger.info("Idempotent finalisation of {} with status {} when it was already {}", accreditationId, newStatus, oldStatus);
+      return new FinaliseAttempt(accreditation, true);
     }
 
-    if (accreditation.getStatus().equals(Accreditation.AccreditationStatus.FAILED)) {
-      logger.warn("Accreditation request {} is already in FAILED status. Cannot update further.", accreditation.getId());
-      throw new AccreditationAlreadyInFailedStateError(accreditation.getId());
+    if (oldStatus.equals(Accreditation.AccreditationStatus.FAILED)) {
+      logger.warn("Accreditation request {} is already in FAILED status. Cannot update further.", accreditationId);
+      alreadyFailed.increment();
+      throw new AccreditationAlreadyInFailedStateError(accreditationId);
     }
 
-    updateUsingStampedLock(accreditation, newStatus);
-    // we re-create the original request from the data so message is self-contained
-    CreateAccreditationRequest request = recreateRequest(accreditation);
-    kafkaProducer.notifyFinalise(
-        request, accreditation.getId(), mapToStatus(finalStatus), mapToStatus(oldStatus));
+    if (updateUsingStampedLock(stamp, newStatus)) {
+      kafkaProducer.notifyFinalise(accreditation, mapToStatus(finalStatus), mapToStatus(oldStatus));
+      return new FinaliseAttempt(accreditation, true);
+    }
+    return new FinaliseAttempt(accreditation, false);
+  }
 
-    return new AccreditationResponse().accreditationId(accreditation.getId());
+  /**
+   * Finalizes a batch of accreditations: they are fetched with a single query, updated with a
+   * single JDBC batch of stamped-lock updates, and notified together. The ones updated concurrently
+   * are re-read and decided again together, like a single finalisation, each attempt being a
+   * transaction of its own. An item which cannot be finalised is reported in its result instead of
+   * failing the others.
+   * <p>An accreditation which appears more than once in the same batch is only finalised by its
+   * first item: the others get the same result if they ask for the same status, and are concurrent
+   * updates otherwise.
+   * @return the result of each item, in the same order
+   */
+  public BatchAccreditationResponse finalizeAccreditations(List<FinaliseAccreditationItem> items) {
+    BatchItemResult[] results = new BatchItemResult[items.size()];
+    // the first item of each accreditation
+    Map<UUID, Integer> firstItemOf = new LinkedHashMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      firstItemOf.putIfAbsent(items.get(i).getAccreditationId(), i);
+    }
+    // the accreditations read by the first attempt, and the last known status and version of each
+    Map<UUID, Accreditation> accreditations = new HashMap<>();
+    Map<UUID, AccreditationStamp> stamps = new HashMap<>();
+
+    int finalised = 0;
+    Collection<UUID> toFinalise = firstItemOf.keySet();
+    for (int attempt = 1; ; attempt++) {
+      boolean firstAttempt = attempt == 1;
+      Collection<UUID> attempted = toFinalise;
+      BatchFinaliseAttempt result =
+          transactionTemplate.execute(
+              status -> {
+                if (firstAttempt) {
+                  accreditationRepository
+                      .findAllWithUserByIdIn(attempted)
+                      .forEach(
+                          accreditation -> {
+                            accreditations.put(accreditation.getId(), accreditation);
+                            stamps.put(accreditation.getId(), stampOf(accreditation));
+                          });
+                } else {
+                  accreditationRepository
+                      .findStampsByIdIn(attempted)
+                      .forEach(stamp -> stamps.put(stamp.id(), stamp));
+                }
+                return attemptBatchFinalisation(
+                    items, firstItemOf, attempted, accreditations, stamps, results);
+              });
+      finalised += result.finalised();
+      List<UUID> conflicted = result.conflicted();
+      if (conflicted.isEmpty()) {
+        break;
+      }
+
+      conflicts.increment(conflicted.size());
+      if (attempt >= maxFinaliseAttempts) {
+        for (UUID accreditationId : conflicted) {
+          logger.warn(
+              "No accreditation status update took place for {} after {} attempts! Did someone else updated it in parallel?", accreditationId, attempt);
+          results[firstItemOf.get(accreditationId)] =
+              batchItemResult(accreditationId, BatchItemOutcome.CONCURRENT_UPDATE);
+        }
+        concurrentUpdates.increment(conflicted.size());
+        break;
+      }
+      retries.increment(conflicted.size());
+      backOff(attempt);
+      toFinalise = conflicted;
+    }
+
+    // the other items of the same accreditations
+    for (int i = 0; i < items.size(); i++) {
+      if (results[i] == null) {
+        UUID accreditationId = items.get(i).getAccreditationId();
+        int first = firstItemOf.get(accreditationId);
+        if (results[first].getOutcome() == BatchItemOutcome.NOT_FOUND
+            || items.get(first).getOutcome().equals(items.get(i).getOutcome())) {
+          results[i] = results[first];
+        } else {
+          concurrentUpdates.increment();
+          results[i] = batchItemResult(accreditationId, BatchItemOutcome.CONCURRENT_UPDATE);
+        }
+      }
+    }
+
+    logger.info("Finalised {} of {} accreditations", finalised, items.size());
+    return new BatchAccreditationResponse().results(Arrays.asList(results));
   }
 
   /**
-   * Expires old CONFIRMED accreditations older than {@link #expireConfirmedDays}.
+   * The outcome of an attempt to finalise a batch of accreditations.
+   * @param finalised the number of accreditations updated
+   * @param conflicted the accreditations updated concurrently
    */
-  @Transactional
-  public void expireOldConfirmedAccreditations() {
-    OffsetDateTime updateBeforeTs = OffsetDateTime.now().minusDays(expireConfirmedDays);
+  private record BatchFinaliseAttempt(int finalised, List<UUID> conflicted) {}
 
-    List<Accreditation> oldConfirmedAccreditations =
-            accreditationRepository.findAccreditationByStatusAndUpdatedTsBefore(
-                    Accreditation.AccreditationStatus.CONFIRMED, updateBeforeTs);
-    if (!oldConfirmedAccreditations.isEmpty()) {
-      logger.info(
-              "Expiring {} confirmed accreditations older than {}",
-              oldConfirmedAccreditations.size(),
-              updateBeforeTs);
+  /**
+   * Decides and updates the given accreditations of a batch from their last known status and
+   * version, recording the result of their first item, and notifies the ones updated.
+   */
+  private BatchFinaliseAttempt attemptBatchFinalisation(
+      List<FinaliseAccreditationItem> items,
+      Map<UUID, Integer> firstItemOf,
+      Collection<UUID> toFinalise,
+      Map<UUID, Accreditation> accreditations,
+      Map<UUID, AccreditationStamp> stamps,
+      BatchItemResult[] results) {
+
+    List<StampedStatusUpdate> updates = new ArrayList<>();
+    for (UUID accreditationId : toFinalise) {
+      int i = firstItemOf.get(accreditationId);
+      Accreditation.AccreditationStatus newStatus = mapToDatabaseStatus(items.get(i).getOutcome());
+      AccreditationStamp stamp = stamps.get(accreditationId);
+      if (stamp == null) {
+        results[i] = batchItemResult(accreditationId, BatchItemOutcome.NOT_FOUND);
+      } else if (newStatus.equals(stamp.status())) {
+        logger.info("Idempotent finalisation of {} with status {} when it was already {}", accreditationId, newStatus, stamp.status());
+        results[i] = batchItemResult(accreditationId, BatchItemOutcome.OK);
+      } else if (stamp.status().equals(Accreditation.AccreditationStatus.FAILED)) {
+        logger.warn("Accreditation request {} is already in FAILED status. Cannot update further.", accreditationId);
+        alreadyFailed.increment();
+        results[i] = batchItemResult(accreditationId, BatchItemOutcome.ALREADY_FAILED);
+      } else {
+        updates.add(new StampedStatusUpdate(accreditationId, newStatus, stamp.version()));
+      }
+    }
+    if (updates.isEmpty()) {
+      return new BatchFinaliseAttempt(0, List.of());
+    }
+
+    int[] updated = accreditationBatchRepository.finaliseAccreditationStatuses(updates);
+    List<KafkaProducer.Finalisation> finalisations = new ArrayList<>();
+    List<UUID> conflicted = new ArrayList<>();
+    for (int u = 0; u < updates.size(); u++) {
+      UUID accreditationId = updates.get(u).accreditationId();
+      int i = firstItemOf.get(accreditationId);
+      if (updated[u] > 0) {
+        results[i] = batchItemResult(accreditationId, BatchItemOutcome.OK);
+        finalisations.add(
+            new KafkaProducer.Finalisation(
+                accreditations.get(accreditationId),
+                mapToStatus(items.get(i).getOutcome()),
+                mapToStatus(stamps.get(accreditationId).status())));
+      } else {
+        conflicted.add(accreditationId);
+      }
+    }
 
-      oldConfirmedAccreditations.forEach(this::expireAccreditation);
+    if (!finalisations.isEmpty()) {
+      kafkaProducer.notifyFinalise(finalisations);
     }
+    return new BatchFinaliseAttempt(finalisations.size(), conflicted);
   }
 
+  /**
+   * Lists a page of the accreditations matching the filter, in creation order, from the replica if
+   * there is one. One more accreditation than the limit is read, to know whether there is a next
+   * page.
+   * @param cursor the next cursor of the previous page, or null for the first page
+   */
+  @Transactional(readOnly = true)
+  public AccreditationPage listAccreditations(AccreditationFilter filter, String cursor, int limit) {
+    AccreditationCursor after;
+    try {
+      after = cursor == null ? null : AccreditationCursor.decode(cursor);
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidCursorError(cursor);
+    }
 
-  private void expireAccreditation(Accreditation accreditation) {
-    Accreditation.AccreditationStatus oldStatus = accreditation.getStatus();
-    logger.info(
-        "Expiring {} which was last updated on {} to status {}",
-        accreditation.getId(),
-        accreditation.getUpdatedTs(),
-        oldStatus);
+    List<AccreditationListingView> accreditations =
+        accreditationListingRepository.findPage(filter, after, limit + 1);
+    boolean hasNextPage = accreditations.size() > limit;
+    if (hasNextPage) {
+      accreditations = accreditations.subList(0, limit);
+    }
 
-    updateUsingStampedLock(accreditation, mapToDatabaseStatus(FinalStatus.EXPIRED));
-    // we re-create the original request from the data so message is self-contained
-    CreateAccreditationRequest request = recreateRequest(accreditation);
-    kafkaProducer.notifyScheduledExpire(request, accreditation.getId(), mapToStatus(oldStatus));
+    AccreditationPage page = new AccreditationPage();
+    page.setItems(accreditations.stream().map(AccreditationMapper::mapToSummary).toList());
+    if (hasNextPage) {
+      page.setNextCursor(accreditations.get(limit - 1).cursor().encode());
+    }
+    return page;
   }
 
-  private void updateUsingStampedLock(Accreditation accreditation, Accreditation.AccreditationStatus status) {
-    OffsetDateTime updatedTs = accreditation.getUpdatedTs();
+  private static BatchItemResult batchItemResult(UUID accreditationId, BatchItemOutcome outcome) {
+    return new BatchItemResult().accreditationId(accreditationId).outcome(outcome);
+  }
+
+  /** @return whether the accreditation was updated, that is whether it was still at the version of the stamp */
+  private boolean updateUsingStampedLock(AccreditationStamp stamp, Accreditation.AccreditationStatus status) {
     logger.info(
-        "Finalising Accreditation {} last updated on {} with status {}",
-        accreditation.getId(),
-        updatedTs,
+        "Finalising Accreditation {} at version {} with status {}",
+        stamp.id(),
+        stamp.version(),
         status);
 
-    // we use the updatedTs timestamp as a stamped lock, to avoid pessimistic locking
+    // we use the version as a stamped lock, to avoid pessimistic locking
     int updated =
-        accreditationRepository.finaliseAccreditationStatus(status, accreditation.getId(), updatedTs);
+        accreditationRepository.finaliseAccreditationStatus(status, stamp.id(), stamp.version());
 
     logger.debug("Updated {}", updated);
-    if (updated == 0) {
-      logger.warn(
-          "No accreditation status update took place for {}! Did someone else updated it in parallel?", accreditation.getId());
-      throw new ConcurrentUpdateError(accreditation.getId());
-    } else if (updated > 1) {
+    if (updated > 1) {
       logger.warn("Somehow more than one record was updated (which should be impossible).");
     }
+    return updated > 0;
   }
 
-  private User getOrCreateUser(String userId) {
-    return userRepository.findByUserId(userId).orElseGet(() -> createUser(userId));
+  /**
+   * Waits before retrying a conflicting update, for a random time up to the backoff doubled for
+   * each attempt, so that the updates which conflicted once do not conflict again.
+   */
+  private void backOff(int attempt) {
+    long maxMillis = finaliseRetryBackoff.toMillis() << (attempt - 1);
+    if (maxMillis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to retry", e);
+    }
   }
 
-  private User createUser(String userId) {
+  /** Retrieves the given users, creating the missing ones with a single statement. */
+  private Map<String, User> getOrCreateUsers(Set<String> userIds) {
+    Map<String, User> users =
+        userRepository.findByUserIdIn(userIds).stream()
+            .collect(Collectors.toMap(User::getUserId, Function.identity()));
+    if (users.size() < userIds.size()) {
+      Set<String> missing = new HashSet<>(userIds);
+      missing.removeAll(users.keySet());
+      accreditationBatchRepository.createMissingUsers(missing);
+      userRepository.findByUserIdIn(missing).forEach(user -> users.put(user.getUserId(), user));
+    }
+    users.values().forEach(user -> userIdResolver.remember(user.getUserId(), user.getId()));
+    return users;
+  }
+
+  private byte[] decodeContent(String content) {
+    byte[] decoded;
     try {
-      User user = new User();
-      user.setUserId(userId);
-      return userRepository.save(user);
-    } catch (DataIntegrityViolationException ex) {
-      logger.info("Seems the user is already there?", ex);
-      logger.info("Trying to get it again.");
-      return userRepository
-          .findByUserId(userId)
-          .orElseThrow(() -> new RuntimeException("Error creating new user."));
-    }
-  }
-
-  private CreateAccreditationRequest recreateRequest(Accreditation accreditation) {
-    CreateAccreditationRequest createAccreditationRequest = new CreateAccreditationRequest();
-    createAccreditationRequest.setUserId(accreditation.getUser().getUserId());
-    createAccreditationRequest.setAccreditationType(
-        mapPersistedAccreditationType(accreditation.getType()));
-    Document document = new Document();
-    document.setName(accreditation.getDocumentName());
-    document.setContent(accreditation.getDocumentContent());
-    document.setMimeType(accreditation.getDocumentMimeType());
-    createAccreditationRequest.setDocument(document);
-    return createAccreditationRequest;
+      decoded = Base64.getDecoder().decode(content);
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidDocumentContentError(ex.getMessage());
+    }
+    if (decoded.length > maxDocumentSize.toBytes()) {
+      throw new DocumentTooLargeError(maxDocumentSize);
+    }
+    return decoded;
+  }
+
+  /** Fails the read, and hence the upload, once more than the given number of bytes are read. */
+  private static class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+
+    private long bytesRead;
+
+    SizeLimitedInputStream(InputStream in, long maxBytes) {
+      super(in);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if (read != -1) {
+        count(1);
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count(read);
+      }
+      return read;
+    }
+
+    private void count(int read) {
+      bytesRead += read;
+      if (bytesRead > maxBytes) {
+        throw new DocumentTooLargeError(DataSize.ofBytes(maxBytes));
+      }
+    }
   }
 
   @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid Operation")
@@ -221,7 +716,21 @@ public class AdminService {
     }
   }
 
-  @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Concurrent Update Error")
+  @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Document content is not valid base64")
+  public static class InvalidDocumentContentError extends AdminServiceError {
+    public InvalidDocumentContentError(String reason) {
+      super("Invalid document content: " + reason);
+    }
+  }
+
+  @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "Document too large")
+  public static class DocumentTooLargeError extends AdminServiceError {
+    public DocumentTooLargeError(DataSize maxDocumentSize) {
+      super("Document larger than " + maxDocumentSize.toBytes() + " bytes.");
+    }
+  }
+
+  @ResponseStatus(value = HttpStatus.CONFLICT, reason = "Concurrent Update Error")
   public static class ConcurrentUpdateError extends AdminServiceError {
     public ConcurrentUpdateError(UUID uuid) {
       super("Concurrent update to " + uuid.toString());
@@ -235,4 +744,11 @@ public class AdminService {
     }
   }
 
+  @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid cursor")
+  public static class InvalidCursorError extends AdminServiceError {
+    public InvalidCursorError(String cursor) {
+      super("Invalid cursor " + cursor);
+    }
+  }
+
 }
@@ -0,0 +1,152 @@
+package com.yieldstreet.accreditation.admin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Caps the body of a batch create ({@code POST /user/accreditation/batch}), all its base64
+ * documents included, since the whole batch is read in memory before any item is looked at. Each
+ * document is also held to the maximum document size, but up to 1000 of them would still add up
+ * to gigabytes.
+ *
+ * <p>A body declaring a larger {@code Content-Length} is rejected with 413 before it is read. One
+ * without a length (chunked) is counted as it is read, and fails with {@link BatchTooLargeError},
+ * also a 413, once over the limit.
+ */
+@Component
+public class BatchRequestSizeFilter extends OncePerRequestFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchRequestSizeFilter.class);
+
+  private static final String BATCH_PATH = "/user/accreditation/batch";
+
+  private final DataSize maxBatchSize;
+
+  public BatchRequestSizeFilter(
+      @Value("${yieldstreet.documents.batch_max_size:100MB}") DataSize maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !HttpMethod.POST.matches(request.getMethod())
+        || !BATCH_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long maxBytes = maxBatchSize.toBytes();
+    if (request.getContentLengthLong() > maxBytes) {
+      logger.warn(
+          "Rejected batch of {} bytes, over {} bytes", request.getContentLengthLong(), maxBytes);
+      response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Batch too large");
+      return;
+    }
+    filterChain.doFilter(new SizeLimitedRequest(request, maxBytes), response);
+  }
+
+  /** Fails the read of its body once more than the given number of bytes are read. */
+  private static class SizeLimitedRequest extends HttpServletRequestWrapper {
+
+    private final long maxBytes;
+
+    private ServletInputStream inputStream;
+
+    SizeLimitedRequest(HttpServletRequest request, long maxBytes) {
+      super(request);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (inputStream == null) {
+        inputStream = new SizeLimitedInputStream(super.getInputStream(), maxBytes);
+      }
+      return inputStream;
+    }
+  }
+
+  private static class SizeLimitedInputStream extends ServletInputStream {
+
+    private final ServletInputStream in;
+
+    private final long maxBytes;
+
+    private long bytesRead;
+
+    SizeLimitedInputStream(ServletInputStream in, long maxBytes) {
+      this.in = in;
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = in.read();
+      if (read != -1) {
+        count(1);
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        count(read);
+      }
+      return read;
+    }
+
+    private void count(int read) {
+      bytesRead += read;
+      if (bytesRead > maxBytes) {
+        throw new BatchTooLargeError(maxBytes);
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return in.isFinished();
+    }
+
+    @Override
+    public boolean isReady() {
+      return in.isReady();
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      in.setReadListener(readListener);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "Batch too large")
+  public static class BatchTooLargeError extends AdminService.AdminServiceError {
+    public BatchTooLargeError(long maxBytes) {
+      super("Batch larger than " + maxBytes + " bytes.");
+    }
+  }
+}
@@ -10,10 +10,15 @@ public class ScheduledTasks {
 
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTasks.class);
 
-    private final AdminService adminService;
+    private final AccreditationExpiryJob accreditationExpiryJob;
 
-    public ScheduledTasks(AdminService adminService) {
-        this.adminService = adminService;
+    private final AccreditationArchivalJob accreditationArchivalJob;
+
+    public ScheduledTasks(
+            AccreditationExpiryJob accreditationExpiryJob,
+            AccreditationArchivalJob accreditationArchivalJob) {
+        this.accreditationExpiryJob = accreditationExpiryJob;
+        this.accreditationArchivalJob = accreditationArchivalJob;
     }
 
     /**
@@ -22,7 +27,15 @@ public class ScheduledTasks {
     @Scheduled(cron = "0 0 0 * * ?")
     public void expireOldConfirmed() {
         logger.info("Running scheduled task to expire old confirmed accreditation requests.");
-        adminService.expireOldConfirmedAccreditations();
+        accreditationExpiryJob.expireOldConfirmedAccreditations();
     }
-}
 
+    /**
+     * Run this every day at 2am, once the accreditations have been expired.
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void archiveOldTerminal() {
+        logger.info("Running scheduled task to archive old expired and failed accreditations.");
+        accreditationArchivalJob.archiveTerminalAccreditations();
+    }
+}
@@ -1,24 +1,47 @@
 package com.yieldstreet.accreditation.audit;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.yieldstreet.model.AccreditationType;
 import com.yieldstreet.model.CreateAccreditationRequest;
 import com.yieldstreet.model.Status;
 
 import java.time.OffsetDateTime;
 
+/**
+ * The message sent to Kafka whenever an accreditation changes state.
+ *
+ * <p>Version 1 messages (no {@code version}) carry the whole original {@code request}, document
+ * content included. From version 2 the accreditation type and a {@code document} reference are
+ * top-level fields, and the content is fetched from the document store by hash when needed;
+ * {@code request} is only present while existing consumers still rely on it, see
+ * {@link AccreditationStateChangeFactory.Format}.
+ */
 public record AccreditationStateChange(
+        @JsonProperty(value = "version") Integer version,
         @JsonProperty(value = "timestamp", required = true) OffsetDateTime timestamp,
         @JsonProperty(value = "action", required = true) Action action,
         @JsonProperty(value = "user_id", required = true) String userId,
         @JsonProperty(value = "accreditation_id", required = true) String accreditationId,
+        @JsonProperty(value = "accreditation_type") AccreditationType accreditationType,
         @JsonProperty(value = "status", required = true) Status status,
         @JsonProperty(value = "old_status") Status old_status,
-        @JsonProperty(value = "request", required = true) CreateAccreditationRequest request
+        @JsonProperty(value = "document") DocumentDetails document,
+        @JsonProperty(value = "request") CreateAccreditationRequest request
         ) {
 
+    /** The version of the messages carrying a document reference */
+    public static final int SLIM_VERSION = 2;
+
     public enum Action {
         CREATE,
         FINALISE,
         SCHEDULED_EXPIRE
     }
+
+    /** The document of the accreditation, without its content */
+    public record DocumentDetails(
+            @JsonProperty(value = "name", required = true) String name,
+            @JsonProperty(value = "mime_type", required = true) String mimeType,
+            @JsonProperty(value = "hash", required = true) String hash,
+            @JsonProperty(value = "size", required = true) long size) {}
 }
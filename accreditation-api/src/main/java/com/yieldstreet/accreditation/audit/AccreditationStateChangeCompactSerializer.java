@@ -0,0 +1,18 @@
+package com.yieldstreet.accreditation.audit;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes the state changes in the compact binary encoding ({@link CompactStateChangeFormat}),
+ * rather than in JSON as {@link AccreditationStateChangeSerializer}. Selected with {@code
+ * yieldstreet.audit.serializer}, or the {@code value.serializer} of a binding; consumers read both
+ * encodings with {@link AccreditationStateChangeDeserializer}.
+ */
+@SuppressWarnings("unused") //it is actually configured in application.yml
+public class AccreditationStateChangeCompactSerializer implements Serializer<AccreditationStateChange> {
+
+    @Override
+    public byte[] serialize(String topic, AccreditationStateChange data) {
+        return data == null ? null : CompactStateChangeFormat.encode(data);
+    }
+}
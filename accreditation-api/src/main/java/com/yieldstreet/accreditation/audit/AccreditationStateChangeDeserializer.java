@@ -0,0 +1,39 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads the state changes written by either {@link AccreditationStateChangeSerializer} (JSON) or
+ * {@link AccreditationStateChangeCompactSerializer}, telling them apart by their first byte, so
+ * that a topic can switch from one encoding to the other.
+ */
+public class AccreditationStateChangeDeserializer implements Deserializer<AccreditationStateChange> {
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            // keep the offset of the timestamps, as written
+            .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public AccreditationStateChange deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (CompactStateChangeFormat.matches(data)) {
+            return CompactStateChangeFormat.decode(data);
+        }
+        try {
+            return objectMapper.readValue(data, AccreditationStateChange.class);
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+    }
+}
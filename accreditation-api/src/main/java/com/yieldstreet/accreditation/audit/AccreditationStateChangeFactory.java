@@ -0,0 +1,118 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import com.yieldstreet.model.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static com.yieldstreet.accreditation.mappers.AccreditationTypeMapper.mapPersistedAccreditationType;
+
+/**
+ * Builds the {@link AccreditationStateChange} messages of an accreditation in the configured
+ * {@link Format}. The document content is only read from the {@link DocumentStore} by the formats
+ * which still embed it.
+ */
+@Component
+public class AccreditationStateChangeFactory {
+
+  /** The shape of the messages sent */
+  public enum Format {
+    /** Version 1: the original request, with the base64 document content */
+    FULL,
+    /** Version 2, still carrying the version 1 request for the consumers not migrated yet */
+    COMPAT,
+    /** Version 2 only: the document is referenced by hash */
+    SLIM
+  }
+
+  private final DocumentStore documentStore;
+
+  private final Format format;
+
+  public AccreditationStateChangeFactory(
+      DocumentStore documentStore,
+      @Value("${yieldstreet.audit.event_format:compat}") Format format) {
+    this.documentStore = documentStore;
+    this.format = format;
+  }
+
+  public AccreditationStateChange create(
+      AccreditationStateChange.Action action,
+      Accreditation accreditation,
+      Status status,
+      Status oldStatus) {
+    String userId = accreditation.getUser().getUserId();
+    AccreditationType accreditationType = mapPersistedAccreditationType(accreditation.getType());
+    OffsetDateTime timestamp = OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC);
+
+    // we re-create the original request from the data so message is self-contained
+    CreateAccreditationRequest request =
+        format == Format.SLIM ? null : recreateRequest(userId, accreditationType, accreditation);
+    if (format == Format.FULL) {
+      return new AccreditationStateChange(
+          null,
+          timestamp,
+          action,
+          userId,
+          accreditation.getId().toString(),
+          null,
+          status,
+          oldStatus,
+          null,
+          request);
+    }
+
+    AccreditationStateChange.DocumentDetails document =
+        new AccreditationStateChange.DocumentDetails(
+            accreditation.getDocumentName(),
+            accreditation.getDocumentMimeType(),
+            accreditation.getDocumentHash(),
+            accreditation.getDocumentSize());
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        timestamp,
+        action,
+        userId,
+        accreditation.getId().toString(),
+        accreditationType,
+        status,
+        oldStatus,
+        document,
+        request);
+  }
+
+  private CreateAccreditationRequest recreateRequest(
+      String userId, AccreditationType accreditationType, Accreditation accreditation) {
+    CreateAccreditationRequest createAccreditationRequest = new CreateAccreditationRequest();
+    createAccreditationRequest.setUserId(userId);
+    createAccreditationRequest.setAccreditationType(accreditationType);
+    Document document = new Document();
+    document.setName(accreditation.getDocumentName());
+    document.setContent(loadContent(accreditation));
+    document.setMimeType(accreditation.getDocumentMimeType());
+    createAccreditationRequest.setDocument(document);
+    return createAccreditationRequest;
+  }
+
+  private String loadContent(Accreditation accreditation) {
+    ByteBuffer content =
+        documentStore
+            .load(accreditation.getDocumentHash())
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "Document " + accreditation.getDocumentHash() + " of accreditation "
+                            + accreditation.getId() + " is missing from the document store."));
+    return new String(Base64.getEncoder().encode(content).array(), StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,401 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import com.yieldstreet.model.Status;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * The compact binary encoding of an {@link AccreditationStateChange}: the fields in a fixed order,
+ * without names, the enums as one byte codes, the timestamp as numbers, the accreditation id and
+ * document hash as raw bytes, and the lengths and numbers as variable length integers.
+ *
+ * <p>A message starts with {@link #MAGIC}, which no JSON message starts with, then the version of
+ * the schema, {@link #SCHEMA_VERSION}, so that both encodings can be read from the same topic, and
+ * the schema can change. A change to the fields, or to the codes of the enums, needs a new schema
+ * version, with the older ones still decoded. Schema version 1 is, in order:
+ *
+ * <ol>
+ *   <li>the flags of the optional fields and alternative encodings, a varint
+ *   <li>{@code version}, a varint, if present
+ *   <li>{@code timestamp}: the seconds since the epoch (zigzag varint), the nanoseconds (varint)
+ *       and the offset in seconds (zigzag varint)
+ *   <li>{@code action}, a byte
+ *   <li>{@code user_id}, a string
+ *   <li>{@code accreditation_id}: 16 bytes, or a string if it is not a UUID
+ *   <li>{@code accreditation_type}, a byte, if present
+ *   <li>{@code status}, a byte
+ *   <li>{@code old_status}, a byte, if present
+ *   <li>{@code document}, if present: its name and MIME type (strings), its hash (32 bytes, or a
+ *       string if it is not a hex SHA-256) and its size (varint)
+ *   <li>{@code request}, if present: its user id (string), its accreditation type (a byte, 0 if
+ *       absent), then its document, if present (flag byte 1, 0 otherwise): name, MIME type and
+ *       content, all strings
+ * </ol>
+ *
+ * A string is its length in UTF-8 bytes plus one (a varint, 0 for null) followed by those bytes.
+ */
+final class CompactStateChangeFormat {
+
+  static final byte MAGIC = 0;
+
+  static final byte SCHEMA_VERSION = 1;
+
+  private static final int HAS_VERSION = 1;
+  private static final int HAS_ACCREDITATION_TYPE = 1 << 1;
+  private static final int HAS_OLD_STATUS = 1 << 2;
+  private static final int HAS_DOCUMENT = 1 << 3;
+  private static final int HAS_REQUEST = 1 << 4;
+  private static final int ACCREDITATION_ID_AS_STRING = 1 << 5;
+  private static final int DOCUMENT_HASH_AS_STRING = 1 << 6;
+
+  private static final int SHA_256_LENGTH = 32;
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  /** The codes of the enums are their positions here, plus one: never reorder them */
+  private static final AccreditationStateChange.Action[] ACTIONS = {
+    AccreditationStateChange.Action.CREATE,
+    AccreditationStateChange.Action.FINALISE,
+    AccreditationStateChange.Action.SCHEDULED_EXPIRE
+  };
+
+  private static final Status[] STATUSES = {
+    Status.PENDING, Status.CONFIRMED, Status.FAILED, Status.EXPIRED
+  };
+
+  private static final AccreditationType[] ACCREDITATION_TYPES = {
+    AccreditationType.INCOME, AccreditationType.NET_WORTH
+  };
+
+  private CompactStateChangeFormat() {}
+
+  /** @return whether the message is in this encoding rather than in JSON */
+  static boolean matches(byte[] data) {
+    return data.length > 0 && data[0] == MAGIC;
+  }
+
+  static byte[] encode(AccreditationStateChange stateChange) {
+    UUID accreditationId = asUuid(stateChange.accreditationId());
+    AccreditationStateChange.DocumentDetails document = stateChange.document();
+    byte[] hash = document == null ? null : asSha256(document.hash());
+
+    int flags = 0;
+    flags |= stateChange.version() != null ? HAS_VERSION : 0;
+    flags |= stateChange.accreditationType() != null ? HAS_ACCREDITATION_TYPE : 0;
+    flags |= stateChange.old_status() != null ? HAS_OLD_STATUS : 0;
+    flags |= document != null ? HAS_DOCUMENT : 0;
+    flags |= stateChange.request() != null ? HAS_REQUEST : 0;
+    flags |= accreditationId == null ? ACCREDITATION_ID_AS_STRING : 0;
+    flags |= document != null && hash == null ? DOCUMENT_HASH_AS_STRING : 0;
+
+    Writer out = new Writer(estimateSize(stateChange));
+    out.writeByte(MAGIC);
+    out.writeByte(SCHEMA_VERSION);
+    out.writeVarint(flags);
+    if (stateChange.version() != null) {
+      out.writeVarint(stateChange.version());
+    }
+
+    OffsetDateTime timestamp = stateChange.timestamp();
+    out.writeVarlong(zigzag(timestamp.toEpochSecond()));
+    out.writeVarint(timestamp.getNano());
+    out.writeVarlong(zigzag(timestamp.getOffset().getTotalSeconds()));
+
+    out.writeByte(code(ACTIONS, stateChange.action()));
+    out.writeString(stateChange.userId());
+    if (accreditationId != null) {
+      out.writeLong(accreditationId.getMostSignificantBits());
+      out.writeLong(accreditationId.getLeastSignificantBits());
+    } else {
+      out.writeString(stateChange.accreditationId());
+    }
+    if (stateChange.accreditationType() != null) {
+      out.writeByte(code(ACCREDITATION_TYPES, stateChange.accreditationType()));
+    }
+    out.writeByte(code(STATUSES, stateChange.status()));
+    if (stateChange.old_status() != null) {
+      out.writeByte(code(STATUSES, stateChange.old_status()));
+    }
+
+    if (document != null) {
+      out.writeString(document.name());
+      out.writeString(document.mimeType());
+      if (hash != null) {
+        out.writeBytes(hash);
+      } else {
+        out.writeString(document.hash());
+      }
+      out.writeVarlong(document.size());
+    }
+
+    CreateAccreditationRequest request = stateChange.request();
+    if (request != null) {
+      out.writeString(request.getUserId());
+      out.writeByte(
+          request.getAccreditationType() == null
+              ? 0
+              : code(ACCREDITATION_TYPES, request.getAccreditationType()));
+      Document requestDocument = request.getDocument();
+      out.writeByte(requestDocument == null ? 0 : 1);
+      if (requestDocument != null) {
+        out.writeString(requestDocument.getName());
+        out.writeString(requestDocument.getMimeType());
+        out.writeString(requestDocument.getContent());
+      }
+    }
+    return out.toByteArray();
+  }
+
+  static AccreditationStateChange decode(byte[] data) {
+    try {
+      ByteBuffer in = ByteBuffer.wrap(data);
+      if (in.get() != MAGIC) {
+        throw new SerializationException("Not a compact accreditation state change");
+      }
+      byte schemaVersion = in.get();
+      if (schemaVersion != SCHEMA_VERSION) {
+        throw new SerializationException(
+            "Unsupported schema version of accreditation state change: " + schemaVersion);
+      }
+      return decodeVersion1(in);
+    } catch (BufferUnderflowException e) {
+      throw new SerializationException("Truncated accreditation state change", e);
+    } catch (SerializationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // e.g. a DateTimeException of a timestamp or offset out of range: the message is corrupt
+      throw new SerializationException("Malformed accreditation state change", e);
+    }
+  }
+
+  private static AccreditationStateChange decodeVersion1(ByteBuffer in) {
+    int flags = readVarint(in);
+    Integer version = (flags & HAS_VERSION) != 0 ? readVarint(in) : null;
+
+    long epochSecond = unzigzag(readVarlong(in));
+    int nano = readVarint(in);
+    ZoneOffset offset = ZoneOffset.ofTotalSeconds((int) unzigzag(readVarlong(in)));
+    OffsetDateTime timestamp =
+        OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), offset);
+
+    AccreditationStateChange.Action action = fromCode(ACTIONS, in.get());
+    String userId = readString(in);
+    String accreditationId =
+        (flags & ACCREDITATION_ID_AS_STRING) != 0
+            ? readString(in)
+            : new UUID(in.getLong(), in.getLong()).toString();
+    AccreditationType accreditationType =
+        (flags & HAS_ACCREDITATION_TYPE) != 0 ? fromCode(ACCREDITATION_TYPES, in.get()) : null;
+    Status status = fromCode(STATUSES, in.get());
+    Status oldStatus = (flags & HAS_OLD_STATUS) != 0 ? fromCode(STATUSES, in.get()) : null;
+
+    AccreditationStateChange.DocumentDetails document = null;
+    if ((flags & HAS_DOCUMENT) != 0) {
+      String name = readString(in);
+      String mimeType = readString(in);
+      String hash;
+      if ((flags & DOCUMENT_HASH_AS_STRING) != 0) {
+        hash = readString(in);
+      } else {
+        byte[] raw = new byte[SHA_256_LENGTH];
+        in.get(raw);
+        hash = HEX.formatHex(raw);
+      }
+      document = new AccreditationStateChange.DocumentDetails(name, mimeType, hash, readVarlong(in));
+    }
+
+    CreateAccreditationRequest request = null;
+    if ((flags & HAS_REQUEST) != 0) {
+      request = new CreateAccreditationRequest().userId(readString(in));
+      byte typeCode = in.get();
+      if (typeCode != 0) {
+        request.setAccreditationType(fromCode(ACCREDITATION_TYPES, typeCode));
+      }
+      if (in.get() != 0) {
+        request.setDocument(
+            new Document().name(readString(in)).mimeType(readString(in)).content(readString(in)));
+      }
+    }
+
+    return new AccreditationStateChange(
+        version,
+        timestamp,
+        action,
+        userId,
+        accreditationId,
+        accreditationType,
+        status,
+        oldStatus,
+        document,
+        request);
+  }
+
+  /** @return the UUID, or null if the id is not one in its canonical form */
+  private static UUID asUuid(String id) {
+    if (id == null || id.length() != 36) {
+      return null;
+    }
+    try {
+      UUID uuid = UUID.fromString(id);
+      return uuid.toString().equals(id) ? uuid : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** @return the bytes of the hash, or null if it is not a lower case hex SHA-256 */
+  private static byte[] asSha256(String hash) {
+    if (hash == null || hash.length() != SHA_256_LENGTH * 2) {
+      return null;
+    }
+    try {
+      byte[] raw = HEX.parseHex(hash);
+      return HEX.formatHex(raw).equals(hash) ? raw : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static <T> int code(T[] values, T value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == value) {
+        return i + 1;
+      }
+    }
+    throw new SerializationException("No code for " + value);
+  }
+
+  private static <T> T fromCode(T[] values, byte code) {
+    if (code < 1 || code > values.length) {
+      throw new SerializationException(
+          "Unknown code " + code + " of " + values.getClass().getComponentType().getSimpleName());
+    }
+    return values[code - 1];
+  }
+
+  /** The size of the message, unless it carries a document (in the request) */
+  private static int estimateSize(AccreditationStateChange stateChange) {
+    int size = 256;
+    if (stateChange.request() != null && stateChange.request().getDocument() != null) {
+      String content = stateChange.request().getDocument().getContent();
+      size += content == null ? 0 : content.length();
+    }
+    return size;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static int readVarint(ByteBuffer in) {
+    long value = readVarlong(in);
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new SerializationException("Integer out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  private static long readVarlong(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new SerializationException("Malformed variable length integer");
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = readVarint(in) - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+
+  /** A growing buffer, as ByteArrayOutputStream without the synchronization */
+  private static final class Writer {
+
+    private byte[] buffer;
+
+    private int size;
+
+    Writer(int capacity) {
+      buffer = new byte[capacity];
+    }
+
+    private void ensure(int more) {
+      if (size + more > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + more));
+      }
+    }
+
+    void writeByte(int value) {
+      ensure(1);
+      buffer[size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] value) {
+      ensure(value.length);
+      System.arraycopy(value, 0, buffer, size, value.length);
+      size += value.length;
+    }
+
+    void writeLong(long value) {
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeVarint(int value) {
+      writeVarlong(value & 0xFFFFFFFFL);
+    }
+
+    void writeVarlong(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[size++] = (byte) value;
+    }
+
+    void writeString(String value) {
+      if (value == null) {
+        writeVarint(0);
+        return;
+      }
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(utf8.length + 1);
+      writeBytes(utf8);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.yieldstreet.accreditation.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the outbox messages to the audit topic with an idempotent producer, so that retries
+ * neither duplicate nor reorder the messages of a batch.
+ *
+ * <p>The time taken by each batch, until the broker acknowledged all of it, is recorded as {@code
+ * accreditation.audit.send}, and the messages which could not be sent as {@code
+ * accreditation.audit.send.failures}. The metrics of the producer itself are published as {@code
+ * kafka.producer.*}.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.audit.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaOutboxPublisher implements OutboxPublisher {
+
+  private static final String DEFAULT_BROKER_PORT = "9092";
+
+  private final DefaultKafkaProducerFactory<byte[], byte[]> producerFactory;
+
+  private final KafkaTemplate<byte[], byte[]> kafkaTemplate;
+
+  private final String topic;
+
+  private final long deliveryTimeoutMs;
+
+  private final Timer sent;
+
+  private final Timer failed;
+
+  private final Counter failedMessages;
+
+  public KafkaOutboxPublisher(
+      MeterRegistry meterRegistry,
+      @Value("${spring.cloud.stream.kafka.binder.brokers:localhost}") String brokers,
+      @Value("${yieldstreet.audit.topic:accreditations}") String topic,
+      @Value("${yieldstreet.audit.outbox.linger_ms:5}") int lingerMs,
+      @Value("${yieldstreet.audit.outbox.send_timeout_ms:30000}") int sendTimeoutMs) {
+    // the producer gives up on a message after this long, retries included
+    int deliveryTimeoutMs = lingerMs + sendTimeoutMs;
+    Map<String, Object> config = new HashMap<>();
+    config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, withDefaultPort(brokers));
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.ACKS_CONFIG, "all");
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+    config.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+    config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+    config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.min(sendTimeoutMs, 30000));
+    config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+    this.producerFactory = new DefaultKafkaProducerFactory<>(config);
+    this.producerFactory.setBeanName("auditOutboxProducerFactory");
+    this.producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+    this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    this.topic = topic;
+    this.deliveryTimeoutMs = deliveryTimeoutMs;
+    this.sent = sendTimer(meterRegistry, "success");
+    this.failed = sendTimer(meterRegistry, "failure");
+    this.failedMessages = KafkaProducer.sendFailures(meterRegistry, "outbox");
+  }
+
+  private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("accreditation.audit.send")
+        .description("Time taken to send a batch of audit messages to Kafka")
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void publish(List<OutboxMessage> messages) {
+    long start = System.nanoTime();
+    List<ListenableFuture<SendResult<byte[], byte[]>>> sends = new ArrayList<>(messages.size());
+    for (OutboxMessage message : messages) {
+      sends.add(
+          kafkaTemplate.send(
+              topic, message.key().getBytes(StandardCharsets.UTF_8), message.payload()));
+    }
+    // no point lingering, the whole batch has been handed over
+    kafkaTemplate.flush();
+
+    try {
+      for (ListenableFuture<SendResult<byte[], byte[]>> send : sends) {
+        send.get(deliveryTimeoutMs, TimeUnit.MILLISECONDS);
+      }
+      sent.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      recordFailure(messages, start);
+      Thread.currentThread().interrupt();
+      throw new KafkaException("Interrupted while waiting for Kafka to acknowledge", e);
+    } catch (ExecutionException | TimeoutException e) {
+      recordFailure(messages, start);
+      throw new KafkaException("Unable to send " + messages.size() + " messages to " + topic, e);
+    }
+  }
+
+  private void recordFailure(List<OutboxMessage> messages, long start) {
+    failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    failedMessages.increment(messages.size());
+  }
+
+  @PreDestroy
+  public void close() {
+    producerFactory.destroy();
+  }
+
+  /** The binder accepts brokers without a port, the producer does not. */
+  public static String withDefaultPort(String brokers) {
+    return Arrays.stream(brokers.split(","))
+        .map(String::trim)
+        .map(broker -> broker.contains(":") ? broker : broker + ":" + DEFAULT_BROKER_PORT)
+        .collect(Collectors.joining(","));
+  }
+}
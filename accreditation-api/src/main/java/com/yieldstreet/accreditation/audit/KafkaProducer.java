@@ -1,9 +1,13 @@
 package com.yieldstreet.accreditation.audit;
 
-import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.accreditation.persistence.Accreditation;
 import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
@@ -13,70 +17,144 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
 import java.nio.charset.StandardCharsets;
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 @Service
 public class KafkaProducer {
   private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
 
-  /** The Spring Reactor Sink used for Kafka */
+  /** The Spring Reactor Sink used for Kafka when the outbox is disabled */
   private final Sinks.Many<Message<AccreditationStateChange>> many;
 
-  public KafkaProducer(Sinks.Many<Message<AccreditationStateChange>> many) {
+  private final AccreditationStateChangeFactory stateChangeFactory;
+
+  /** Where the messages are written, to be sent by the {@link OutboxRelay} */
+  private final OutboxRepository outboxRepository;
+
+  private final boolean outboxEnabled;
+
+  /** Also hands the messages to the listeners within this instance, such as the caches */
+  private final ApplicationEventPublisher eventPublisher;
+
+  /** The messages which could not be handed to the sink */
+  private final Counter failedMessages;
+
+  public KafkaProducer(
+      Sinks.Many<Message<AccreditationStateChange>> many,
+      AccreditationStateChangeFactory stateChangeFactory,
+      OutboxRepository outboxRepository,
+      @Value("${yieldstreet.audit.outbox.enabled:true}") boolean outboxEnabled,
+      ApplicationEventPublisher eventPublisher,
+      MeterRegistry meterRegistry) {
     this.many = many;
+    this.stateChangeFactory = stateChangeFactory;
+    this.outboxRepository = outboxRepository;
+    this.outboxEnabled = outboxEnabled;
+    this.eventPublisher = eventPublisher;
+    this.failedMessages = sendFailures(meterRegistry, "sink");
+  }
+
+  /** The audit messages which could not be sent, by the way they are sent */
+  static Counter sendFailures(MeterRegistry meterRegistry, String path) {
+    return Counter.builder("accreditation.audit.send.failures")
+        .description("Audit messages which could not be sent to Kafka")
+        .tag("path", path)
+        .register(meterRegistry);
+  }
+
+  public void notifyCreate(Accreditation accreditation) {
+    notify(AccreditationStateChange.Action.CREATE, accreditation, Status.PENDING, null);
   }
 
-  public void notifyCreate(
-      CreateAccreditationRequest request, UUID accreditationId, Status status) {
-    notify(AccreditationStateChange.Action.CREATE, request, accreditationId, status, null);
+  public void notifyFinalise(Accreditation accreditation, Status status, Status oldStatus) {
+    notify(AccreditationStateChange.Action.FINALISE, accreditation, status, oldStatus);
   }
 
-  public void notifyFinalise(
-      CreateAccreditationRequest request, UUID accreditationId, Status status, Status oldStatus) {
-    notify(AccreditationStateChange.Action.FINALISE, request, accreditationId, status, oldStatus);
+  /** Notifies the creation of a whole batch of accreditations at once. */
+  public void notifyCreate(List<Accreditation> accreditations) {
+    List<AccreditationStateChange> stateChanges = new ArrayList<>(accreditations.size());
+    for (Accreditation accreditation : accreditations) {
+      stateChanges.add(
+          stateChangeFactory.create(
+              AccreditationStateChange.Action.CREATE, accreditation, Status.PENDING, null));
+    }
+    notifyBatch(stateChanges);
   }
 
-  public void notifyScheduledExpire(
-      CreateAccreditationRequest request, UUID accreditationId, Status oldStatus) {
-    notify(
-        AccreditationStateChange.Action.SCHEDULED_EXPIRE,
-        request,
-        accreditationId,
-        Status.EXPIRED,
-        oldStatus);
+  /** Notifies the finalisation of a whole batch of accreditations at once. */
+  public void notifyFinalise(List<Finalisation> finalisations) {
+    List<AccreditationStateChange> stateChanges = new ArrayList<>(finalisations.size());
+    for (Finalisation finalisation : finalisations) {
+      stateChanges.add(
+          stateChangeFactory.create(
+              AccreditationStateChange.Action.FINALISE,
+              finalisation.accreditation(),
+              finalisation.status(),
+              finalisation.oldStatus()));
+    }
+    notifyBatch(stateChanges);
+  }
+
+  /** Notifies the expiry of a whole chunk of accreditations at once. */
+  public void notifyScheduledExpire(List<Accreditation> accreditations, Status oldStatus) {
+    List<AccreditationStateChange> stateChanges = new ArrayList<>(accreditations.size());
+    for (Accreditation accreditation : accreditations) {
+      stateChanges.add(
+          stateChangeFactory.create(
+              AccreditationStateChange.Action.SCHEDULED_EXPIRE,
+              accreditation,
+              Status.EXPIRED,
+              oldStatus));
+    }
+    notifyBatch(stateChanges);
+  }
+
+  private void notifyBatch(List<AccreditationStateChange> stateChanges) {
+    if (outboxEnabled) {
+      outboxRepository.appendAll(stateChanges);
+    } else {
+      stateChanges.forEach(this::emit);
+    }
+    stateChanges.forEach(eventPublisher::publishEvent);
   }
 
   private void notify(
       AccreditationStateChange.Action action,
-      CreateAccreditationRequest request,
-      UUID accreditationId,
+      Accreditation accreditation,
       Status status,
       Status oldStatus) {
-    String userId = request.getUserId();
-    OffsetDateTime timestamp = OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC);
-
     AccreditationStateChange stateChange =
-        new AccreditationStateChange(
-            timestamp,
-            action,
-            userId,
-            accreditationId.toString(),
-            status,
-            oldStatus,
-            request);
+        stateChangeFactory.create(action, accreditation, status, oldStatus);
+
+    if (outboxEnabled) {
+      // sent once the transaction commits, see OutboxRelay
+      outboxRepository.append(stateChange);
+    } else {
+      emit(stateChange);
+    }
+    eventPublisher.publishEvent(stateChange);
+  }
 
+  private void emit(AccreditationStateChange stateChange) {
     Message<AccreditationStateChange> message =
         MessageBuilder.withPayload(stateChange)
-            .setHeader(KafkaHeaders.MESSAGE_KEY, userId.getBytes(StandardCharsets.UTF_8))
+            .setHeader(
+                KafkaHeaders.MESSAGE_KEY, stateChange.userId().getBytes(StandardCharsets.UTF_8))
             .build();
 
     // try to send the message, if it fails we want an exception to stop the database transaction
-    many.tryEmitNext(message).orThrow();
+    Sinks.EmitResult result = many.tryEmitNext(message);
+    if (result.isFailure()) {
+      failedMessages.increment();
+    }
+    result.orThrow();
   }
 
+  /** An accreditation moved from {@code oldStatus} to {@code status} by an admin. */
+  public record Finalisation(Accreditation accreditation, Status status, Status oldStatus) {}
+
   @Bean
   public Supplier<Flux<Message<AccreditationStateChange>>> producer(
       Sinks.Many<Message<AccreditationStateChange>> many) {
@@ -88,6 +166,10 @@ public class KafkaProducer {
                         "Sending message to Kafka for user {} accreditation ID {}",
                         m.getPayload().userId(),
                         m.getPayload().accreditationId()))
-            .doOnError(t -> logger.error("Error encountered while sending message to Kafka", t));
+            .doOnError(
+                t -> {
+                  failedMessages.increment();
+                  logger.error("Error encountered while sending message to Kafka", t);
+                });
   }
 }
@@ -0,0 +1,10 @@
+package com.yieldstreet.accreditation.audit;
+
+/**
+ * A serialized {@link AccreditationStateChange} waiting in the outbox to be sent to Kafka.
+ *
+ * @param id the position of the message in the outbox, messages are relayed in this order
+ * @param key the Kafka message key
+ * @param payload the serialized message
+ */
+public record OutboxMessage(long id, String key, byte[] payload) {}
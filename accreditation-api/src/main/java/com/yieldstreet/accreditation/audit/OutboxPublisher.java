@@ -0,0 +1,16 @@
+package com.yieldstreet.accreditation.audit;
+
+import java.util.List;
+
+/** Sends the messages taken from the outbox to the broker. */
+public interface OutboxPublisher {
+
+  /**
+   * Sends the given messages, in order, and waits for the broker to acknowledge all of them.
+   *
+   * @param messages the messages to send
+   * @throws RuntimeException if any of the messages could not be sent, in which case any of them
+   *     may or may not have been received by the broker
+   */
+  void publish(List<OutboxMessage> messages);
+}
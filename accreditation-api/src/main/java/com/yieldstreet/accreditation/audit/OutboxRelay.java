@@ -0,0 +1,87 @@
+package com.yieldstreet.accreditation.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves the messages from the outbox to Kafka, in batches.
+ *
+ * <p>Each batch is locked, published, and deleted once the broker acknowledged all of it, in one
+ * transaction. If publishing fails the transaction is rolled back and the batch is sent again on
+ * the next poll, so delivery is at least once: consumers may see a message twice, but never lose
+ * one, even if the service stops in between.
+ *
+ * <p>Only one instance relays at a time: each batch is relayed under an advisory lock, and the
+ * instances which cannot take it skip the poll. Batches are therefore published one after the
+ * other, oldest first, and a batch which is rolled back is sent again before any later message, so
+ * the messages of a user reach Kafka in order, as the replay of the topic expects.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.audit.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+  private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxRepository outboxRepository;
+
+  private final OutboxPublisher publisher;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  public OutboxRelay(
+      OutboxRepository outboxRepository,
+      OutboxPublisher publisher,
+      TransactionTemplate transactionTemplate,
+      @Value("${yieldstreet.audit.outbox.batch_size:500}") int batchSize) {
+    this.outboxRepository = outboxRepository;
+    this.publisher = publisher;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Relays batches until the outbox is drained.
+   *
+   * @return the number of messages relayed
+   */
+  @Scheduled(fixedDelayString = "${yieldstreet.audit.outbox.poll_interval_ms:200}")
+  public long relay() {
+    long total = 0;
+    try {
+      Integer relayed;
+      do {
+        relayed = transactionTemplate.execute(status -> relayBatch());
+        total += relayed;
+      } while (relayed == batchSize);
+    } catch (RuntimeException e) {
+      logger.error("Unable to relay the outbox to Kafka, will retry", e);
+    }
+    if (total > 0) {
+      logger.debug("Relayed {} messages to Kafka", total);
+    }
+    return total;
+  }
+
+  private int relayBatch() {
+    if (!outboxRepository.tryLockRelay()) {
+      // another instance is relaying
+      return 0;
+    }
+    List<OutboxMessage> batch = outboxRepository.lockBatch(batchSize);
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    publisher.publish(batch);
+    outboxRepository.delete(batch);
+    return batch.size();
+  }
+}
@@ -0,0 +1,93 @@
+package com.yieldstreet.accreditation.audit;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The {@code accreditation_outbox} table, where the audit messages are written in the same
+ * transaction as the change they describe, until the {@link OutboxRelay} sends them to Kafka.
+ */
+@Repository
+public class OutboxRepository {
+
+  private static final String INSERT =
+      "INSERT INTO accreditation_outbox (message_key, payload) VALUES (?, ?)";
+
+  /** The key of the advisory lock held by the instance relaying the outbox */
+  private static final long RELAY_LOCK_KEY = 0x6f7574626f78L;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** The same encoding as the messages sent straight to Kafka, see {@code yieldstreet.audit.serializer} */
+  private final Serializer<AccreditationStateChange> serializer;
+
+  private final String topic;
+
+  public OutboxRepository(
+      JdbcTemplate jdbcTemplate,
+      @Value("${yieldstreet.audit.topic:accreditations}") String topic,
+      @Value("${yieldstreet.audit.serializer:com.yieldstreet.accreditation.audit.AccreditationStateChangeSerializer}")
+          Class<? extends Serializer<AccreditationStateChange>> serializerType) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.topic = topic;
+    this.serializer = BeanUtils.instantiateClass(serializerType);
+  }
+
+  /** Adds a message to the outbox, as part of the current transaction. */
+  public void append(AccreditationStateChange stateChange) {
+    jdbcTemplate.update(INSERT, stateChange.userId(), serializer.serialize(topic, stateChange));
+  }
+
+  /** Adds several messages to the outbox in one round trip, as part of the current transaction. */
+  public void appendAll(List<AccreditationStateChange> stateChanges) {
+    jdbcTemplate.batchUpdate(
+        INSERT,
+        stateChanges,
+        stateChanges.size(),
+        (ps, stateChange) -> {
+          ps.setString(1, stateChange.userId());
+          ps.setBytes(2, serializer.serialize(topic, stateChange));
+        });
+  }
+
+  /**
+   * Takes the relay lock until the end of the current transaction, unless another instance holds
+   * it. Only the holder relays, so that the messages reach Kafka in the order they were written.
+   *
+   * @return whether the lock was taken
+   */
+  public boolean tryLockRelay() {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject(
+            "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY));
+  }
+
+  /**
+   * Locks the oldest messages of the outbox until the end of the current transaction, which holds
+   * the relay lock.
+   *
+   * @param limit the maximum number of messages returned
+   * @return the messages, oldest first
+   */
+  public List<OutboxMessage> lockBatch(int limit) {
+    return jdbcTemplate.query(
+        "SELECT id, message_key, payload FROM accreditation_outbox "
+            + "ORDER BY id LIMIT ? FOR UPDATE",
+        (rs, rowNum) ->
+            new OutboxMessage(rs.getLong("id"), rs.getString("message_key"), rs.getBytes("payload")),
+        limit);
+  }
+
+  /** Removes the given messages, once they have been sent. */
+  public void delete(List<OutboxMessage> messages) {
+    Long[] ids = messages.stream().map(OutboxMessage::id).toArray(Long[]::new);
+    jdbcTemplate.update(
+        "DELETE FROM accreditation_outbox WHERE id = ANY (?)",
+        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+  }
+}
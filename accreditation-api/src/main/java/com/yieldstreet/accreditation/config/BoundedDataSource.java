@@ -0,0 +1,100 @@
+package com.yieldstreet.accreditation.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most a given number of connections be borrowed from the target data source at once,
+ * making the other callers wait, in order, on a fair semaphore.
+ *
+ * <p>With the permits matching the size of the pool, the pool is never asked for more connections
+ * than it has, however many (virtual) threads want one: they queue on the semaphore, which parks
+ * them cheaply, instead of contending in the pool for each connection handed back. A caller which
+ * gets no permit within the timeout fails like the pool itself would, with a {@link
+ * SQLTransientConnectionException}.
+ */
+class BoundedDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+
+  private final Duration timeout;
+
+  BoundedDataSource(DataSource target, int maxConnections, Duration timeout) {
+    super(target);
+    this.permits = new Semaphore(maxConnections, true);
+    this.timeout = timeout;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return releasedOnClose(super.getConnection());
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return releasedOnClose(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  /** @return the number of callers waiting for a connection */
+  int getWaiting() {
+    return permits.getQueueLength();
+  }
+
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException(
+            "Connection is not available, request timed out after " + timeout.toMillis() + "ms.");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted while waiting for a connection", ex);
+    }
+  }
+
+  /** Wraps the connection so that closing it, once, hands its permit back. */
+  private Connection releasedOnClose(Connection connection) {
+    AtomicBoolean closed = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                try {
+                  connection.close();
+                } finally {
+                  permits.release();
+                }
+                return null;
+              }
+              try {
+                return method.invoke(connection, args);
+              } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+              }
+            });
+  }
+}
@@ -1,16 +1,29 @@
 package com.yieldstreet.accreditation.config;
 
 import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
+import reactor.core.Scannable;
 import reactor.core.publisher.Sinks;
 
 @Configuration
 public class KafkaConfig {
 
   @Bean
-  public Sinks.Many<Message<AccreditationStateChange>> many() {
-    return Sinks.many().unicast().onBackpressureBuffer();
+  public Sinks.Many<Message<AccreditationStateChange>> many(MeterRegistry meterRegistry) {
+    Sinks.Many<Message<AccreditationStateChange>> many =
+        Sinks.many().unicast().onBackpressureBuffer();
+    Gauge.builder("accreditation.audit.sink.buffered", many, KafkaConfig::buffered)
+        .description("Messages emitted to the Kafka sink but not yet taken by the binder")
+        .register(meterRegistry);
+    return many;
+  }
+
+  private static double buffered(Sinks.Many<?> many) {
+    Integer buffered = Scannable.from(many).scan(Scannable.Attr.BUFFERED);
+    return buffered == null ? 0 : buffered;
   }
 }
@@ -0,0 +1,71 @@
+package com.yieldstreet.accreditation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends the read-only transactions to a replica, when {@code yieldstreet.datasource.replica.enabled}
+ * is set, as decided by {@link ReplicaRouting}.
+ *
+ * <p>The primary and the replica get pools of their own: the primary is configured by {@code
+ * spring.datasource} as before, and the replica by {@code yieldstreet.datasource.replica}, with
+ * the same credentials. The service uses a {@link ReplicaRoutingDataSource} over both, which takes
+ * the connection of a transaction from either once the transaction is set up. The migrations are
+ * run on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "yieldstreet.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+
+  @Bean
+  @FlywayDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public HikariDataSource replicaDataSource(
+      DataSourceProperties properties,
+      @Value("${yieldstreet.datasource.replica.url}") String url,
+      @Value("${yieldstreet.datasource.replica.pool_size:10}") int poolSize) {
+    HikariDataSource replica =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+    replica.setPoolName("replica");
+    replica.setMaximumPoolSize(poolSize);
+    replica.setReadOnly(true);
+    logger.info("Sending the read-only transactions to the replica at {}", url);
+    return replica;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      ReplicaRouting routing) {
+    return new LazyConnectionDataSourceProxy(
+        new ReplicaRoutingDataSource(primary, replica, routing));
+  }
+
+  @Bean
+  ReplicaLagMonitor replicaLagMonitor(
+      @Qualifier("replicaDataSource") DataSource replica, ReplicaRouting routing) {
+    return new ReplicaLagMonitor(replica, routing);
+  }
+}
@@ -0,0 +1,57 @@
+package com.yieldstreet.accreditation.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Measures how far the replica is behind the primary: the age of the last transaction it replayed,
+ * or nothing if it has replayed all it received. A database which is not a replica is never
+ * behind. The lag is unknown, and the reads go to the primary, while the replica cannot be reached.
+ */
+class ReplicaLagMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  private static final String LAG_QUERY =
+      """
+      SELECT CASE
+               WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn()
+                 THEN 0
+               ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+             END""";
+
+  private final JdbcTemplate replica;
+
+  private final ReplicaRouting routing;
+
+  /** Whether the last measure failed, so that a failure is only logged once in a row. */
+  private boolean failing;
+
+  ReplicaLagMonitor(DataSource replica, ReplicaRouting routing) {
+    this.replica = new JdbcTemplate(replica);
+    this.replica.setQueryTimeout(1);
+    this.routing = routing;
+  }
+
+  @Scheduled(fixedDelayString = "${yieldstreet.datasource.replica.lag_check_interval_ms:1000}")
+  public void measure() {
+    double lag;
+    try {
+      Double seconds = replica.queryForObject(LAG_QUERY, Double.class);
+      // nothing replayed yet
+      lag = seconds == null ? Double.NaN : Math.max(seconds, 0);
+      failing = false;
+    } catch (RuntimeException e) {
+      if (!failing) {
+        logger.warn("Unable to measure the replica lag, reading from the primary", e);
+      }
+      failing = true;
+      lag = Double.NaN;
+    }
+    routing.lagMeasured(lag);
+  }
+}
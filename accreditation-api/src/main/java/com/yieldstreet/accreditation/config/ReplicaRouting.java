@@ -0,0 +1,151 @@
+package com.yieldstreet.accreditation.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether the connection of the current transaction comes from the primary or from the
+ * replica, when a replica is configured ({@code yieldstreet.datasource.replica.enabled}, see {@link
+ * ReplicaDataSourceConfig}).
+ *
+ * <p>Read-only transactions go to the replica, unless its lag behind the primary is above {@code
+ * max_lag} or unknown, or they read for a user whose accreditations were changed (created,
+ * finalised or expired) through this instance less than {@code read_your_writes} ago (see {@link
+ * #read}), so that the user sees the change straight away. Everything else goes to the primary.
+ *
+ * <p>Its metrics are bound once the registry is set up, as the registry itself needs the data
+ * source which needs this.
+ */
+@Component
+public class ReplicaRouting implements MeterBinder {
+
+  public enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaRouting.class);
+
+  private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+  private final boolean enabled;
+
+  private final double maxLagSeconds;
+
+  /** The users whose accreditations recently changed, or null without read-your-writes. */
+  private final Cache<String, Boolean> recentWriters;
+
+  private final LongAdder primaryReads = new LongAdder();
+
+  private final LongAdder replicaReads = new LongAdder();
+
+  /** The last lag measured, in seconds, or NaN if it could not be. */
+  private volatile double lagSeconds = Double.NaN;
+
+  public ReplicaRouting(
+      @Value("${yieldstreet.datasource.replica.enabled:false}") boolean enabled,
+      @Value("${yieldstreet.datasource.replica.max_lag:5s}") Duration maxLag,
+      @Value("${yieldstreet.datasource.replica.read_your_writes:10s}") Duration readYourWrites) {
+    this.enabled = enabled;
+    this.maxLagSeconds = maxLag.toNanos() / 1e9;
+    this.recentWriters =
+        enabled && !readYourWrites.isZero()
+            ? Caffeine.newBuilder().expireAfterWrite(readYourWrites).build()
+            : null;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry meterRegistry) {
+    bindReads(meterRegistry, Target.PRIMARY, primaryReads);
+    bindReads(meterRegistry, Target.REPLICA, replicaReads);
+    if (enabled) {
+      Gauge.builder("accreditation.db.replica.lag", this, ReplicaRouting::getLagSeconds)
+          .baseUnit("seconds")
+          .description("How far the replica is behind the primary (NaN when unknown)")
+          .register(meterRegistry);
+    }
+  }
+
+  private static void bindReads(MeterRegistry meterRegistry, Target target, LongAdder reads) {
+    FunctionCounter.builder("accreditation.db.reads", reads, LongAdder::sum)
+        .tag("target", target.name().toLowerCase())
+        .description("Connections of read-only transactions, by the database they were taken from")
+        .register(meterRegistry);
+  }
+
+  /** @return where the connection of the current transaction should come from */
+  public Target target() {
+    if (!enabled || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return Target.PRIMARY;
+    }
+    if (primaryRequired.get() == null && isReplicaUsable()) {
+      replicaReads.increment();
+      return Target.REPLICA;
+    }
+    primaryReads.increment();
+    return Target.PRIMARY;
+  }
+
+  public boolean isReplicaUsable() {
+    // false when NaN
+    return lagSeconds <= maxLagSeconds;
+  }
+
+  public double getLagSeconds() {
+    return lagSeconds;
+  }
+
+  /** Records the lag of the replica, or NaN if it could not be measured. */
+  public void lagMeasured(double seconds) {
+    boolean wasUsable = isReplicaUsable();
+    lagSeconds = seconds;
+    if (wasUsable && !isReplicaUsable()) {
+      logger.warn(
+          "The replica lag ({}s) is above {}s, reading from the primary", seconds, maxLagSeconds);
+    } else if (!wasUsable && isReplicaUsable()) {
+      logger.info("The replica lag ({}s) is back under {}s, reading from it", seconds, maxLagSeconds);
+    }
+  }
+
+  /**
+   * Runs a read for a user, on the primary if the accreditations of the user recently changed
+   * through this instance. The transaction must be started by the read, as its connection is taken when
+   * it first runs a statement.
+   */
+  public <T> T read(String userId, Supplier<T> read) {
+    if (recentWriters == null
+        || primaryRequired.get() != null
+        || recentWriters.getIfPresent(userId) == null) {
+      return read.get();
+    }
+    primaryRequired.set(Boolean.TRUE);
+    try {
+      return read.get();
+    } finally {
+      primaryRequired.remove();
+    }
+  }
+
+  /** Remembers the user of a change made through this instance, once it is committed. */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStateChange(AccreditationStateChange stateChange) {
+    if (recentWriters != null) {
+      recentWriters.put(stateChange.userId(), Boolean.TRUE);
+    }
+  }
+}
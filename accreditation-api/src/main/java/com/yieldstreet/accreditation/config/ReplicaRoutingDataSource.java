@@ -0,0 +1,31 @@
+package com.yieldstreet.accreditation.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out the connections of the primary or of the replica, as decided by {@link
+ * ReplicaRouting}. The decision depends on the transaction, so the connection must be taken once
+ * the transaction is set up, which a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} in front of it ensures.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private final ReplicaRouting routing;
+
+  ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting routing) {
+    this.routing = routing;
+    setTargetDataSources(
+        Map.of(ReplicaRouting.Target.PRIMARY, primary, ReplicaRouting.Target.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return routing.target();
+  }
+}
@@ -0,0 +1,40 @@
+package com.yieldstreet.accreditation.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when running on Java 21 or later. The service is still built for Java
+ * 17, so the virtual thread API is only reached through reflection, and only when virtual threads
+ * are enabled.
+ */
+final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  /**
+   * @param prefix the prefix of the names of the threads, followed by a counter
+   * @return a factory of virtual threads
+   * @throws IllegalStateException if virtual threads are not supported by the running JVM
+   */
+  static ThreadFactory factory(String prefix) {
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    } catch (ClassNotFoundException | NoSuchMethodException ex) {
+      throw unsupported(ex);
+    } catch (InvocationTargetException ex) {
+      // a preview feature before Java 21
+      throw unsupported(ex.getCause());
+    } catch (IllegalAccessException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static IllegalStateException unsupported(Throwable cause) {
+    return new IllegalStateException(
+        "Virtual threads need Java 21 or later, running on " + Runtime.version(), cause);
+  }
+}
@@ -0,0 +1,83 @@
+package com.yieldstreet.accreditation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the HTTP requests and the scheduled tasks (the expiry job and the outbox relay) on virtual
+ * threads, when {@code yieldstreet.threads.virtual} is set. This needs Java 21 or later at runtime;
+ * the service fails to start otherwise.
+ *
+ * <p>A thread blocked on JDBC or Kafka then no longer holds a platform thread, so the number of
+ * requests in flight is no longer bounded by the Tomcat thread pool. It is bounded by the
+ * connections Tomcat accepts ({@code server.tomcat.max-connections}) instead, and the database
+ * connection pool becomes the limit: the connections are handed out through a {@link
+ * BoundedDataSource}, with as many permits as the pool has connections, and the same timeout.
+ */
+@Configuration
+@ConditionalOnProperty(name = "yieldstreet.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    ThreadFactory threads = VirtualThreads.factory("http-virtual-");
+    logger.info("Handling the HTTP requests on virtual threads");
+    return protocolHandler -> protocolHandler.setExecutor(task -> threads.newThread(task).start());
+  }
+
+  /** The scheduler of the {@code @Scheduled} tasks, replacing the one configured by Spring Boot. */
+  @Bean(destroyMethod = "shutdownNow")
+  public ScheduledExecutorService virtualThreadScheduledExecutor(
+      @Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+    return Executors.newScheduledThreadPool(poolSize, VirtualThreads.factory("scheduling-virtual-"));
+  }
+
+  @Bean
+  public TaskScheduler taskScheduler(ScheduledExecutorService virtualThreadScheduledExecutor) {
+    return new ConcurrentTaskScheduler(virtualThreadScheduledExecutor);
+  }
+
+  @Bean
+  public static BeanPostProcessor boundedDataSourcePostProcessor(
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource hikari)) {
+          return bean;
+        }
+        BoundedDataSource bounded =
+            new BoundedDataSource(
+                hikari,
+                hikari.getMaximumPoolSize(),
+                Duration.ofMillis(hikari.getConnectionTimeout()));
+        meterRegistry.ifAvailable(
+            registry ->
+                Gauge.builder("accreditation.db.connections.waiting", bounded, BoundedDataSource::getWaiting)
+                    .description("Threads waiting for a database connection")
+                    .register(registry));
+        logger.info("Bounding the connections borrowed to the {} of the pool", hikari.getMaximumPoolSize());
+        return bounded;
+      }
+    };
+  }
+}
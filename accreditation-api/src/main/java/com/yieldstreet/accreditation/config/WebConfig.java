@@ -1,6 +1,8 @@
 package com.yieldstreet.accreditation.config;
 
+import com.yieldstreet.model.AccreditationType;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,4 +13,10 @@ public class WebConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**");
     }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // form fields carry the API value of the enum (BY_INCOME), not its Java name (INCOME)
+        registry.addConverter(String.class, AccreditationType.class, AccreditationType::fromValue);
+    }
 }
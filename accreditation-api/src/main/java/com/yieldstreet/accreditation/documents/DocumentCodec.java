@@ -0,0 +1,101 @@
+package com.yieldstreet.accreditation.documents;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * How the content of a document is encoded by {@link PostgresDocumentStore}, recorded with it
+ * under its {@link #getName() name}. The compressed encodings are the standard frame formats, so
+ * the content can be decoded by the usual tools as well.
+ */
+public enum DocumentCodec {
+  /** As it is, for the content which is already compressed */
+  NONE {
+    @Override
+    public OutputStream encoder(OutputStream out) {
+      return out;
+    }
+
+    @Override
+    public InputStream decoder(InputStream in) {
+      return in;
+    }
+  },
+  /** LZ4 frames: fast to compress and very fast to decompress, for a lower ratio */
+  LZ4 {
+    @Override
+    public OutputStream encoder(OutputStream out) throws IOException {
+      // the default 4 MB blocks are buffered whole, even for a small document
+      return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+    }
+
+    @Override
+    public InputStream decoder(InputStream in) throws IOException {
+      return new LZ4FrameInputStream(in);
+    }
+  },
+  /** Zstandard frames: a higher ratio, still decompressed at hundreds of MB/s */
+  ZSTD {
+    @Override
+    public OutputStream encoder(OutputStream out) throws IOException {
+      return new ZstdOutputStream(out, ZSTD_LEVEL);
+    }
+
+    @Override
+    public InputStream decoder(InputStream in) throws IOException {
+      return new ZstdInputStream(in);
+    }
+  };
+
+  private static final int ZSTD_LEVEL = 3;
+
+  /** @return a stream encoding what is written to it into the given one, closing it when closed */
+  public abstract OutputStream encoder(OutputStream out) throws IOException;
+
+  /** @return a stream decoding what is read from the given one, closing it when closed */
+  public abstract InputStream decoder(InputStream in) throws IOException;
+
+  public byte[] encode(byte[] content) {
+    if (this == NONE) {
+      return content;
+    }
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream(content.length / 2);
+    try (OutputStream out = encoder(encoded)) {
+      out.write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to encode a document as " + this, e);
+    }
+    return encoded.toByteArray();
+  }
+
+  public byte[] decode(byte[] encoded) {
+    if (this == NONE) {
+      return encoded;
+    }
+    try (InputStream in = decoder(new ByteArrayInputStream(encoded))) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to decode a document from " + this, e);
+    }
+  }
+
+  /** @return the name of the codec, as recorded with the content */
+  public String getName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /** @throws IllegalArgumentException if the name is not one of the codecs */
+  public static DocumentCodec fromName(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,142 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Encodes the content of the existing documents of the {@code documents} table with the codec of
+ * their MIME type (see {@link DocumentCodecs}), recording it in their {@code codec}. A document
+ * which does not get smaller is left as it is, with the codec {@code none}.
+ *
+ * <p>As {@link DocumentStoreBackfillMigration} does, it processes the documents in batches, by
+ * hash, each committed on its own, and skips those already encoded when restarted. The documents
+ * hold no MIME type: it is read from the accreditations, which are scanned once up front rather
+ * than for every batch, as they are not indexed by document. Spring Boot hands it over to Flyway,
+ * which runs it between V12 and V14.
+ */
+@Component
+public class DocumentCodecMigration implements JavaMigration {
+
+  private static final Logger logger = LoggerFactory.getLogger(DocumentCodecMigration.class);
+
+  private final DocumentCodecs documentCodecs;
+
+  private final int batchSize;
+
+  public DocumentCodecMigration(
+      DocumentCodecs documentCodecs,
+      @Value("${yieldstreet.documents.codec.migration_batch_size:100}") int batchSize) {
+    this.documentCodecs = documentCodecs;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public MigrationVersion getVersion() {
+    return MigrationVersion.fromVersion("13");
+  }
+
+  @Override
+  public String getDescription() {
+    return "encode documents";
+  }
+
+  @Override
+  public Integer getChecksum() {
+    return null;
+  }
+
+  @Override
+  public boolean canExecuteInTransaction() {
+    // we commit after every batch
+    return false;
+  }
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    Connection connection = context.getConnection();
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TEMPORARY TABLE document_types (hash, mime_type) AS "
+              + "SELECT DISTINCT ON (document_hash) document_hash, document_mime_type "
+              + "FROM accreditations ORDER BY document_hash");
+      statement.execute("ALTER TABLE document_types ADD PRIMARY KEY (hash)");
+      connection.commit();
+
+      Map<DocumentCodec, long[]> sizes = new EnumMap<>(DocumentCodec.class);
+      String lastHash = "";
+      long total = 0;
+      int migrated;
+      do {
+        migrated = 0;
+        try (PreparedStatement select =
+                connection.prepareStatement(
+                    "SELECT d.hash, d.content, t.mime_type FROM documents d "
+                        + "LEFT JOIN document_types t ON t.hash = d.hash "
+                        + "WHERE d.codec IS NULL AND d.hash > ? ORDER BY d.hash LIMIT ?");
+            PreparedStatement update =
+                connection.prepareStatement(
+                    "UPDATE documents SET content = coalesce(?, content), codec = ? "
+                        + "WHERE hash = ?")) {
+          select.setString(1, lastHash);
+          select.setInt(2, batchSize);
+          // the documents of the batch are read a few at a time, as each may be large
+          select.setFetchSize(10);
+          try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+              lastHash = rs.getString("hash");
+              byte[] content = rs.getBytes("content");
+              DocumentCodec codec = documentCodecs.forMimeType(rs.getString("mime_type"));
+              byte[] encoded = codec.encode(content);
+              if (encoded.length >= content.length) {
+                codec = DocumentCodec.NONE;
+                encoded = content;
+              }
+              // the content is only rewritten when encoded
+              update.setBytes(1, codec == DocumentCodec.NONE ? null : encoded);
+              update.setString(2, codec.getName());
+              update.setString(3, lastHash);
+              update.executeUpdate();
+
+              long[] codecSizes = sizes.computeIfAbsent(codec, c -> new long[3]);
+              codecSizes[0]++;
+              codecSizes[1] += content.length;
+              codecSizes[2] += encoded.length;
+              migrated++;
+            }
+          }
+        }
+        connection.commit();
+        total += migrated;
+        logger.info("Encoded {} documents so far", total);
+      } while (migrated == batchSize);
+
+      sizes.forEach(
+          (codec, codecSizes) ->
+              logger.info(
+                  "Encoded {} documents of {} bytes as {} bytes of {}",
+                  codecSizes[0],
+                  codecSizes[1],
+                  codecSizes[2],
+                  codec));
+      statement.execute("DROP TABLE document_types");
+      connection.commit();
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+}
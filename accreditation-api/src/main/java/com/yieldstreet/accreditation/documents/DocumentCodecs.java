@@ -0,0 +1,64 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses the codec of a document from its declared MIME type: the codec of the first rule of
+ * {@code yieldstreet.documents.codec.by_type} whose type includes it ({@code image/*} includes
+ * {@code image/png}), or else {@code yieldstreet.documents.codec.default}. The rules are a comma
+ * separated list of {@code type=codec}, for example {@code application/pdf=none,text/*=lz4}.
+ */
+@Component
+public class DocumentCodecs {
+
+  private record Rule(MimeType type, DocumentCodec codec) {}
+
+  private final List<Rule> rules = new ArrayList<>();
+
+  private final DocumentCodec defaultCodec;
+
+  public DocumentCodecs(
+      @Value("${yieldstreet.documents.codec.by_type:}") String rules,
+      @Value("${yieldstreet.documents.codec.default:zstd}") String defaultCodec) {
+    for (String rule : rules.split(",")) {
+      if (rule.isBlank()) {
+        continue;
+      }
+      String[] typeAndCodec = rule.split("=", 2);
+      if (typeAndCodec.length != 2) {
+        throw new IllegalArgumentException("Not a type=codec rule: " + rule);
+      }
+      this.rules.add(
+          new Rule(
+              MimeTypeUtils.parseMimeType(typeAndCodec[0].trim()),
+              DocumentCodec.fromName(typeAndCodec[1].trim())));
+    }
+    this.defaultCodec = DocumentCodec.fromName(defaultCodec);
+  }
+
+  /** @param mimeType the declared type of the content, or null if unknown */
+  public DocumentCodec forMimeType(String mimeType) {
+    if (mimeType == null) {
+      return defaultCodec;
+    }
+    MimeType type;
+    try {
+      type = MimeTypeUtils.parseMimeType(mimeType);
+    } catch (InvalidMimeTypeException e) {
+      return defaultCodec;
+    }
+    for (Rule rule : rules) {
+      if (rule.type().includes(type)) {
+        return rule.codec();
+      }
+    }
+    return defaultCodec;
+  }
+}
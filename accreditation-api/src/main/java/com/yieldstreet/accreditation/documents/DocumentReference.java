@@ -0,0 +1,27 @@
+package com.yieldstreet.accreditation.documents;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A reference to a document in the {@link DocumentStore}.
+ *
+ * @param hash the hex encoded SHA-256 hash of the content
+ * @param size the size of the content in bytes
+ */
+public record DocumentReference(String hash, long size) {
+
+  public static DocumentReference forContent(byte[] content) {
+    return new DocumentReference(HexFormat.of().formatHex(sha256().digest(content)), content.length);
+  }
+
+  static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.yieldstreet.accreditation.documents;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Stores the raw (decoded) content of accreditation documents, addressed by the SHA-256 hash of
+ * their content. Storing the same content twice is a no-op that returns the same reference.
+ *
+ * <p>The backend is selected with {@code yieldstreet.documents.store}. How the content is encoded
+ * by the backend is its own business: it is always loaded back as it was stored.
+ */
+public interface DocumentStore {
+
+  /**
+   * Stores the given content, unless content with the same hash is already stored.
+   *
+   * @param content the raw bytes of the document
+   * @param mimeType the declared MIME type of the content, which the store may use to choose how
+   *     to encode it, or null if unknown
+   * @return the reference under which the content can be loaded back
+   */
+  DocumentReference store(byte[] content, String mimeType);
+
+  /**
+   * Stores the content read from the given stream, unless content with the same hash is already
+   * stored. The content is never held in memory as a whole, whatever its size.
+   *
+   * @param content the raw bytes of the document, read until the end of the stream
+   * @param mimeType the declared MIME type of the content, or null if unknown
+   * @return the reference under which the content can be loaded back
+   */
+  DocumentReference store(InputStream content, String mimeType);
+
+  /** Stores the given content, of an unknown type, as {@link #store(byte[], String)}. */
+  default DocumentReference store(byte[] content) {
+    return store(content, null);
+  }
+
+  /** Stores the content of the stream, of an unknown type, as {@link #store(InputStream, String)}. */
+  default DocumentReference store(InputStream content) {
+    return store(content, null);
+  }
+
+  /**
+   * Loads the (decoded) content of a document.
+   *
+   * @param hash the hash of the content, as returned by {@link #store(byte[])}
+   * @return a read-only buffer with the content, or empty if no such document exists
+   */
+  Optional<ByteBuffer> load(String hash);
+}
@@ -0,0 +1,143 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Moves the base64 {@code document_content} of the existing accreditations into the configured
+ * {@link DocumentStore}, filling in {@code document_hash} and {@code document_size}.
+ *
+ * <p>Rows are processed in batches ordered by id, each batch committed on its own, so the
+ * migration never holds locks on the whole table and can simply be restarted if interrupted: rows
+ * which already have a hash are skipped.
+ *
+ * <p>It is a Spring bean rather than a class in {@code db/migration}, since it needs the document
+ * store. Spring Boot hands it over to Flyway, which runs it between V2 and V4. With the postgres
+ * store, the documents are inserted by the migration itself, into the {@code documents} table as
+ * V2 created it, rather than through {@link PostgresDocumentStore}, which follows the schema of
+ * today: they are stored as they are, and encoded later by V13 ({@link DocumentCodecMigration}).
+ */
+@Component
+public class DocumentStoreBackfillMigration implements JavaMigration {
+
+  private static final Logger logger = LoggerFactory.getLogger(DocumentStoreBackfillMigration.class);
+
+  /** The documents table of V2, without the codec of V12 */
+  private static final String INSERT_DOCUMENT =
+      "INSERT INTO documents (hash, content, size) VALUES (?, ?, ?) ON CONFLICT (hash) DO NOTHING";
+
+  private final DocumentStore documentStore;
+
+  /** Whether the documents go to the documents table, rather than to the document store */
+  private final boolean postgresStore;
+
+  private final int batchSize;
+
+  public DocumentStoreBackfillMigration(
+      DocumentStore documentStore,
+      @Value("${yieldstreet.documents.store:postgres}") String store,
+      @Value("${yieldstreet.documents.backfill_batch_size:500}") int batchSize) {
+    this.documentStore = documentStore;
+    this.postgresStore = "postgres".equals(store);
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public MigrationVersion getVersion() {
+    return MigrationVersion.fromVersion("3");
+  }
+
+  @Override
+  public String getDescription() {
+    return "backfill document store";
+  }
+
+  @Override
+  public Integer getChecksum() {
+    return null;
+  }
+
+  @Override
+  public boolean canExecuteInTransaction() {
+    // we commit after every batch
+    return false;
+  }
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    Connection connection = context.getConnection();
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      UUID lastId = new UUID(0, 0);
+      long total = 0;
+      int migrated;
+      do {
+        migrated = 0;
+        try (PreparedStatement select =
+                connection.prepareStatement(
+                    "SELECT id, document_mime_type, document_content FROM accreditations "
+                        + "WHERE document_hash IS NULL AND id > ? ORDER BY id LIMIT ?");
+            PreparedStatement insert = connection.prepareStatement(INSERT_DOCUMENT);
+            PreparedStatement update =
+                connection.prepareStatement(
+                    "UPDATE accreditations SET document_hash = ?, document_size = ? WHERE id = ?")) {
+          select.setObject(1, lastId);
+          select.setInt(2, batchSize);
+          try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+              lastId = rs.getObject("id", UUID.class);
+              byte[] content = decode(lastId, rs.getString("document_content"));
+              DocumentReference reference;
+              if (postgresStore) {
+                // in the same transaction as the update of the batch
+                reference = DocumentReference.forContent(content);
+                insert.setString(1, reference.hash());
+                insert.setBytes(2, content);
+                insert.setLong(3, reference.size());
+                insert.addBatch();
+              } else {
+                reference = documentStore.store(content, rs.getString("document_mime_type"));
+              }
+              update.setString(1, reference.hash());
+              update.setLong(2, reference.size());
+              update.setObject(3, lastId);
+              update.addBatch();
+              migrated++;
+            }
+          }
+          insert.executeBatch();
+          update.executeBatch();
+        }
+        connection.commit();
+        total += migrated;
+        logger.info("Moved {} documents to the document store so far", total);
+      } while (migrated == batchSize);
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private static byte[] decode(UUID accreditationId, String content) {
+    try {
+      return Base64.getDecoder().decode(content);
+    } catch (IllegalArgumentException e) {
+      // the API never validated the encoding, so keep whatever was sent rather than lose it
+      logger.warn("Document of accreditation {} is not valid base64, storing it as is", accreditationId);
+      return content.getBytes(StandardCharsets.UTF_8);
+    }
+  }
+}
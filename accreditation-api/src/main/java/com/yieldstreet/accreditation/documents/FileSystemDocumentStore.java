@@ -0,0 +1,95 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Optional;
+
+/**
+ * Keeps each document in its own file below a root directory, named after its hash and sharded
+ * by the first characters of the hash. Documents are read back through memory-mapped buffers, so
+ * their content stays off the Java heap.
+ *
+ * <p>Files are written to a temporary name and then atomically renamed, so readers never see a
+ * partial document. Unlike {@link PostgresDocumentStore} writes are not transactional: a rolled
+ * back accreditation leaves its (content-addressed, hence harmless) file behind. The files hold
+ * the content as it is, uncompressed whatever its type.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.documents.store", havingValue = "filesystem")
+public class FileSystemDocumentStore implements DocumentStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileSystemDocumentStore.class);
+
+  private final Path root;
+
+  public FileSystemDocumentStore(@Value("${yieldstreet.documents.filesystem.root}") Path root) {
+    this.root = root;
+  }
+
+  @Override
+  public DocumentReference store(byte[] content, String mimeType) {
+    DocumentReference reference = DocumentReference.forContent(content);
+    Path path = pathOf(reference.hash());
+    if (Files.exists(path)) {
+      logger.debug("Document {} is already stored", reference.hash());
+      return reference;
+    }
+
+    try {
+      Files.createDirectories(path.getParent());
+      Path temporary = Files.createTempFile(path.getParent(), reference.hash(), ".tmp");
+      try {
+        Files.write(temporary, content);
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to store document " + reference.hash(), e);
+    }
+    logger.debug("Stored document {} of {} bytes", reference.hash(), reference.size());
+    return reference;
+  }
+
+  @Override
+  public DocumentReference store(InputStream content, String mimeType) {
+    // spooled below the root, so that it can be atomically moved in place once its hash is known
+    try (SpooledContent spooled = SpooledContent.spool(content, root)) {
+      DocumentReference reference = spooled.reference();
+      Path path = pathOf(reference.hash());
+      if (!Files.exists(path)) {
+        Files.createDirectories(path.getParent());
+        Files.move(spooled.file(), path, StandardCopyOption.ATOMIC_MOVE);
+      }
+      logger.debug("Stored document {} of {} bytes", reference.hash(), reference.size());
+      return reference;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to store document", e);
+    }
+  }
+
+  @Override
+  public Optional<ByteBuffer> load(String hash) {
+    try (FileChannel channel = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+      return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to load document " + hash, e);
+    }
+  }
+
+  private Path pathOf(String hash) {
+    return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+  }
+}
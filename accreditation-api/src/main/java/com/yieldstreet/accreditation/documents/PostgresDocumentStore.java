@@ -0,0 +1,143 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Keeps the documents in the {@code documents} table of the main database, as {@code bytea}.
+ *
+ * <p>The content is encoded with the codec chosen for its MIME type by {@link DocumentCodecs},
+ * recorded in the row, unless that does not make it smaller. Postgres does not compress it again
+ * (the column is stored {@code EXTERNAL}). It is decoded when loaded, which only happens when the
+ * content itself is needed.
+ *
+ * <p>Writes take part in the surrounding transaction, if any, so a document stored while creating
+ * an accreditation is rolled back together with it.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.documents.store", havingValue = "postgres", matchIfMissing = true)
+public class PostgresDocumentStore implements DocumentStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(PostgresDocumentStore.class);
+
+  private static final String INSERT =
+      "INSERT INTO documents (hash, content, size, codec) VALUES (?, ?, ?, ?)"
+          + " ON CONFLICT (hash) DO NOTHING";
+
+  /** Streamed content is spooled here first, since its hash is the primary key */
+  private static final Path SPOOL_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final DocumentCodecs documentCodecs;
+
+  public PostgresDocumentStore(DataSource dataSource, DocumentCodecs documentCodecs) {
+    // not the shared JdbcTemplate bean, since that one depends on Flyway and this store is also
+    // used by a migration
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.documentCodecs = documentCodecs;
+  }
+
+  @Override
+  public DocumentReference store(byte[] content, String mimeType) {
+    DocumentReference reference = DocumentReference.forContent(content);
+    DocumentCodec codec = documentCodecs.forMimeType(mimeType);
+    byte[] encoded = codec.encode(content);
+    if (encoded.length >= content.length) {
+      codec = DocumentCodec.NONE;
+      encoded = content;
+    }
+    int inserted =
+        jdbcTemplate.update(INSERT, reference.hash(), encoded, reference.size(), codec.getName());
+    logStored(reference, codec, encoded.length, inserted);
+    return reference;
+  }
+
+  @Override
+  public DocumentReference store(InputStream content, String mimeType) {
+    try (SpooledContent spooled = SpooledContent.spool(content, SPOOL_DIRECTORY)) {
+      DocumentReference reference = spooled.reference();
+      DocumentCodec codec = documentCodecs.forMimeType(mimeType);
+      Path encoded = codec == DocumentCodec.NONE ? null : encode(spooled.file(), codec);
+      try {
+        if (encoded != null && Files.size(encoded) >= reference.size()) {
+          codec = DocumentCodec.NONE;
+        }
+        Path file = codec == DocumentCodec.NONE ? spooled.file() : encoded;
+        long length = Files.size(file);
+        String codecName = codec.getName();
+        int inserted;
+        try (InputStream fileContent = Files.newInputStream(file)) {
+          inserted =
+              jdbcTemplate.update(
+                  INSERT,
+                  ps -> {
+                    ps.setString(1, reference.hash());
+                    // the driver streams the file to the server, given its length
+                    ps.setBinaryStream(2, fileContent, length);
+                    ps.setLong(3, reference.size());
+                    ps.setString(4, codecName);
+                  });
+        }
+        logStored(reference, codec, length, inserted);
+        return reference;
+      } finally {
+        if (encoded != null) {
+          Files.deleteIfExists(encoded);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to store document", e);
+    }
+  }
+
+  /** @return a temporary file with the encoded content of the given one */
+  private static Path encode(Path file, DocumentCodec codec) throws IOException {
+    Path encoded = Files.createTempFile(SPOOL_DIRECTORY, "document", ".enc");
+    try (InputStream in = Files.newInputStream(file);
+        OutputStream out = codec.encoder(Files.newOutputStream(encoded))) {
+      in.transferTo(out);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(encoded);
+      throw e;
+    }
+    return encoded;
+  }
+
+  private static void logStored(
+      DocumentReference reference, DocumentCodec codec, long encodedSize, int inserted) {
+    logger.debug(
+        "Stored document {} of {} bytes as {} bytes of {} (new: {})",
+        reference.hash(),
+        reference.size(),
+        encodedSize,
+        codec,
+        inserted > 0);
+  }
+
+  @Override
+  public Optional<ByteBuffer> load(String hash) {
+    return jdbcTemplate
+        .query(
+            "SELECT codec, content FROM documents WHERE hash = ?",
+            (rs, rowNum) ->
+                DocumentCodec.fromName(rs.getString("codec")).decode(rs.getBytes("content")),
+            hash)
+        .stream()
+        .findFirst()
+        .map(content -> ByteBuffer.wrap(content).asReadOnlyBuffer());
+  }
+}
@@ -0,0 +1,62 @@
+package com.yieldstreet.accreditation.documents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Content copied from a stream into a temporary file, hashing it on the way, so that a store knows
+ * the reference of streamed content before writing it, without ever holding it in memory. The
+ * temporary file is deleted on {@link #close()}, unless it was moved elsewhere.
+ */
+class SpooledContent implements AutoCloseable {
+
+  private final Path file;
+
+  private final DocumentReference reference;
+
+  private SpooledContent(Path file, DocumentReference reference) {
+    this.file = file;
+    this.reference = reference;
+  }
+
+  static SpooledContent spool(InputStream content, Path directory) {
+    try {
+      Files.createDirectories(directory);
+      Path file = Files.createTempFile(directory, "document", ".tmp");
+      try {
+        MessageDigest digest = DocumentReference.sha256();
+        long size = Files.copy(new DigestInputStream(content, digest), file, StandardCopyOption.REPLACE_EXISTING);
+        return new SpooledContent(file, new DocumentReference(HexFormat.of().formatHex(digest.digest()), size));
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to spool document content", e);
+    }
+  }
+
+  Path file() {
+    return file;
+  }
+
+  DocumentReference reference() {
+    return reference;
+  }
+
+  @Override
+  public void close() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to delete " + file, e);
+    }
+  }
+}
@@ -1,19 +1,26 @@
 package com.yieldstreet.accreditation.mappers;
 
-import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationListingView;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
 import com.yieldstreet.model.AccreditationStatusDetails;
+import com.yieldstreet.model.AccreditationStatusResponse;
+import com.yieldstreet.model.AccreditationSummary;
 import com.yieldstreet.model.AccreditationType;
 import com.yieldstreet.model.Status;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class AccreditationMapper {
 
     private AccreditationMapper() {
     }
 
-    public static AccreditationStatusDetails mapToStatusDetails(Accreditation accreditation) {
-        Status status = StatusMapper.mapToStatus(accreditation.getStatus());
+    public static AccreditationStatusDetails mapToStatusDetails(AccreditationStatusView accreditation) {
+        Status status = StatusMapper.mapToStatus(accreditation.status());
         AccreditationType accreditationType =
-                AccreditationTypeMapper.mapPersistedAccreditationType(accreditation.getType());
+                AccreditationTypeMapper.mapPersistedAccreditationType(accreditation.type());
 
         AccreditationStatusDetails accreditationStatusDetails = new AccreditationStatusDetails();
         accreditationStatusDetails.setStatus(status);
@@ -21,4 +28,36 @@ public class AccreditationMapper {
 
         return accreditationStatusDetails;
     }
+
+    /**
+     * Builds the status response of a user, keeping the accreditations in the order they were given.
+     */
+    public static AccreditationStatusResponse mapToStatusResponse(
+            String userId, List<AccreditationStatusView> accreditations) {
+        Map<String, AccreditationStatusDetails> statuses =
+                new LinkedHashMap<>((int) (accreditations.size() / 0.75f) + 1);
+        for (AccreditationStatusView accreditation : accreditations) {
+            statuses.put(accreditation.id().toString(), mapToStatusDetails(accreditation));
+        }
+
+        AccreditationStatusResponse response = new AccreditationStatusResponse();
+        response.setUserId(userId);
+        response.setAccreditationStatuses(statuses);
+        return response;
+    }
+
+    public static AccreditationSummary mapToSummary(AccreditationListingView accreditation) {
+        AccreditationSummary summary = new AccreditationSummary();
+        summary.setAccreditationId(accreditation.id());
+        summary.setUserId(accreditation.userId());
+        summary.setAccreditationType(
+                AccreditationTypeMapper.mapPersistedAccreditationType(accreditation.type()));
+        summary.setStatus(StatusMapper.mapToStatus(accreditation.status()));
+        summary.setDocumentName(accreditation.documentName());
+        summary.setDocumentMimeType(accreditation.documentMimeType());
+        summary.setDocumentSize(accreditation.documentSize());
+        summary.setCreatedTs(accreditation.createdTs());
+        summary.setUpdatedTs(accreditation.updatedTs());
+        return summary;
+    }
 }
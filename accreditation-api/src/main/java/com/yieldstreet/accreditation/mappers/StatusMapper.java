@@ -20,6 +20,15 @@ public class StatusMapper {
         };
     }
 
+    public static Accreditation.AccreditationStatus mapToDatabaseStatus(Status status) {
+        return switch (status) {
+            case PENDING -> Accreditation.AccreditationStatus.PENDING;
+            case CONFIRMED -> Accreditation.AccreditationStatus.CONFIRMED;
+            case FAILED -> Accreditation.AccreditationStatus.FAILED;
+            case EXPIRED -> Accreditation.AccreditationStatus.EXPIRED;
+        };
+    }
+
     public static Status mapToStatus(FinalStatus status) {
         return switch (status) {
             case FAILED -> Status.FAILED;
@@ -26,9 +26,12 @@ public class Accreditation implements Serializable {
     FAILED
   }
 
+  /** Time-ordered, see {@link TimeOrderedUuidGenerator}. */
   @Id
   @GeneratedValue(generator = "UUID")
-  @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+  @GenericGenerator(
+      name = "UUID",
+      strategy = "com.yieldstreet.accreditation.persistence.TimeOrderedUuidGenerator")
   @Column(name = "id", nullable = false)
   private UUID id;
 
@@ -46,8 +49,13 @@ public class Accreditation implements Serializable {
   @Column(name = "document_mime_type", nullable = false)
   private String documentMimeType;
 
-  @Column(name = "document_content", nullable = false)
-  private String documentContent;
+  /** The hash under which the content is kept in the document store. */
+  @Column(name = "document_hash", nullable = false)
+  private String documentHash;
+
+  /** The size of the (decoded) document content, in bytes. */
+  @Column(name = "document_size", nullable = false)
+  private long documentSize;
 
   @Enumerated(EnumType.STRING)
   @Column(name = "status", nullable = false)
@@ -59,6 +67,10 @@ public class Accreditation implements Serializable {
   @Column(name = "updated_ts", nullable = false)
   private OffsetDateTime updatedTs;
 
+  /** Incremented by every update of the status, used as the stamp of the stamped lock. */
+  @Column(name = "version", nullable = false)
+  private int version;
+
   @PrePersist
   public void onPrePersist() {
     this.createdTs = OffsetDateTime.now();
@@ -110,12 +122,24 @@ public class Accreditation implements Serializable {
     return documentMimeType;
   }
 
-  public void setDocumentContent(String documentContent) {
-    this.documentContent = documentContent;
+  /** The hash under which the content is kept in the document store. */
+  public void setDocumentHash(String documentHash) {
+    this.documentHash = documentHash;
+  }
+
+  /** The hash under which the content is kept in the document store. */
+  public String getDocumentHash() {
+    return documentHash;
+  }
+
+  /** The size of the (decoded) document content, in bytes. */
+  public void setDocumentSize(long documentSize) {
+    this.documentSize = documentSize;
   }
 
-  public String getDocumentContent() {
-    return documentContent;
+  /** The size of the (decoded) document content, in bytes. */
+  public long getDocumentSize() {
+    return documentSize;
   }
 
   public void setStatus(AccreditationStatus status) {
@@ -142,6 +166,16 @@ public class Accreditation implements Serializable {
     return updatedTs;
   }
 
+  /** Incremented by every update of the status, used as the stamp of the stamped lock. */
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
+  /** Incremented by every update of the status, used as the stamp of the stamped lock. */
+  public int getVersion() {
+    return version;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -152,10 +186,12 @@ public class Accreditation implements Serializable {
         && type == that.type
         && Objects.equals(documentName, that.documentName)
         && Objects.equals(documentMimeType, that.documentMimeType)
-        && Objects.equals(documentContent, that.documentContent)
+        && Objects.equals(documentHash, that.documentHash)
+        && documentSize == that.documentSize
         && status == that.status
         && Objects.equals(createdTs, that.createdTs)
-        && Objects.equals(updatedTs, that.updatedTs);
+        && Objects.equals(updatedTs, that.updatedTs)
+        && version == that.version;
   }
 
   @Override
@@ -166,10 +202,12 @@ public class Accreditation implements Serializable {
         type,
         documentName,
         documentMimeType,
-        documentContent,
+        documentHash,
+        documentSize,
         status,
         createdTs,
-        updatedTs);
+        updatedTs,
+        version);
   }
 
   @Override
@@ -180,10 +218,12 @@ public class Accreditation implements Serializable {
             ", type=" + type +
             ", documentName='" + documentName + '\'' +
             ", documentMimeType='" + documentMimeType + '\'' +
-            ", documentContent='" + documentContent + '\'' +
+            ", documentHash='" + documentHash + '\'' +
+            ", documentSize=" + documentSize +
             ", status=" + status +
             ", createdTs=" + createdTs +
             ", updatedTs=" + updatedTs +
+            ", version=" + version +
             '}';
   }
 }
@@ -0,0 +1,45 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Set-based statement of the archival job, which moves the terminal accreditations to the archive
+ * partition of the {@code accreditations} table in chunks of rows.
+ */
+@Repository
+public class AccreditationArchivalRepository {
+
+  /**
+   * Archives the next chunk of FAILED accreditations, oldest first. Setting {@code archived} moves
+   * them to the archive partition, without changing what the reads see. The rows locked by another
+   * instance are left to it. EXPIRED accreditations are not archived, as they can still be
+   * finalised again.
+   */
+  private static final String ARCHIVE_CHUNK =
+      "WITH chunk AS ("
+          + " SELECT id FROM accreditations"
+          + " WHERE status = 'FAILED' AND NOT archived AND updated_ts < ?"
+          + " ORDER BY updated_ts LIMIT ? FOR UPDATE SKIP LOCKED)"
+          + " UPDATE accreditations a SET archived = true"
+          + " FROM chunk"
+          + " WHERE a.id = chunk.id AND NOT a.archived";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccreditationArchivalRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Archives the FAILED accreditations last updated before the cutoff, oldest first.
+   *
+   * @param limit the maximum number of accreditations archived
+   * @return the number of accreditations archived
+   */
+  public int archiveChunk(OffsetDateTime cutoffTs, int limit) {
+    return jdbcTemplate.update(ARCHIVE_CHUNK, cutoffTs, limit);
+  }
+}
@@ -0,0 +1,168 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Statements of the admin operations which are sent to the database as one JDBC batch or one
+ * set-based statement, rather than one round trip per accreditation or per entity.
+ */
+@Repository
+public class AccreditationBatchRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccreditationBatchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Creates the user if needed, then the accreditation, unless the user already has a PENDING one.
+   * The partial unique index on the PENDING accreditations of each user decides, so two concurrent
+   * creations for the same user cannot both succeed.
+   */
+  private static final String INSERT_PENDING =
+      """
+      WITH new_user AS (
+          INSERT INTO users (user_id) VALUES (?)
+          ON CONFLICT (user_id) DO NOTHING
+          RETURNING id
+      ), accreditation_user AS (
+          SELECT id FROM new_user
+          UNION ALL
+          SELECT id FROM users WHERE user_id = ?
+      )
+      INSERT INTO accreditations
+          (id, user_id, type, document_name, document_mime_type, document_hash, document_size, status)
+      SELECT ?, id, ?, ?, ?, ?, ?, 'PENDING' FROM accreditation_user LIMIT 1
+      ON CONFLICT (user_id, archived) WHERE status = 'PENDING' DO NOTHING
+      RETURNING id, user_id, created_ts, updated_ts
+      """;
+
+  /** Like {@link #INSERT_PENDING}, when the internal id of the user is already known. */
+  private static final String INSERT_PENDING_FOR_USER =
+      """
+      INSERT INTO accreditations
+          (id, user_id, type, document_name, document_mime_type, document_hash, document_size, status)
+      VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING')
+      ON CONFLICT (user_id, archived) WHERE status = 'PENDING' DO NOTHING
+      RETURNING id, user_id, created_ts, updated_ts
+      """;
+
+  /**
+   * Inserts a new PENDING accreditation, creating its user if needed, in a single statement. If the
+   * internal id of the user is set, the user is neither looked up nor created. The id of the
+   * accreditation is generated here, by {@link TimeOrderedUuidGenerator}, like for the entities.
+   *
+   * <p>Nothing is inserted if the user already has a PENDING accreditation. Nothing is inserted
+   * either, the first time, if the user was created by a transaction committed while the statement
+   * ran: being missing from the snapshot of the statement, it is not found, yet not created again.
+   * The statement is therefore run a second time before concluding that the user is pending.
+   *
+   * @param accreditation the accreditation to insert, whose user only needs its external id; its
+   *     ids and timestamps are set from the inserted row
+   * @return the accreditation, or empty if the user already has a PENDING accreditation
+   */
+  public Optional<Accreditation> insertPendingAccreditation(Accreditation accreditation) {
+    User user = accreditation.getUser();
+    UUID id = TimeOrderedUuidGenerator.generate();
+    if (user.getId() != null) {
+      return insertPending(
+          accreditation,
+          INSERT_PENDING_FOR_USER,
+          statement -> {
+            statement.setObject(1, id);
+            statement.setInt(2, user.getId());
+            setAccreditationColumns(statement, 3, accreditation);
+          });
+    }
+
+    for (int attempt = 0; attempt < 2; attempt++) {
+      Optional<Accreditation> inserted =
+          insertPending(
+              accreditation,
+              INSERT_PENDING,
+              statement -> {
+                statement.setString(1, user.getUserId());
+                statement.setString(2, user.getUserId());
+                statement.setObject(3, id);
+                setAccreditationColumns(statement, 4, accreditation);
+              });
+      if (inserted.isPresent()) {
+        return inserted;
+      }
+    }
+    return Optional.empty();
+  }
+
+  private Optional<Accreditation> insertPending(
+      Accreditation accreditation, String sql, PreparedStatementSetter parameters) {
+    return jdbcTemplate
+        .query(
+            sql,
+            parameters,
+            (row, rowNum) -> {
+              accreditation.setId(row.getObject("id", UUID.class));
+              accreditation.getUser().setId(row.getInt("user_id"));
+              accreditation.setCreatedTs(row.getObject("created_ts", OffsetDateTime.class));
+              accreditation.setUpdatedTs(row.getObject("updated_ts", OffsetDateTime.class));
+              return accreditation;
+            })
+        .stream()
+        .findFirst();
+  }
+
+  private static void setAccreditationColumns(
+      PreparedStatement statement, int first, Accreditation accreditation) throws SQLException {
+    statement.setString(first, accreditation.getType().name());
+    statement.setString(first + 1, accreditation.getDocumentName());
+    statement.setString(first + 2, accreditation.getDocumentMimeType());
+    statement.setString(first + 3, accreditation.getDocumentHash());
+    statement.setLong(first + 4, accreditation.getDocumentSize());
+  }
+
+  /**
+   * Creates the users which do not exist yet, in a single statement. Users created concurrently
+   * by another transaction are left as they are.
+   */
+  public void createMissingUsers(Collection<String> userIds) {
+    jdbcTemplate.update(
+        connection -> {
+          Array array = connection.createArrayOf("varchar", userIds.toArray());
+          var statement =
+              connection.prepareStatement(
+                  "INSERT INTO users (user_id) SELECT unnest(?) ON CONFLICT (user_id) DO NOTHING");
+          statement.setArray(1, array);
+          return statement;
+        });
+  }
+
+  /**
+   * Applies the status updates as one JDBC batch, each using its version as a stamped lock, like
+   * {@link AccreditationRepository#finaliseAccreditationStatus}.
+   *
+   * @return the number of rows updated by each update, in order: 0 if it was updated concurrently
+   */
+  public int[] finaliseAccreditationStatuses(List<StampedStatusUpdate> updates) {
+    return jdbcTemplate.batchUpdate(
+        "UPDATE accreditations SET status = ?, updated_ts = CURRENT_TIMESTAMP, version = version + 1 "
+            + "WHERE id = ? AND version = ?",
+        updates,
+        updates.size(),
+        (statement, update) -> {
+          statement.setString(1, update.status().name());
+          statement.setObject(2, update.accreditationId());
+          statement.setInt(3, update.version());
+        })[0];
+  }
+}
@@ -0,0 +1,41 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * A position in the listing order of the accreditations, (created_ts, id), handed to the clients
+ * as an opaque string. The timestamp is kept to the microsecond, the precision of the database, so
+ * that the next page starts exactly after the row the cursor was taken from.
+ */
+public record AccreditationCursor(OffsetDateTime createdTs, UUID id) {
+
+  public AccreditationCursor {
+    createdTs = createdTs.withOffsetSameInstant(ZoneOffset.UTC);
+  }
+
+  public String encode() {
+    long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createdTs.toInstant());
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((micros + ":" + id).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /** @throws IllegalArgumentException if the cursor was not made by {@link #encode} */
+  public static AccreditationCursor decode(String cursor) {
+    String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+    int separator = decoded.indexOf(':');
+    if (separator < 0) {
+      throw new IllegalArgumentException("Not a cursor: " + cursor);
+    }
+    long micros = Long.parseLong(decoded.substring(0, separator));
+    return new AccreditationCursor(
+        Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC),
+        UUID.fromString(decoded.substring(separator + 1)));
+  }
+}
@@ -0,0 +1,129 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Set-based statements of the expiry job, which works through the accreditations in chunks of
+ * rows rather than entity by entity, together with its {@link ExpiryCheckpoint}.
+ */
+@Repository
+public class AccreditationExpiryRepository {
+
+  /**
+   * Expires the next chunk of CONFIRMED accreditations in id order, returning what the audit
+   * messages need. The rows are locked in id order, so concurrent chunks cannot deadlock.
+   */
+  private static final String EXPIRE_CHUNK =
+      "WITH chunk AS ("
+          + " SELECT id FROM accreditations"
+          + " WHERE status = 'CONFIRMED' AND updated_ts < ? AND id > ?"
+          + " ORDER BY id LIMIT ? FOR UPDATE)"
+          + " UPDATE accreditations a SET status = 'EXPIRED', updated_ts = CURRENT_TIMESTAMP,"
+          + " version = a.version + 1"
+          + " FROM chunk, users u"
+          + " WHERE a.id = chunk.id AND u.id = a.user_id"
+          + " RETURNING a.id, u.id AS internal_user_id, u.user_id, u.created_ts AS user_created_ts, a.type,"
+          + " a.document_name, a.document_mime_type, a.document_hash, a.document_size,"
+          + " a.status, a.created_ts, a.updated_ts, a.version";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccreditationExpiryRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Expires the CONFIRMED accreditations last updated before the cutoff, in id order, starting
+   * after the given id.
+   *
+   * @param limit the maximum number of accreditations expired
+   * @return the expired accreditations, detached, in id order
+   */
+  public List<Accreditation> expireChunk(OffsetDateTime cutoffTs, UUID afterId, int limit) {
+    List<Accreditation> expired =
+        jdbcTemplate.query(
+            EXPIRE_CHUNK,
+            (rs, rowNum) -> {
+              User user = new User();
+              user.setId(rs.getInt("internal_user_id"));
+              user.setUserId(rs.getString("user_id"));
+              user.setCreatedTs(rs.getObject("user_created_ts", OffsetDateTime.class));
+
+              Accreditation accreditation = new Accreditation();
+              accreditation.setId(rs.getObject("id", UUID.class));
+              accreditation.setUser(user);
+              accreditation.setType(Accreditation.AccreditationType.valueOf(rs.getString("type")));
+              accreditation.setDocumentName(rs.getString("document_name"));
+              accreditation.setDocumentMimeType(rs.getString("document_mime_type"));
+              accreditation.setDocumentHash(rs.getString("document_hash"));
+              accreditation.setDocumentSize(rs.getLong("document_size"));
+              accreditation.setStatus(Accreditation.AccreditationStatus.valueOf(rs.getString("status")));
+              accreditation.setCreatedTs(rs.getObject("created_ts", OffsetDateTime.class));
+              accreditation.setUpdatedTs(rs.getObject("updated_ts", OffsetDateTime.class));
+              accreditation.setVersion(rs.getInt("version"));
+              return accreditation;
+            },
+            cutoffTs,
+            afterId,
+            limit);
+    // RETURNING does not keep the order of the chunk
+    expired.sort((a, b) -> compareIds(a.getId(), b.getId()));
+    return expired;
+  }
+
+  /** Starts tracking a run, unless one is in flight already. */
+  public void startRun(String job, OffsetDateTime cutoffTs) {
+    jdbcTemplate.update(
+        "INSERT INTO expiry_checkpoints (job, cutoff_ts, last_id) VALUES (?, ?, ?) "
+            + "ON CONFLICT (job) DO NOTHING",
+        job,
+        cutoffTs,
+        new UUID(0, 0));
+  }
+
+  /**
+   * Reads the checkpoint of the run in flight, locking it until the end of the transaction so
+   * that only one instance processes a chunk at a time.
+   */
+  public Optional<ExpiryCheckpoint> lockCheckpoint(String job) {
+    return jdbcTemplate
+        .query(
+            "SELECT cutoff_ts, last_id, expired FROM expiry_checkpoints WHERE job = ? FOR UPDATE",
+            (rs, rowNum) ->
+                new ExpiryCheckpoint(
+                    rs.getObject("cutoff_ts", OffsetDateTime.class),
+                    rs.getObject("last_id", UUID.class),
+                    rs.getLong("expired")),
+            job)
+        .stream()
+        .findFirst();
+  }
+
+  public void saveCheckpoint(String job, ExpiryCheckpoint checkpoint) {
+    jdbcTemplate.update(
+        "UPDATE expiry_checkpoints SET last_id = ?, expired = ?, updated_ts = CURRENT_TIMESTAMP "
+            + "WHERE job = ?",
+        checkpoint.lastId(),
+        checkpoint.expired(),
+        job);
+  }
+
+  /** Marks the run as complete. */
+  public void deleteCheckpoint(String job) {
+    jdbcTemplate.update("DELETE FROM expiry_checkpoints WHERE job = ?", job);
+  }
+
+  /** Compares UUIDs the way PostgreSQL does, as unsigned bytes, unlike {@link UUID#compareTo}. */
+  static int compareIds(UUID a, UUID b) {
+    int compare = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+    return compare != 0
+        ? compare
+        : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+  }
+}
@@ -0,0 +1,15 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The accreditations listed by {@link AccreditationListingRepository}. Every criterion is
+ * optional (null); the lower bounds of the time ranges are inclusive, the upper bounds exclusive.
+ */
+public record AccreditationFilter(
+    Accreditation.AccreditationStatus status,
+    Accreditation.AccreditationType type,
+    OffsetDateTime createdFrom,
+    OffsetDateTime createdTo,
+    OffsetDateTime updatedFrom,
+    OffsetDateTime updatedTo) {}
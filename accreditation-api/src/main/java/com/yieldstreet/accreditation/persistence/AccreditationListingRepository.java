@@ -0,0 +1,123 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lists the accreditations matching a filter, in (created_ts, id) order, a page at a time.
+ *
+ * <p>The pages are keyset-paginated: a page starts after the (created_ts, id) of the last row of
+ * the previous one, rather than at an offset, so that every page is read straight from an index
+ * whichever page it is. Each filter is served by an index which starts with its equality criteria
+ * and ends with (created_ts, id): see {@code V10__create_listing_indexes.sql}.
+ *
+ * <p>They can also be read all at once, for an export, through a server-side cursor.
+ */
+@Repository
+public class AccreditationListingRepository {
+
+  private static final String SELECT =
+      "SELECT a.id, u.user_id, a.type, a.status, a.document_name, a.document_mime_type,"
+          + " a.document_hash, a.document_size, a.created_ts, a.updated_ts"
+          + " FROM accreditations a JOIN users u ON u.id = a.user_id";
+
+  private static final RowMapper<AccreditationListingView> ROW_MAPPER =
+      (rs, rowNum) ->
+          new AccreditationListingView(
+              rs.getObject("id", UUID.class),
+              rs.getString("user_id"),
+              Accreditation.AccreditationType.valueOf(rs.getString("type")),
+              Accreditation.AccreditationStatus.valueOf(rs.getString("status")),
+              rs.getString("document_name"),
+              rs.getString("document_mime_type"),
+              rs.getString("document_hash"),
+              rs.getLong("document_size"),
+              rs.getObject("created_ts", OffsetDateTime.class),
+              rs.getObject("updated_ts", OffsetDateTime.class));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Reads the rows of an export a fetch at a time, from a cursor */
+  private final JdbcTemplate cursorJdbcTemplate;
+
+  public AccreditationListingRepository(
+      JdbcTemplate jdbcTemplate, @Value("${yieldstreet.export.fetch_size:1000}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.cursorJdbcTemplate.setFetchSize(fetchSize);
+  }
+
+  /**
+   * @param after where the page starts (exclusive), or null for the first page
+   * @param limit the maximum number of accreditations returned
+   * @return the accreditations matching the filter, in (created_ts, id) order
+   */
+  public List<AccreditationListingView> findPage(
+      AccreditationFilter filter, AccreditationCursor after, int limit) {
+    List<Object> args = new ArrayList<>();
+    StringBuilder sql = select(filter, args);
+    if (after != null) {
+      sql.append(" AND (a.created_ts, a.id) > (?, ?)");
+      args.add(after.createdTs());
+      args.add(after.id());
+    }
+    sql.append(" ORDER BY a.created_ts, a.id LIMIT ?");
+    args.add(limit);
+
+    return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+  }
+
+  /**
+   * Reads all the accreditations matching the filter, in (created_ts, id) order, handing them over
+   * one by one as they are read. The driver only reads {@code fetch_size} rows ahead, as long as
+   * it runs in a transaction: without one it reads them all before returning the first.
+   */
+  public void forEach(AccreditationFilter filter, Consumer<AccreditationListingView> action) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException("A cursor can only be read in a transaction");
+    }
+    List<Object> args = new ArrayList<>();
+    StringBuilder sql = select(filter, args).append(" ORDER BY a.created_ts, a.id");
+    cursorJdbcTemplate.query(
+        sql.toString(),
+        (RowCallbackHandler) rs -> action.accept(ROW_MAPPER.mapRow(rs, rs.getRow())),
+        args.toArray());
+  }
+
+  private static StringBuilder select(AccreditationFilter filter, List<Object> args) {
+    StringBuilder sql = new StringBuilder(SELECT).append(" WHERE TRUE");
+    if (filter.status() != null) {
+      sql.append(" AND a.status = ?");
+      args.add(filter.status().name());
+    }
+    if (filter.type() != null) {
+      sql.append(" AND a.type = ?");
+      args.add(filter.type().name());
+    }
+    appendRange(sql, args, "a.created_ts", filter.createdFrom(), filter.createdTo());
+    appendRange(sql, args, "a.updated_ts", filter.updatedFrom(), filter.updatedTo());
+    return sql;
+  }
+
+  private static void appendRange(
+      StringBuilder sql, List<Object> args, String column, OffsetDateTime from, OffsetDateTime to) {
+    if (from != null) {
+      sql.append(" AND ").append(column).append(" >= ?");
+      args.add(from);
+    }
+    if (to != null) {
+      sql.append(" AND ").append(column).append(" < ?");
+      args.add(to);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A read-only projection of an accreditation for the admin listing and export: the columns of the
+ * row, with the reference of the document rather than its content, and the external id of its
+ * user.
+ */
+public record AccreditationListingView(
+    UUID id,
+    String userId,
+    Accreditation.AccreditationType type,
+    Accreditation.AccreditationStatus status,
+    String documentName,
+    String documentMimeType,
+    String documentHash,
+    long documentSize,
+    OffsetDateTime createdTs,
+    OffsetDateTime updatedTs) {
+
+  /** @return the position of this accreditation in the listing order */
+  public AccreditationCursor cursor() {
+    return new AccreditationCursor(createdTs, id);
+  }
+}
@@ -7,27 +7,69 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface AccreditationRepository
     extends JpaRepository<Accreditation, UUID>, JpaSpecificationExecutor<Accreditation> {
 
-  List<Accreditation> findByUserUserIdOrderByCreatedTs(String userId);
+  /**
+   * Retrieves only the id, type and status of the accreditations of a user, in creation order,
+   * without loading the document content. The user is given by its internal id, so the users table
+   * is not joined. They are read from the index on the user and creation time alone.
+   */
+  @Query(
+      "select new com.yieldstreet.accreditation.persistence.AccreditationStatusView(a.id, a.type, a.status) " +
+              "from Accreditation a where a.user.id = :id order by a.createdTs")
+  List<AccreditationStatusView> findStatusesByUserInternalId(@Param("id") int id);
+
+  /**
+   * Reads the stamp of the accreditations of a user, given by its internal id. It is read from the
+   * index on the user, which holds the timestamps and versions, without visiting the rows.
+   */
+  @Query(
+      "select new com.yieldstreet.accreditation.persistence.UserAccreditationsStamp(" +
+              "count(a), max(a.updatedTs), coalesce(sum(a.version), 0L)) " +
+              "from Accreditation a where a.user.id = :id")
+  UserAccreditationsStamp findStampByUserInternalId(@Param("id") int id);
+
+  /** Retrieves the accreditations with the given ids, fetching their users in the same query. */
+  @Query("select a from Accreditation a join fetch a.user where a.id in :ids")
+  List<Accreditation> findAllWithUserByIdIn(@Param("ids") Collection<UUID> ids);
 
-  List<Accreditation> findByUserUserIdAndStatus(String userId, Accreditation.AccreditationStatus status);
+  /** Retrieves which of the given users have an accreditation in the given status. */
+  @Query(
+      "select distinct a.user.userId from Accreditation a " +
+              "where a.user.userId in :userIds and a.status = :status")
+  List<String> findUserIdsWithStatus(
+      @Param("userIds") Collection<String> userIds,
+      @Param("status") Accreditation.AccreditationStatus status);
+
+  /**
+   * Reads the current status and version of an accreditation, bypassing the entities already
+   * loaded by the transaction.
+   */
+  @Query(
+      "select new com.yieldstreet.accreditation.persistence.AccreditationStamp(a.id, a.status, a.version) " +
+              "from Accreditation a where a.id = :accreditationId")
+  Optional<AccreditationStamp> findStampById(@Param("accreditationId") UUID accreditationId);
 
-  List<Accreditation> findAccreditationByStatusAndUpdatedTsBefore(Accreditation.AccreditationStatus status, OffsetDateTime updatedBeforeTs);
+  /** Reads the current status and version of the given accreditations, like {@link #findStampById}. */
+  @Query(
+      "select new com.yieldstreet.accreditation.persistence.AccreditationStamp(a.id, a.status, a.version) " +
+              "from Accreditation a where a.id in :ids")
+  List<AccreditationStamp> findStampsByIdIn(@Param("ids") Collection<UUID> ids);
 
   @Modifying
   @Query(
-      "update Accreditation a set a.status = :status, a.updatedTs = CURRENT_TIMESTAMP " +
-              "where a.id = :accreditationId and a.updatedTs = :updatedTs")
+      "update Accreditation a set a.status = :status, a.updatedTs = CURRENT_TIMESTAMP, a.version = a.version + 1 " +
+              "where a.id = :accreditationId and a.version = :version")
   int finaliseAccreditationStatus(
       @Param("status") Accreditation.AccreditationStatus status,
       @Param("accreditationId") UUID accreditationId,
-      @Param("updatedTs") OffsetDateTime updatedTs);
+      @Param("version") int version);
 
 }
@@ -0,0 +1,7 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.util.UUID;
+
+/** The current status of an accreditation, together with its version, as read from the database. */
+public record AccreditationStamp(
+    UUID id, Accreditation.AccreditationStatus status, int version) {}
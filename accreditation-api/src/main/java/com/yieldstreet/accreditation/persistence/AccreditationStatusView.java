@@ -0,0 +1,11 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.util.UUID;
+
+/**
+ * A read-only projection of an accreditation, holding only the columns needed to report its
+ * status. Unlike the {@link Accreditation} entity it never loads the document content nor the
+ * owning {@link User}.
+ */
+public record AccreditationStatusView(
+    UUID id, Accreditation.AccreditationType type, Accreditation.AccreditationStatus status) {}
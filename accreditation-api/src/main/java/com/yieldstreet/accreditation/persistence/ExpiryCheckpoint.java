@@ -0,0 +1,13 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * The progress of an expiry run.
+ *
+ * @param cutoffTs the accreditations last updated before this are expired by the run
+ * @param lastId the highest accreditation id processed so far, the run carries on after it
+ * @param expired the number of accreditations expired so far
+ */
+public record ExpiryCheckpoint(OffsetDateTime cutoffTs, UUID lastId, long expired) {}
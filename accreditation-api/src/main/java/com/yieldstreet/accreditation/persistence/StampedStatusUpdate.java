@@ -0,0 +1,10 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.util.UUID;
+
+/**
+ * A change of status of an accreditation, applied only if it is still at {@code version} (the
+ * stamp).
+ */
+public record StampedStatusUpdate(
+    UUID accreditationId, Accreditation.AccreditationStatus status, int version) {}
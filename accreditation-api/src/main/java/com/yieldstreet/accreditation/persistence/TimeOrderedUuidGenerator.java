@@ -0,0 +1,55 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): the first 48 bits are the Unix time in milliseconds, the
+ * next 12 bits a counter within the millisecond, and the remaining 62 bits, besides the version
+ * and variant, are random.
+ *
+ * <p>Postgres compares UUIDs byte by byte, so ids generated in sequence are inserted at the right
+ * end of the primary key index, rather than all over it as random UUIDs are. The counter starts at
+ * a random value each millisecond and keeps the ids generated by this instance strictly increasing,
+ * running into the next millisecond if it overflows. The random bits come from a {@link
+ * SecureRandom}, like {@link UUID#randomUUID()}, so the ids are no easier to guess than before,
+ * besides their creation time.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  /** The milliseconds and counter of the last id, as {@code millis << 12 | counter} */
+  private static final AtomicLong last = new AtomicLong();
+
+  public static UUID generate() {
+    return generate(System.currentTimeMillis());
+  }
+
+  static UUID generate(long epochMillis) {
+    byte[] random = new byte[10];
+    RANDOM.nextBytes(random);
+
+    long candidate = (epochMillis << 12) | ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);
+    long sequence = last.accumulateAndGet(candidate, (previous, next) -> Math.max(previous + 1, next));
+    long mostSigBits = ((sequence >>> 12) << 16) | 0x7000L | (sequence & 0xFFFL);
+
+    long randB = 0;
+    for (int i = 2; i < 10; i++) {
+      randB = (randB << 8) | (random[i] & 0xFFL);
+    }
+    long leastSigBits = (randB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    return generate();
+  }
+}
@@ -0,0 +1,12 @@
+package com.yieldstreet.accreditation.persistence;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Identifies the state of the accreditations of a user: it changes whenever one of them is
+ * created, has its status updated, or is removed. The sum of the versions covers the updates
+ * whose timestamp (the start of their transaction) is not the latest one.
+ *
+ * @param lastUpdatedTs the latest update of the accreditations, or null if there are none
+ */
+public record UserAccreditationsStamp(long count, OffsetDateTime lastUpdatedTs, long versions) {}
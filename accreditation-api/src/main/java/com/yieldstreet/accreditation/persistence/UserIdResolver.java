@@ -0,0 +1,103 @@
+package com.yieldstreet.accreditation.persistence;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves the external id of a user to its internal id ({@code users.id}), remembering the ids of
+ * the most recently resolved users.
+ *
+ * <p>The internal id of a user never changes once assigned, so an entry never needs to be
+ * invalidated: it is only replaced by another user whose external id falls in the same slot. The
+ * cache is a fixed array of immutable entries indexed by the hash of the external id, holding the
+ * id as an {@code int}, which keeps it to one small object per user and needs no locking. The
+ * external id is kept and compared, as two of them may share a hash. Users which do not exist are
+ * not remembered, since they may be created at any time.
+ */
+@Component
+public class UserIdResolver {
+
+  private record Entry(String userId, int id) {}
+
+  private final UserRepository userRepository;
+
+  private final Entry[] entries;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  public UserIdResolver(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${yieldstreet.cache.user_ids.max_size:65536}") int maxSize) {
+    this.userRepository = userRepository;
+    this.entries = new Entry[Integer.highestOneBit(Math.max(maxSize, 2) - 1) << 1];
+    FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+        .tags("cache", "user_ids", "result", "hit")
+        .description("The number of times cache lookup methods have returned a cached value.")
+        .register(meterRegistry);
+    FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+        .tags("cache", "user_ids", "result", "miss")
+        .description("The number of times cache lookup methods have returned an uncached value.")
+        .register(meterRegistry);
+  }
+
+  /** @return the internal id of the user, or empty if there is no such user */
+  public OptionalInt resolve(String userId) {
+    OptionalInt cached = getIfPresent(userId);
+    if (cached.isPresent()) {
+      hits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    return userRepository
+        .findIdByUserId(userId)
+        .map(
+            id -> {
+              remember(userId, id);
+              return OptionalInt.of(id);
+            })
+        .orElseGet(OptionalInt::empty);
+  }
+
+  /** @return the internal id of the user if it is remembered, without reading the database */
+  public OptionalInt getIfPresent(String userId) {
+    Entry entry = entries[slot(userId)];
+    return entry != null && entry.userId().equals(userId)
+        ? OptionalInt.of(entry.id())
+        : OptionalInt.empty();
+  }
+
+  /**
+   * Remembers the internal id of a user which was just read or created. Within a transaction, it
+   * is only remembered once the transaction commits, as a user created by it could be rolled back.
+   */
+  public void remember(String userId, int id) {
+    Entry entry = new Entry(userId, id);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              entries[slot(userId)] = entry;
+            }
+          });
+    } else {
+      entries[slot(userId)] = entry;
+    }
+  }
+
+  private int slot(String userId) {
+    int hash = userId.hashCode();
+    return (hash ^ (hash >>> 16)) & (entries.length - 1);
+  }
+}
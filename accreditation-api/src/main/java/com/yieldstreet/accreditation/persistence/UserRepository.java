@@ -2,13 +2,21 @@ package com.yieldstreet.accreditation.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository
     extends JpaRepository<User, String>, JpaSpecificationExecutor<User> {
 
-  Optional<User> findByUserId(String userId);
+  /** Retrieves only the internal id of a user, see {@link UserIdResolver}. */
+  @Query("select u.id from User u where u.userId = :userId")
+  Optional<Integer> findIdByUserId(@Param("userId") String userId);
+
+  List<User> findByUserIdIn(Collection<String> userIds);
 }
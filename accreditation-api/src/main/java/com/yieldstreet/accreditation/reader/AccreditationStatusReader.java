@@ -0,0 +1,67 @@
+package com.yieldstreet.accreditation.reader;
+
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/** Reads the accreditation statuses of a user through R2DBC, without blocking. */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class AccreditationStatusReader {
+
+  /**
+   * The user, with one row per accreditation in creation order, or a single row without an
+   * accreditation if there is none: one query tells an unknown user from one without accreditations.
+   */
+  private static final String FIND_STATUSES =
+      """
+      SELECT a.id, a.type, a.status
+      FROM users u
+      LEFT JOIN accreditations a ON a.user_id = u.id
+      WHERE u.user_id = $1
+      ORDER BY a.created_ts
+      """;
+
+  private final DatabaseClient databaseClient;
+
+  public AccreditationStatusReader(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  /**
+   * @return the statuses of the accreditations of the user, like {@code
+   *     AccreditationRepository#findStatusesByUserInternalId}, or empty if there is no such user
+   */
+  public Mono<List<AccreditationStatusView>> findStatusesByUserId(String userId) {
+    return databaseClient
+        .sql(FIND_STATUSES)
+        .bind(0, userId)
+        .map(AccreditationStatusReader::toStatusView)
+        .all()
+        .collectList()
+        .filter(rows -> !rows.isEmpty())
+        .map(rows -> rows.stream().flatMap(Optional::stream).collect(Collectors.toList()));
+  }
+
+  /** @return the status of the accreditation of the row, or empty if the user has none */
+  private static Optional<AccreditationStatusView> toStatusView(Row row) {
+    UUID id = row.get("id", UUID.class);
+    if (id == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new AccreditationStatusView(
+            id,
+            Accreditation.AccreditationType.valueOf(row.get("type", String.class)),
+            Accreditation.AccreditationStatus.valueOf(row.get("status", String.class))));
+  }
+}
@@ -0,0 +1,60 @@
+package com.yieldstreet.accreditation.reader;
+
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.api.reactive.UserApi;
+import com.yieldstreet.model.AccreditationStatusResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking variant of {@link com.yieldstreet.accreditation.user.UserApiController}. It
+ * does not answer conditional requests: the {@code If-None-Match} is ignored, and the statuses
+ * always returned.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserApiController implements UserApi {
+
+  private final AccreditationStatusReader accreditationStatusReader;
+
+  private final MeterRegistry meterRegistry;
+
+  /** The latency of the status requests, under the same name as for the servlet variant */
+  private final Timer getStatusesTimer;
+
+  public ReactiveUserApiController(
+      AccreditationStatusReader accreditationStatusReader, MeterRegistry meterRegistry) {
+    this.accreditationStatusReader = accreditationStatusReader;
+    this.meterRegistry = meterRegistry;
+    this.getStatusesTimer =
+        Timer.builder("accreditation.requests")
+            .description("Latency of the accreditation API operations")
+            .tag("operation", "get_statuses")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<ResponseEntity<AccreditationStatusResponse>> getAccreditationStatuses(
+      String userId, String ifNoneMatch, ServerWebExchange exchange) {
+    return Mono.defer(
+        () -> {
+          Timer.Sample sample = Timer.start(meterRegistry);
+          return accreditationStatusReader
+              .findStatusesByUserId(userId)
+              .switchIfEmpty(
+                  Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")))
+              .map(
+                  statuses ->
+                      ResponseEntity.ok(AccreditationMapper.mapToStatusResponse(userId, statuses)))
+              .doFinally(signal -> sample.stop(getStatusesTimer));
+        });
+  }
+}
@@ -0,0 +1,35 @@
+package com.yieldstreet.accreditation.reader;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * A read-only process serving {@code GET /user/{userId}/accreditation} without blocking: WebFlux
+ * on Netty, reading Postgres through R2DBC. It shares the database with the service ({@link
+ * com.yieldstreet.accreditation.Main}), which does all the writes, and needs neither Kafka nor
+ * JPA.
+ *
+ * <p>It is run from the same jar, with the {@code reader} profile ({@code application-reader.yml}).
+ * Like its components, it is reactive-only, and so skipped by the component scan of the service.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReaderMain {
+
+  public static void main(String[] args) {
+    new SpringApplicationBuilder(ReaderMain.class)
+        .web(WebApplicationType.REACTIVE)
+        .profiles("reader")
+        .run(args);
+  }
+
+  @Bean
+  public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+}
@@ -0,0 +1,41 @@
+package com.yieldstreet.accreditation.replay;
+
+import java.util.List;
+
+/**
+ * A partitioned log of serialized audit events, replayed by the {@link ReplayRunner}: the Kafka
+ * topic ({@link KafkaEventLog}), or a copy of it in local files ({@link FileEventLog}).
+ *
+ * <p>The events of a user are all in the same partition, in order, as they are keyed by user id.
+ */
+public interface EventLog {
+
+  /** @return the name of the log, under which the progress of its replay is recorded */
+  String name();
+
+  /** @return the partitions of the log */
+  List<Integer> partitions();
+
+  /**
+   * @param partition one of the {@link #partitions()}
+   * @param fromOffset the offset of the first event to read
+   * @return a reader of the events of the partition, up to the end of the partition as it is now
+   */
+  Reader open(int partition, long fromOffset);
+
+  /** An event as logged, not deserialized yet. */
+  record LoggedEvent(long offset, byte[] key, byte[] value) {}
+
+  /** Reads the events of one partition, from one thread. */
+  interface Reader extends AutoCloseable {
+
+    /**
+     * @param maxEvents the maximum number of events returned
+     * @return the next events, in order, or none once the end of the partition is reached
+     */
+    List<LoggedEvent> read(int maxEvents);
+
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,209 @@
+package com.yieldstreet.accreditation.replay;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An event log in local files, one per partition, named after the partition ({@code 0.log},
+ * {@code 1.log}...). Each file is a sequence of events, each the length of its key then the key,
+ * and the length of its value then the value (lengths as 4 byte integers, -1 for none). The offset
+ * of an event is its position in the file, from 0.
+ *
+ * <p>Selected with {@code yieldstreet.replay.source=file}, from the directory {@code
+ * yieldstreet.replay.file.directory}.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.replay.source", havingValue = "file")
+public class FileEventLog implements EventLog {
+
+  private static final Pattern FILE_NAME = Pattern.compile("(\\d+)\\.log");
+
+  private final Path directory;
+
+  public FileEventLog(@Value("${yieldstreet.replay.file.directory}") Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public String name() {
+    return "file:" + directory.toAbsolutePath().normalize();
+  }
+
+  @Override
+  public List<Integer> partitions() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> FILE_NAME.matcher(file.getFileName().toString()))
+          .filter(Matcher::matches)
+          .map(matcher -> Integer.parseInt(matcher.group(1)))
+          .sorted()
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to list the event log " + directory, e);
+    }
+  }
+
+  private Path file(int partition) {
+    return directory.resolve(partition + ".log");
+  }
+
+  @Override
+  public Reader open(int partition, long fromOffset) {
+    try {
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(file(partition)), 1 << 16));
+      FileReader reader = new FileReader(in);
+      reader.skip(fromOffset);
+      return reader;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read partition " + partition + " of " + directory, e);
+    }
+  }
+
+  /**
+   * @return an appender of events to the end of the partition, which is created if needed
+   */
+  public Appender appender(int partition) {
+    try {
+      Files.createDirectories(directory);
+      return new Appender(
+          new DataOutputStream(
+              new BufferedOutputStream(
+                  Files.newOutputStream(
+                      file(partition), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                  1 << 16)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write partition " + partition + " of " + directory, e);
+    }
+  }
+
+  private static final class FileReader implements Reader {
+
+    private final DataInputStream in;
+
+    private long offset;
+
+    private boolean end;
+
+    FileReader(DataInputStream in) {
+      this.in = in;
+    }
+
+    void skip(long events) throws IOException {
+      while (offset < events && !end) {
+        for (int field = 0; field < 2 && !end; field++) {
+          int length = readLength(field == 0);
+          if (length > 0) {
+            in.skipNBytes(length);
+          }
+        }
+        offset += end ? 0 : 1;
+      }
+    }
+
+    /** @return the length of the next field, -1 if it is null; sets {@link #end} at the end */
+    private int readLength(boolean startOfEvent) throws IOException {
+      try {
+        return in.readInt();
+      } catch (EOFException e) {
+        if (!startOfEvent) {
+          throw new IOException("Truncated event at offset " + offset, e);
+        }
+        end = true;
+        return -1;
+      }
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+      if (length < 0) {
+        return null;
+      }
+      byte[] bytes = in.readNBytes(length);
+      if (bytes.length < length) {
+        throw new IOException("Truncated event at offset " + offset);
+      }
+      return bytes;
+    }
+
+    @Override
+    public List<LoggedEvent> read(int maxEvents) {
+      List<LoggedEvent> events = new ArrayList<>(Math.min(maxEvents, 1024));
+      try {
+        while (events.size() < maxEvents && !end) {
+          int keyLength = readLength(true);
+          if (end) {
+            break;
+          }
+          byte[] key = readBytes(keyLength);
+          events.add(new LoggedEvent(offset++, key, readBytes(readLength(false))));
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return events;
+    }
+
+    @Override
+    public void close() {
+      try {
+        in.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /** Appends events to a partition, as they were logged. */
+  public static final class Appender implements AutoCloseable {
+
+    private final DataOutputStream out;
+
+    private Appender(DataOutputStream out) {
+      this.out = out;
+    }
+
+    public void append(byte[] key, byte[] value) {
+      try {
+        writeField(key);
+        writeField(value);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void writeField(byte[] field) throws IOException {
+      if (field == null) {
+        out.writeInt(-1);
+      } else {
+        out.writeInt(field.length);
+        out.write(field);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        out.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.audit.KafkaOutboxPublisher;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The audit topic, read with one consumer per partition, assigned rather than subscribed: the
+ * offsets are recorded in the database with the events applied, not committed to Kafka.
+ *
+ * <p>Selected with {@code yieldstreet.replay.source=kafka}.
+ */
+@Component
+@ConditionalOnProperty(name = "yieldstreet.replay.source", havingValue = "kafka")
+public class KafkaEventLog implements EventLog {
+
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+  private static final int MAX_POLL_RECORDS = 10_000;
+
+  private final String brokers;
+
+  private final String topic;
+
+  private final int fetchMaxBytes;
+
+  public KafkaEventLog(
+      @Value("${spring.cloud.stream.kafka.binder.brokers:localhost}") String brokers,
+      @Value("${yieldstreet.audit.topic:accreditations}") String topic,
+      @Value("${yieldstreet.replay.kafka.fetch_max_bytes:52428800}") int fetchMaxBytes) {
+    this.brokers = KafkaOutboxPublisher.withDefaultPort(brokers);
+    this.topic = topic;
+    this.fetchMaxBytes = fetchMaxBytes;
+  }
+
+  @Override
+  public String name() {
+    return "kafka:" + topic;
+  }
+
+  private KafkaConsumer<byte[], byte[]> consumer(int maxPollRecords) {
+    Map<String, Object> config =
+        Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+            ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords,
+            ConsumerConfig.FETCH_MAX_BYTES_CONFIG, fetchMaxBytes,
+            ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, fetchMaxBytes);
+    return new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+  }
+
+  @Override
+  public List<Integer> partitions() {
+    try (KafkaConsumer<byte[], byte[]> consumer = consumer(1)) {
+      return consumer.partitionsFor(topic).stream().map(PartitionInfo::partition).sorted().toList();
+    }
+  }
+
+  @Override
+  public Reader open(int partition, long fromOffset) {
+    TopicPartition topicPartition = new TopicPartition(topic, partition);
+    KafkaConsumer<byte[], byte[]> consumer = consumer(MAX_POLL_RECORDS);
+    consumer.assign(List.of(topicPartition));
+    // events older than the retention of the topic are gone: start from the oldest one left
+    long beginning = consumer.beginningOffsets(List.of(topicPartition)).get(topicPartition);
+    consumer.seek(topicPartition, Math.max(fromOffset, beginning));
+    long end = consumer.endOffsets(List.of(topicPartition)).get(topicPartition);
+    return new KafkaReader(consumer, topicPartition, end);
+  }
+
+  private static final class KafkaReader implements Reader {
+
+    private final KafkaConsumer<byte[], byte[]> consumer;
+
+    private final TopicPartition partition;
+
+    /** The end of the partition when the reader was opened, where it stops */
+    private final long end;
+
+    /** The events polled but not read yet */
+    private final Deque<LoggedEvent> polled = new ArrayDeque<>();
+
+    KafkaReader(KafkaConsumer<byte[], byte[]> consumer, TopicPartition partition, long end) {
+      this.consumer = consumer;
+      this.partition = partition;
+      this.end = end;
+    }
+
+    @Override
+    public List<LoggedEvent> read(int maxEvents) {
+      while (polled.isEmpty() && consumer.position(partition) < end) {
+        for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+          if (record.offset() < end) {
+            polled.add(new LoggedEvent(record.offset(), record.key(), record.value()));
+          }
+        }
+      }
+      List<LoggedEvent> events = new ArrayList<>(Math.min(maxEvents, polled.size()));
+      while (events.size() < maxEvents && !polled.isEmpty()) {
+        events.add(polled.poll());
+      }
+      return events;
+    }
+
+    @Override
+    public void close() {
+      consumer.close();
+    }
+  }
+}
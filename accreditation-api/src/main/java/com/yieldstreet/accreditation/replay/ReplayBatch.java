@@ -0,0 +1,224 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.mappers.AccreditationTypeMapper;
+import com.yieldstreet.accreditation.mappers.StatusMapper;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A batch of audit events folded into the rows to write: the users, the accreditations created by
+ * the batch in their latest state, and the latest status of the accreditations created before it.
+ * The rows are written by the {@link ReplayRepository}, a few statements per batch however many
+ * events it has.
+ *
+ * <p>The timestamps are truncated to microseconds, the precision of Postgres, so that an event
+ * replayed twice finds the row as it left it.
+ *
+ * <p>A user has at most one PENDING accreditation, but the topic may hold the creation of a second
+ * one before the first was failed, as V8 only failed the older ones when it created the index
+ * enforcing it. The older one is failed when the newer one is created, as V8 did, and counted as
+ * {@link #superseded() superseded}.
+ */
+public class ReplayBatch {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplayBatch.class);
+
+  /** The users created by the batch, with the time of their first accreditation */
+  private final Map<String, OffsetDateTime> users = new LinkedHashMap<>();
+
+  private final Map<UUID, NewAccreditation> created = new LinkedHashMap<>();
+
+  private final Map<UUID, StatusUpdate> updated = new LinkedHashMap<>();
+
+  /** The latest accreditation created by the batch for each user */
+  private final Map<String, UUID> latestCreated = new HashMap<>();
+
+  private final DocumentStore documentStore;
+
+  private int events;
+
+  private int skipped;
+
+  private int superseded;
+
+  /**
+   * @param documentStore where the document content of the version 1 events is stored, since the
+   *     accreditations only reference it
+   */
+  public ReplayBatch(DocumentStore documentStore) {
+    this.documentStore = documentStore;
+  }
+
+  public static ReplayBatch of(List<AccreditationStateChange> stateChanges, DocumentStore documentStore) {
+    ReplayBatch batch = new ReplayBatch(documentStore);
+    stateChanges.forEach(batch::add);
+    return batch;
+  }
+
+  /** A new accreditation, with its status as of the end of the batch. */
+  public record NewAccreditation(
+      UUID id,
+      String userId,
+      Accreditation.AccreditationType type,
+      String documentName,
+      String documentMimeType,
+      String documentHash,
+      long documentSize,
+      Accreditation.AccreditationStatus status,
+      OffsetDateTime createdTs,
+      OffsetDateTime updatedTs,
+      int version) {
+
+    NewAccreditation withStatus(Accreditation.AccreditationStatus status, OffsetDateTime updatedTs) {
+      return new NewAccreditation(
+          id, userId, type, documentName, documentMimeType, documentHash, documentSize,
+          status, createdTs, updatedTs, version + 1);
+    }
+  }
+
+  /** The latest status of an existing accreditation, after {@code updates} changes. */
+  public record StatusUpdate(
+      UUID id, Accreditation.AccreditationStatus status, OffsetDateTime updatedTs, int updates) {}
+
+  public void add(AccreditationStateChange stateChange) {
+    events++;
+    UUID id = UUID.fromString(stateChange.accreditationId());
+    OffsetDateTime timestamp = stateChange.timestamp().truncatedTo(ChronoUnit.MICROS);
+    Accreditation.AccreditationStatus status = StatusMapper.mapToDatabaseStatus(stateChange.status());
+
+    if (stateChange.action() == AccreditationStateChange.Action.CREATE) {
+      NewAccreditation accreditation = newAccreditation(id, stateChange, status, timestamp);
+      if (accreditation == null) {
+        skipped++;
+        logger.warn("Skipping the creation of {} without a document", id);
+        return;
+      }
+      users.putIfAbsent(stateChange.userId(), timestamp);
+      UUID previous = latestCreated.put(stateChange.userId(), id);
+      if (accreditation.status() == Accreditation.AccreditationStatus.PENDING && previous != null) {
+        supersede(created.get(previous), timestamp);
+      }
+      created.put(id, accreditation);
+      return;
+    }
+
+    NewAccreditation accreditation = created.get(id);
+    if (accreditation != null) {
+      created.put(id, accreditation.withStatus(status, timestamp));
+    } else {
+      StatusUpdate previous = updated.get(id);
+      int updates = previous == null ? 1 : previous.updates() + 1;
+      updated.put(id, new StatusUpdate(id, status, timestamp, updates));
+    }
+  }
+
+  /** Fails the given accreditation, if still PENDING, as a newer one of its user was created. */
+  private void supersede(NewAccreditation accreditation, OffsetDateTime timestamp) {
+    if (accreditation.status() != Accreditation.AccreditationStatus.PENDING) {
+      return;
+    }
+    superseded++;
+    logger.warn(
+        "Failing the PENDING accreditation {} of user {}, superseded by a newer one",
+        accreditation.id(),
+        accreditation.userId());
+    created.put(
+        accreditation.id(),
+        accreditation.withStatus(Accreditation.AccreditationStatus.FAILED, timestamp));
+  }
+
+  private NewAccreditation newAccreditation(
+      UUID id,
+      AccreditationStateChange stateChange,
+      Accreditation.AccreditationStatus status,
+      OffsetDateTime timestamp) {
+    CreateAccreditationRequest request = stateChange.request();
+    Document requestDocument = request == null ? null : request.getDocument();
+    AccreditationType type =
+        stateChange.accreditationType() != null || request == null
+            ? stateChange.accreditationType()
+            : request.getAccreditationType();
+    if (type == null) {
+      return null;
+    }
+
+    String name;
+    String mimeType;
+    DocumentReference reference = null;
+    if (requestDocument != null && requestDocument.getContent() != null) {
+      // the content is only in the event: it may not be in the document store yet
+      reference =
+          documentStore.store(
+              Base64.getDecoder().decode(requestDocument.getContent()),
+              requestDocument.getMimeType());
+    }
+    if (stateChange.document() != null) {
+      name = stateChange.document().name();
+      mimeType = stateChange.document().mimeType();
+      reference = new DocumentReference(stateChange.document().hash(), stateChange.document().size());
+    } else if (reference != null) {
+      name = requestDocument.getName();
+      mimeType = requestDocument.getMimeType();
+    } else {
+      return null;
+    }
+
+    return new NewAccreditation(
+        id,
+        stateChange.userId(),
+        AccreditationTypeMapper.mapAccreditationType(type),
+        name,
+        mimeType,
+        reference.hash(),
+        reference.size(),
+        status,
+        timestamp,
+        timestamp,
+        0);
+  }
+
+  /** @return the external ids of the users of the new accreditations, with their first one */
+  public Map<String, OffsetDateTime> users() {
+    return users;
+  }
+
+  public Collection<NewAccreditation> created() {
+    return created.values();
+  }
+
+  public Collection<StatusUpdate> updated() {
+    return updated.values();
+  }
+
+  /** @return the number of events in the batch */
+  public int events() {
+    return events;
+  }
+
+  /** @return the number of events which could not be applied */
+  public int skipped() {
+    return skipped;
+  }
+
+  /** @return the number of PENDING accreditations of the batch failed by a newer one of their user */
+  public int superseded() {
+    return superseded;
+  }
+}
@@ -0,0 +1,34 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Rebuilds the database from the audit events, with the {@link ReplayRunner}, then exits. It
+ * migrates the schema like the service ({@link com.yieldstreet.accreditation.Main}), but needs
+ * neither the API nor the audit producer.
+ *
+ * <p>It is run from the same jar, with the {@code replay} profile ({@code application-replay.yml}).
+ * The document store is the same as the service's, where the content of the version 1 events is
+ * stored.
+ */
+@SpringBootApplication(
+    scanBasePackageClasses = {ReplayMain.class, DocumentStore.class},
+    exclude = R2dbcAutoConfiguration.class)
+@ConditionalOnProperty(name = "yieldstreet.replay.source")
+public class ReplayMain {
+
+  public static void main(String[] args) {
+    System.exit(
+        SpringApplication.exit(
+            new SpringApplicationBuilder(ReplayMain.class)
+                .web(WebApplicationType.NONE)
+                .profiles("replay")
+                .run(args)));
+  }
+}
@@ -0,0 +1,219 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Writes the {@link ReplayBatch batches} of replayed events, and the checkpoints of the replay.
+ *
+ * <p>Every statement is idempotent, so replaying events already applied, e.g. into a database
+ * restored from a backup, leaves the rows as they were: users and accreditations are only
+ * inserted if missing, and a status only replaces an older one.
+ *
+ * <p>A new PENDING accreditation fails the older PENDING one of its user, if any, rather than
+ * conflicting with the index allowing one per user: the topic may hold both creations, see {@link
+ * ReplayBatch}. Each is logged, and counted as superseded.
+ */
+@Repository
+@Profile("replay")
+public class ReplayRepository {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplayRepository.class);
+
+  private static final String INSERT_USER =
+      "INSERT INTO users (user_id, created_ts) VALUES (?, ?) ON CONFLICT (user_id) DO NOTHING";
+
+  /**
+   * Inserts a live accreditation, unless it exists. An archived one is only terminal and old, so
+   * the events replayed are not newer: it is left as it is.
+   */
+  private static final String INSERT_ACCREDITATION =
+      "INSERT INTO accreditations (id, user_id, type, document_name, document_mime_type,"
+          + " document_hash, document_size, status, created_ts, updated_ts, version)"
+          + " SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?"
+          + " WHERE NOT EXISTS (SELECT 1 FROM accreditations WHERE id = ? AND archived)"
+          + " ON CONFLICT (id, archived) DO UPDATE SET status = EXCLUDED.status,"
+          + " updated_ts = EXCLUDED.updated_ts, version = EXCLUDED.version"
+          + " WHERE accreditations.updated_ts < EXCLUDED.updated_ts";
+
+  /**
+   * Fails the PENDING accreditations older than the new ones of their user, as V8 did, given the
+   * internal user ids, the ids and the creation times of the new ones.
+   */
+  private static final String FAIL_SUPERSEDED =
+      "UPDATE accreditations a SET status = 'FAILED', updated_ts = n.created_ts,"
+          + " version = a.version + 1"
+          + " FROM unnest(?::int[], ?::uuid[], ?::timestamptz[]) AS n (user_id, id, created_ts)"
+          + " WHERE a.user_id = n.user_id AND a.status = 'PENDING' AND NOT a.archived"
+          + " AND a.id <> n.id AND a.created_ts < n.created_ts"
+          + " RETURNING a.id, n.id AS superseded_by";
+
+  private static final String UPDATE_STATUS =
+      "UPDATE accreditations SET status = ?, updated_ts = ?, version = version + ?"
+          + " WHERE id = ? AND updated_ts < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ReplayRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * The outcome of writing a batch.
+   *
+   * @param notApplied the number of status updates which found no older accreditation to update
+   * @param superseded the number of PENDING accreditations failed by a newer one of their user
+   */
+  public record WriteResult(int notApplied, int superseded) {}
+
+  /**
+   * Writes a batch, as part of the current transaction. The status updates are written before the
+   * new accreditations, which may only be PENDING once the previous one of their user is not.
+   */
+  public WriteResult write(ReplayBatch batch) {
+    Map<String, Integer> userIds = insertUsers(batch);
+
+    int notApplied = 0;
+    if (!batch.updated().isEmpty()) {
+      int[][] counts =
+          jdbcTemplate.batchUpdate(
+              UPDATE_STATUS,
+              batch.updated(),
+              batch.updated().size(),
+              (ps, update) -> {
+                ps.setString(1, update.status().name());
+                ps.setObject(2, update.updatedTs());
+                ps.setInt(3, update.updates());
+                ps.setObject(4, update.id());
+                ps.setObject(5, update.updatedTs());
+              });
+      for (int[] chunk : counts) {
+        for (int count : chunk) {
+          notApplied += count == 0 ? 1 : 0;
+        }
+      }
+    }
+
+    int superseded = failSuperseded(batch, userIds);
+
+    if (!batch.created().isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          INSERT_ACCREDITATION,
+          batch.created(),
+          batch.created().size(),
+          (ps, accreditation) -> {
+            ps.setObject(1, accreditation.id());
+            ps.setInt(2, userIds.get(accreditation.userId()));
+            ps.setString(3, accreditation.type().name());
+            ps.setString(4, accreditation.documentName());
+            ps.setString(5, accreditation.documentMimeType());
+            ps.setString(6, accreditation.documentHash());
+            ps.setLong(7, accreditation.documentSize());
+            ps.setString(8, accreditation.status().name());
+            ps.setObject(9, accreditation.createdTs());
+            ps.setObject(10, accreditation.updatedTs());
+            ps.setInt(11, accreditation.version());
+            ps.setObject(12, accreditation.id());
+          });
+    }
+    return new WriteResult(notApplied, superseded);
+  }
+
+  /**
+   * Fails the older PENDING accreditation of the user of each new PENDING one, of which a batch
+   * holds at most one per user.
+   *
+   * @return the number of accreditations failed
+   */
+  private int failSuperseded(ReplayBatch batch, Map<String, Integer> userIds) {
+    List<ReplayBatch.NewAccreditation> pending =
+        batch.created().stream()
+            .filter(created -> created.status() == Accreditation.AccreditationStatus.PENDING)
+            .toList();
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    Integer[] users =
+        pending.stream().map(created -> userIds.get(created.userId())).toArray(Integer[]::new);
+    UUID[] ids = pending.stream().map(ReplayBatch.NewAccreditation::id).toArray(UUID[]::new);
+    Timestamp[] createdTs =
+        pending.stream()
+            .map(created -> Timestamp.from(created.createdTs().toInstant()))
+            .toArray(Timestamp[]::new);
+    List<UUID> failed = new ArrayList<>();
+    jdbcTemplate.query(
+        FAIL_SUPERSEDED,
+        ps -> {
+          ps.setArray(1, ps.getConnection().createArrayOf("int", users));
+          ps.setArray(2, ps.getConnection().createArrayOf("uuid", ids));
+          ps.setArray(3, ps.getConnection().createArrayOf("timestamptz", createdTs));
+        },
+        (RowCallbackHandler)
+            rs -> {
+              failed.add(rs.getObject("id", UUID.class));
+              logger.warn(
+                  "Failing the PENDING accreditation {}, superseded by {} of the same user",
+                  rs.getObject("id"),
+                  rs.getObject("superseded_by"));
+            });
+    return failed.size();
+  }
+
+  /** @return the internal ids of the users of the batch, created if needed */
+  private Map<String, Integer> insertUsers(ReplayBatch batch) {
+    Map<String, Integer> userIds = new HashMap<>();
+    if (batch.users().isEmpty()) {
+      return userIds;
+    }
+    jdbcTemplate.batchUpdate(
+        INSERT_USER,
+        batch.users().entrySet(),
+        batch.users().size(),
+        (ps, user) -> {
+          ps.setString(1, user.getKey());
+          ps.setObject(2, user.getValue());
+        });
+    String[] externalIds = batch.users().keySet().toArray(String[]::new);
+    jdbcTemplate.query(
+        "SELECT id, user_id FROM users WHERE user_id = ANY (?)",
+        ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", externalIds)),
+        (RowCallbackHandler) rs -> userIds.put(rs.getString("user_id"), rs.getInt("id")));
+    return userIds;
+  }
+
+  /** @return the offset of the first event of the partition not applied yet, if any was */
+  public Optional<Long> findNextOffset(String source, int partition) {
+    return jdbcTemplate
+        .queryForList(
+            "SELECT next_offset FROM replay_checkpoints WHERE source = ? AND partition = ?",
+            Long.class,
+            source,
+            partition)
+        .stream()
+        .findFirst();
+  }
+
+  /** Records the progress of the replay of a partition, as part of the current transaction. */
+  public void saveCheckpoint(String source, int partition, long nextOffset) {
+    jdbcTemplate.update(
+        "INSERT INTO replay_checkpoints (source, partition, next_offset) VALUES (?, ?, ?)"
+            + " ON CONFLICT (source, partition)"
+            + " DO UPDATE SET next_offset = EXCLUDED.next_offset, updated_ts = CURRENT_TIMESTAMP",
+        source,
+        partition,
+        nextOffset);
+  }
+}
@@ -0,0 +1,206 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeDeserializer;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rebuilds the accreditations from the audit events of an {@link EventLog}, for disaster recovery
+ * or to seed a new database, when the application runs with the {@code replay} profile ({@link
+ * ReplayMain}).
+ *
+ * <p>The partitions are replayed in parallel, by up to {@code yieldstreet.replay.threads}
+ * threads, each in batches of {@code yieldstreet.replay.batch_size} events. Each batch is one
+ * transaction, which also records the offset reached in the partition, so an interrupted replay
+ * resumes after the last batch applied. The events are replayed up to the end of each partition as
+ * of the start, and the events per second are logged every {@code
+ * yieldstreet.replay.progress_interval}. Events which cannot be read are skipped, and logged. The
+ * PENDING accreditations failed because a newer one of their user was created (see {@link
+ * ReplayBatch}) are logged, and counted as superseded.
+ */
+@Component
+@Profile("replay")
+public class ReplayRunner implements ApplicationRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplayRunner.class);
+
+  private final EventLog eventLog;
+
+  private final ReplayRepository replayRepository;
+
+  private final DocumentStore documentStore;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final AccreditationStateChangeDeserializer deserializer =
+      new AccreditationStateChangeDeserializer();
+
+  private final int threads;
+
+  private final int batchSize;
+
+  private final Duration progressInterval;
+
+  private final LongAdder replayed = new LongAdder();
+
+  private final LongAdder skipped = new LongAdder();
+
+  private final LongAdder superseded = new LongAdder();
+
+  public ReplayRunner(
+      EventLog eventLog,
+      ReplayRepository replayRepository,
+      DocumentStore documentStore,
+      TransactionTemplate transactionTemplate,
+      @Value("${yieldstreet.replay.threads:4}") int threads,
+      @Value("${yieldstreet.replay.batch_size:1000}") int batchSize,
+      @Value("${yieldstreet.replay.progress_interval:10s}") Duration progressInterval) {
+    this.eventLog = eventLog;
+    this.replayRepository = replayRepository;
+    this.documentStore = documentStore;
+    this.transactionTemplate = transactionTemplate;
+    this.threads = threads;
+    this.batchSize = batchSize;
+    this.progressInterval = progressInterval;
+  }
+
+  /**
+   * The outcome of a replay.
+   *
+   * @param events the events replayed
+   * @param skipped the events which could not be applied, or were already
+   * @param superseded the PENDING accreditations failed because a newer one of their user was
+   *     created
+   * @param elapsed the time taken
+   */
+  public record ReplayResult(long events, long skipped, long superseded, Duration elapsed) {
+
+    public double eventsPerSecond() {
+      return elapsed.isZero() ? 0 : events * 1e9 / elapsed.toNanos();
+    }
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws InterruptedException {
+    replay();
+  }
+
+  /** Replays all the partitions of the log, from their checkpoints. */
+  public ReplayResult replay() throws InterruptedException {
+    List<Integer> partitions = eventLog.partitions();
+    logger.info("Replaying {} partitions of {} with {} threads", partitions.size(), eventLog.name(), threads);
+
+    long start = System.nanoTime();
+    long replayedBefore = replayed.sum();
+    long skippedBefore = skipped.sum();
+    long supersededBefore = superseded.sum();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, Math.min(threads, partitions.size())), new CustomizableThreadFactory("replay-"));
+    List<Future<?>> replays = new ArrayList<>(partitions.size());
+    for (int partition : partitions) {
+      replays.add(executor.submit(() -> replayPartition(partition)));
+    }
+    executor.shutdown();
+
+    try {
+      while (!executor.awaitTermination(progressInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+        logProgress("Replayed", replayed.sum() - replayedBefore, System.nanoTime() - start);
+      }
+      for (Future<?> replay : replays) {
+        replay.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Replay of " + eventLog.name() + " failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    ReplayResult result =
+        new ReplayResult(
+            replayed.sum() - replayedBefore,
+            skipped.sum() - skippedBefore,
+            superseded.sum() - supersededBefore,
+            Duration.ofNanos(System.nanoTime() - start));
+    logProgress("Replay complete:", result.events(), result.elapsed().toNanos());
+    if (result.skipped() > 0) {
+      logger.warn("{} events could not be applied, or were already", result.skipped());
+    }
+    if (result.superseded() > 0) {
+      logger.warn(
+          "{} PENDING accreditations were failed, superseded by a newer one of their user",
+          result.superseded());
+    }
+    return result;
+  }
+
+  private void logProgress(String prefix, long events, long elapsedNanos) {
+    logger.info(
+        "{} {} events in {} s, {} events/s",
+        prefix,
+        events,
+        TimeUnit.NANOSECONDS.toSeconds(elapsedNanos),
+        Math.round(events * 1e9 / Math.max(1, elapsedNanos)));
+  }
+
+  private void replayPartition(int partition) {
+    String source = eventLog.name();
+    long from = replayRepository.findNextOffset(source, partition).orElse(0L);
+    logger.info("Replaying partition {} from offset {}", partition, from);
+
+    try (EventLog.Reader reader = eventLog.open(partition, from)) {
+      List<EventLog.LoggedEvent> events;
+      while (!(events = reader.read(batchSize)).isEmpty()) {
+        List<AccreditationStateChange> stateChanges = new ArrayList<>(events.size());
+        for (EventLog.LoggedEvent event : events) {
+          if (event.value() == null) {
+            continue;
+          }
+          try {
+            stateChanges.add(deserializer.deserialize(source, event.value()));
+          } catch (SerializationException e) {
+            logger.warn(
+                "Skipping the unreadable event at offset {} of partition {}: {}",
+                event.offset(),
+                partition,
+                e.getClass().getSimpleName());
+          }
+        }
+        long nextOffset = events.get(events.size() - 1).offset() + 1;
+
+        ReplayBatch batch = ReplayBatch.of(stateChanges, documentStore);
+        ReplayRepository.WriteResult written =
+            transactionTemplate.execute(
+                status -> {
+                  ReplayRepository.WriteResult result = replayRepository.write(batch);
+                  replayRepository.saveCheckpoint(source, partition, nextOffset);
+                  return result;
+                });
+        replayed.add(events.size());
+        skipped.add(batch.skipped() + written.notApplied() + events.size() - stateChanges.size());
+        superseded.add(batch.superseded() + written.superseded());
+      }
+    }
+    logger.info("Replayed partition {}", partition);
+  }
+}
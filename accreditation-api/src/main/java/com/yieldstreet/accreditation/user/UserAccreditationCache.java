@@ -0,0 +1,104 @@
+package com.yieldstreet.accreditation.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the accreditation statuses of the most recently read users, by external user id.
+ *
+ * <p>An entry is invalidated whenever an {@link AccreditationStateChange} of its user is sent: as
+ * soon as the change is committed when it comes from this instance, and when it is read back from
+ * the topic when it comes from another one. Entries also expire after {@code ttl}, which bounds
+ * how stale a missed invalidation can leave them.
+ *
+ * <p>With a replica, a load right after the invalidation may still read the replica from before
+ * the change, as it can be up to {@code max_lag} behind. Such users are invalidated once more after
+ * {@code max_lag}, so that what the load cached is only stale for that long rather than for the
+ * {@code ttl}.
+ */
+@Component
+public class UserAccreditationCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserAccreditationCache.class);
+
+  private final Cache<String, UserAccreditations> cache;
+
+  /** Runs the second invalidation of a changed user, or null without replica. */
+  private final Executor replicaCatchUp;
+
+  public UserAccreditationCache(
+      MeterRegistry meterRegistry,
+      @Value("${yieldstreet.cache.user_accreditations.max_size:10000}") long maxSize,
+      @Value("${yieldstreet.cache.user_accreditations.ttl:5m}") Duration ttl,
+      @Value("${yieldstreet.datasource.replica.enabled:false}") boolean replicaEnabled,
+      @Value("${yieldstreet.datasource.replica.max_lag:5s}") Duration replicaMaxLag) {
+    this.cache =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    this.replicaCatchUp =
+        replicaEnabled
+            ? CompletableFuture.delayedExecutor(replicaMaxLag.toNanos(), TimeUnit.NANOSECONDS)
+            : null;
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "user_accreditations");
+  }
+
+  /**
+   * Returns the cached statuses of a user, loading them if needed. Concurrent misses of the same
+   * user share a single load, and nothing is cached if the load fails.
+   */
+  public UserAccreditations get(String userId, Function<String, UserAccreditations> loader) {
+    return cache.get(userId, loader);
+  }
+
+  public void invalidate(String userId) {
+    cache.invalidate(userId);
+  }
+
+  /**
+   * Invalidates the user of a change made by this instance, once it is committed: invalidating
+   * earlier would let a concurrent read cache the data being replaced.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStateChange(AccreditationStateChange stateChange) {
+    invalidateChanged(stateChange.userId());
+  }
+
+  /** Invalidates the users changed by any instance, as read from the topic (keyed by user id). */
+  @Bean
+  public Consumer<Message<byte[]>> userAccreditationInvalidation() {
+    return message -> {
+      Object key = message.getHeaders().get(KafkaHeaders.RECEIVED_MESSAGE_KEY);
+      if (key instanceof byte[] userId) {
+        invalidateChanged(new String(userId, StandardCharsets.UTF_8));
+      } else {
+        logger.warn("Ignoring accreditation change without a user id key: {}", key);
+      }
+    };
+  }
+
+  /** Invalidates a changed user, and again once the replica caught up with the change. */
+  private void invalidateChanged(String userId) {
+    invalidate(userId);
+    if (replicaCatchUp != null) {
+      replicaCatchUp.execute(() -> invalidate(userId));
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.yieldstreet.accreditation.user;
+
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
+
+import java.util.List;
+
+/**
+ * The statuses of the accreditations of a user, in creation order, with their stamp, both read in
+ * the same snapshot.
+ */
+public record UserAccreditations(
+    UserAccreditationsStamp stamp, List<AccreditationStatusView> statuses) {
+
+  public UserAccreditations {
+    statuses = List.copyOf(statuses);
+  }
+}
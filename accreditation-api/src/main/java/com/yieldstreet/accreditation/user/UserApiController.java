@@ -1,19 +1,20 @@
 package com.yieldstreet.accreditation.user;
 
 import com.yieldstreet.accreditation.mappers.AccreditationMapper;
-import com.yieldstreet.accreditation.mappers.AccreditationTypeMapper;
-import com.yieldstreet.accreditation.mappers.StatusMapper;
-import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
 import com.yieldstreet.api.UserApi;
 import com.yieldstreet.model.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @RestController
 public class UserApiController implements UserApi {
@@ -22,26 +23,78 @@ public class UserApiController implements UserApi {
 
   private final UserService userService;
 
-  public UserApiController(UserService userService) {
+  /** The latency of the status requests, cache hits included */
+  private final Timer getStatusesTimer;
+
+  public UserApiController(UserService userService, MeterRegistry meterRegistry) {
     this.userService = userService;
+    this.getStatusesTimer =
+        Timer.builder("accreditation.requests")
+            .description("Latency of the accreditation API operations")
+            .tag("operation", "get_statuses")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
   }
 
+  /**
+   * Returns the statuses with a strong ETag derived from their stamp. When the request has an
+   * {@code If-None-Match}, the current stamp is read first, and a match is answered with a 304
+   * without loading the statuses. The clients are told to always revalidate the statuses they
+   * keep.
+   */
   @Override
-  public ResponseEntity<AccreditationStatusResponse> getAccreditationStatuses(String userId) {
+  public ResponseEntity<AccreditationStatusResponse> getAccreditationStatuses(
+      String userId, String ifNoneMatch) {
     logger.info("Getting accreditations for user {}", userId);
-    List<Accreditation> userAccreditations = userService.getUserAccreditations(userId);
-
-    AccreditationStatusResponse response = new AccreditationStatusResponse();
-    response.setUserId(userId);
-
-    Map<String, AccreditationStatusDetails> accreditations =
-        userAccreditations.stream()
-            .collect(
-                Collectors.toMap(
-                    accreditation -> accreditation.getId().toString(), AccreditationMapper::mapToStatusDetails));
+    return getStatusesTimer.record(
+        () -> {
+          UserAccreditations userAccreditations;
+          if (ifNoneMatch == null) {
+            userAccreditations = userService.getUserAccreditations(userId);
+          } else {
+            UserAccreditationsStamp stamp = userService.getUserAccreditationsStamp(userId);
+            String etag = etag(stamp);
+            if (matches(ifNoneMatch, etag)) {
+              return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                  .cacheControl(CacheControl.noCache())
+                  .eTag(etag)
+                  .build();
+            }
+            userAccreditations = userService.getUserAccreditations(userId, stamp);
+          }
+          return ResponseEntity.ok()
+              .cacheControl(CacheControl.noCache())
+              .eTag(etag(userAccreditations.stamp()))
+              .body(
+                  AccreditationMapper.mapToStatusResponse(
+                      userId, userAccreditations.statuses()));
+        });
+  }
 
-    response.setAccreditationStatuses(accreditations);
+  private static String etag(UserAccreditationsStamp stamp) {
+    long lastUpdated =
+        stamp.lastUpdatedTs() == null
+            ? 0
+            : ChronoUnit.MICROS.between(Instant.EPOCH, stamp.lastUpdatedTs().toInstant());
+    return "\""
+        + stamp.count()
+        + "-"
+        + Long.toHexString(lastUpdated)
+        + "-"
+        + stamp.versions()
+        + "\"";
+  }
 
-    return ResponseEntity.ok(response);
+  /** Compares the ETags of an {@code If-None-Match} to ours, weakly as the header requires. */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*")
+          || candidate.equals(etag)
+          || (candidate.startsWith("W/") && candidate.substring(2).equals(etag))) {
+        return true;
+      }
+    }
+    return false;
   }
 }
@@ -1,12 +1,17 @@
 package com.yieldstreet.accreditation.user;
 
-import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.config.ReplicaRouting;
 import com.yieldstreet.accreditation.persistence.AccreditationRepository;
-import com.yieldstreet.accreditation.persistence.UserRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.List;
@@ -16,26 +21,86 @@ public class UserService {
 
   private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-  private final UserRepository userRepository;
+  private final UserIdResolver userIdResolver;
 
   private final AccreditationRepository accreditationRepository;
 
+  private final UserAccreditationCache userAccreditationCache;
+
+  private final ReplicaRouting replicaRouting;
+
+  private final TransactionTemplate readOnlyTransaction;
+
   public UserService(
-      UserRepository userRepository, AccreditationRepository accreditationRepository) {
-    this.userRepository = userRepository;
+      UserIdResolver userIdResolver,
+      AccreditationRepository accreditationRepository,
+      UserAccreditationCache userAccreditationCache,
+      ReplicaRouting replicaRouting,
+      PlatformTransactionManager transactionManager) {
+    this.userIdResolver = userIdResolver;
     this.accreditationRepository = accreditationRepository;
+    this.userAccreditationCache = userAccreditationCache;
+    this.replicaRouting = replicaRouting;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    // the statuses and their stamp are read in the same snapshot
+    this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
   }
 
-  public List<Accreditation> getUserAccreditations(String userId) {
+  /**
+   * Retrieves the statuses of the accreditations of a user, in creation order, from the cache if
+   * possible. Only the columns needed for the status are read, so the (potentially large)
+   * documents never leave the database.
+   *
+   * <p>They are read in a read-only transaction, from the replica if there is one (see {@link
+   * ReplicaRouting}).
+   */
+  public UserAccreditations getUserAccreditations(String userId) {
     logger.info("Getting accreditations for user {}", userId);
-    List<Accreditation> accreditations = accreditationRepository.findByUserUserIdOrderByCreatedTs(userId);
+    return userAccreditationCache.get(userId, this::loadUserAccreditations);
+  }
 
-    logger.info("Got {} entries", accreditations.size());
-    if (accreditations.isEmpty() && userRepository.findByUserId(userId).isEmpty()) {
-      throw new UserNotFound();
+  /**
+   * Retrieves the statuses of the accreditations of a user, as {@link #getUserAccreditations},
+   * reloading them if the cached ones are not those of the given, current, stamp.
+   */
+  public UserAccreditations getUserAccreditations(String userId, UserAccreditationsStamp stamp) {
+    UserAccreditations accreditations = getUserAccreditations(userId);
+    if (accreditations.stamp().equals(stamp)) {
+      return accreditations;
     }
+    logger.info("Reloading the stale accreditations of user {}", userId);
+    userAccreditationCache.invalidate(userId);
+    return getUserAccreditations(userId);
+  }
 
-    return accreditations;
+  /**
+   * Reads the current stamp of the accreditations of a user, which tells whether they changed
+   * without reading them. It is never cached, and read as the statuses are.
+   */
+  public UserAccreditationsStamp getUserAccreditationsStamp(String userId) {
+    return replicaRouting.read(
+        userId,
+        () ->
+            readOnlyTransaction.execute(
+                status ->
+                    accreditationRepository.findStampByUserInternalId(
+                        userIdResolver.resolve(userId).orElseThrow(UserNotFound::new))));
+  }
+
+  private UserAccreditations loadUserAccreditations(String userId) {
+    return replicaRouting.read(
+        userId, () -> readOnlyTransaction.execute(status -> readUserAccreditations(userId)));
+  }
+
+  private UserAccreditations readUserAccreditations(String userId) {
+    int id = userIdResolver.resolve(userId).orElseThrow(UserNotFound::new);
+    List<AccreditationStatusView> accreditations =
+        accreditationRepository.findStatusesByUserInternalId(id);
+
+    logger.info("Got {} entries", accreditations.size());
+    return new UserAccreditations(
+        accreditationRepository.findStampByUserInternalId(id), accreditations);
   }
 
   @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "User not found")
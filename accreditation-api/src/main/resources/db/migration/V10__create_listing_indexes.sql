@@ -0,0 +1,6 @@
+-- the admin listing reads the accreditations in (created_ts, id) order, starting after the last row of the previous
+-- page: each index serves a filter (none, status or type), with the created_ts range and the page start as its bounds.
+-- A filter on both a status and a type uses either of their indexes, skipping the rows which do not match the other.
+CREATE INDEX accreditations_created_ts_id_idx ON accreditations (created_ts, id);
+CREATE INDEX accreditations_status_created_ts_id_idx ON accreditations (status, created_ts, id);
+CREATE INDEX accreditations_type_created_ts_id_idx ON accreditations (type, created_ts, id);
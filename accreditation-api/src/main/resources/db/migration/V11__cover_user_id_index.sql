@@ -0,0 +1,4 @@
+-- the stamp of the accreditations of a user (their count, latest updated_ts and sum of versions), read by the
+-- conditional GET of their statuses, is read from this index alone: it replaces the plain index on user_id.
+CREATE INDEX accreditations_user_id_stamp_idx ON accreditations (user_id) INCLUDE (updated_ts, version);
+DROP INDEX accreditations_user_id_idx;
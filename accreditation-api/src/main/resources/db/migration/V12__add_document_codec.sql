@@ -0,0 +1,11 @@
+-- the content of the documents is encoded by the service (DocumentCodec), which records how: V13
+-- (DocumentCodecMigration) encodes the existing documents, then V14 requires it
+ALTER TABLE documents
+    ADD COLUMN codec varchar(16),
+    -- stored out of line but not compressed by Postgres, which would only spend time on the encoded content
+    ALTER COLUMN content SET STORAGE EXTERNAL;
+
+COMMENT
+ON COLUMN documents.codec IS 'How the content is encoded: none, lz4 or zstd.';
+COMMENT
+ON COLUMN documents.content IS 'The bytes of the document, encoded with the codec.';
@@ -0,0 +1,3 @@
+-- V13 (DocumentCodecMigration) has encoded every document by now
+ALTER TABLE documents
+    ALTER COLUMN codec SET NOT NULL;
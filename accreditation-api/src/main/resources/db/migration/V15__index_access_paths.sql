@@ -0,0 +1,14 @@
+-- the statuses of a user are read in creation order, with their stamp (count, latest updated_ts and sum of versions),
+-- and the users of a batch which have an accreditation in a status are looked up: all from this index alone, without
+-- visiting the rows or sorting. It replaces the stamp index of V11.
+CREATE INDEX accreditations_user_id_created_ts_idx ON accreditations (user_id, created_ts)
+    INCLUDE (id, type, status, updated_ts, version);
+DROP INDEX accreditations_user_id_stamp_idx;
+
+-- the expiry job looks for the CONFIRMED accreditations last updated before the cutoff: usually none or a few, found
+-- here rather than by reading all the CONFIRMED rows. A large backlog is still walked in id order, by the index of V6.
+CREATE INDEX accreditations_confirmed_updated_ts_idx ON accreditations (updated_ts, id) WHERE status = 'CONFIRMED';
+
+-- the listing indexes of V10 start with the status and the type, and nothing else filters on them alone
+DROP INDEX accreditations_status_idx;
+DROP INDEX accreditations_type_idx;
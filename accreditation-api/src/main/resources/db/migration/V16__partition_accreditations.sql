@@ -0,0 +1,54 @@
+-- the accreditations are partitioned by whether they are archived: the EXPIRED and FAILED accreditations, which never
+-- change again, are moved to accreditations_archive once old enough (AccreditationArchivalJob), and the service works
+-- on the much smaller accreditations_live. Both are read through accreditations, so the reads see the archived ones
+-- too. A status change never moves a row across partitions, which concurrent updates of the row could not follow.
+ALTER TABLE accreditations ADD COLUMN archived boolean NOT NULL DEFAULT false;
+
+-- the table becomes the live partition, keeping its indexes, which are attached to those of the partitioned table
+-- below; the unique ones are rebuilt, as they must include the partition key
+ALTER TABLE accreditations RENAME TO accreditations_live;
+ALTER TABLE accreditations_live RENAME CONSTRAINT accreditations_user_id_fkey TO accreditations_live_user_id_fkey;
+ALTER TABLE accreditations_live DROP CONSTRAINT accreditations_pkey;
+DROP INDEX accreditations_pending_user_id_idx;
+ALTER INDEX accreditations_confirmed_id_idx RENAME TO accreditations_live_confirmed_id_idx;
+ALTER INDEX accreditations_created_ts_id_idx RENAME TO accreditations_live_created_ts_id_idx;
+ALTER INDEX accreditations_status_created_ts_id_idx RENAME TO accreditations_live_status_created_ts_id_idx;
+ALTER INDEX accreditations_type_created_ts_id_idx RENAME TO accreditations_live_type_created_ts_id_idx;
+ALTER INDEX accreditations_user_id_created_ts_idx RENAME TO accreditations_live_user_id_created_ts_idx;
+ALTER INDEX accreditations_confirmed_updated_ts_idx RENAME TO accreditations_live_confirmed_updated_ts_idx;
+
+CREATE TABLE accreditations
+(
+    LIKE accreditations_live INCLUDING DEFAULTS INCLUDING CONSTRAINTS
+) PARTITION BY LIST (archived);
+ALTER TABLE accreditations ATTACH PARTITION accreditations_live FOR VALUES IN (false);
+-- only terminal accreditations are archived: the constraint lets the queries on the other statuses skip the partition
+CREATE TABLE accreditations_archive PARTITION OF accreditations
+(
+    CONSTRAINT accreditations_archive_status_check CHECK (status IN ('EXPIRED', 'FAILED'))
+) FOR VALUES IN (true);
+
+-- the ids are unique by themselves, being generated by the service, but a key must include the partition key. So must
+-- the index of the PENDING accreditations, which are never archived: it still allows one per user.
+ALTER TABLE accreditations ADD PRIMARY KEY (id, archived);
+ALTER TABLE accreditations ADD CONSTRAINT accreditations_user_id_fkey FOREIGN KEY (user_id) REFERENCES users (id);
+CREATE UNIQUE INDEX accreditations_pending_user_id_idx ON accreditations (user_id, archived) WHERE status = 'PENDING';
+CREATE INDEX accreditations_confirmed_id_idx ON accreditations (id) WHERE status = 'CONFIRMED';
+CREATE INDEX accreditations_created_ts_id_idx ON accreditations (created_ts, id);
+CREATE INDEX accreditations_status_created_ts_id_idx ON accreditations (status, created_ts, id);
+CREATE INDEX accreditations_type_created_ts_id_idx ON accreditations (type, created_ts, id);
+CREATE INDEX accreditations_user_id_created_ts_idx ON accreditations (user_id, created_ts)
+    INCLUDE (id, type, status, updated_ts, version);
+CREATE INDEX accreditations_confirmed_updated_ts_idx ON accreditations (updated_ts, id) WHERE status = 'CONFIRMED';
+-- the accreditations the archival job is looking for
+CREATE INDEX accreditations_archivable_updated_ts_idx ON accreditations (updated_ts)
+    WHERE status IN ('EXPIRED', 'FAILED') AND NOT archived;
+
+COMMENT
+ON TABLE accreditations IS 'The accreditations, partitioned by archived.';
+COMMENT
+ON TABLE accreditations_live IS 'The accreditations which are not archived.';
+COMMENT
+ON TABLE accreditations_archive IS 'The EXPIRED and FAILED accreditations archived by the archival job.';
+COMMENT
+ON COLUMN accreditations.archived IS 'Whether the accreditation was archived, being EXPIRED or FAILED for long enough.';
@@ -0,0 +1,3 @@
+-- the listing and the exports filtered on the last update alone, e.g. the accreditations changed since the previous
+-- export, read the range from here and sort it, rather than walking every accreditation in creation order
+CREATE INDEX accreditations_updated_ts_id_idx ON accreditations (updated_ts, id);
@@ -0,0 +1,16 @@
+-- an EXPIRED accreditation can still be finalised again (e.g. CONFIRMED), which the archive partition cannot take: only
+-- the FAILED accreditations, which the service never changes, are archived. The EXPIRED ones archived by V16's job go
+-- back to the live partition.
+UPDATE accreditations SET archived = false WHERE archived AND status = 'EXPIRED';
+
+ALTER TABLE accreditations_archive DROP CONSTRAINT accreditations_archive_status_check;
+ALTER TABLE accreditations_archive ADD CONSTRAINT accreditations_archive_status_check CHECK (status = 'FAILED');
+
+DROP INDEX accreditations_archivable_updated_ts_idx;
+CREATE INDEX accreditations_archivable_updated_ts_idx ON accreditations (updated_ts)
+    WHERE status = 'FAILED' AND NOT archived;
+
+COMMENT
+ON TABLE accreditations_archive IS 'The FAILED accreditations archived by the archival job.';
+COMMENT
+ON COLUMN accreditations.archived IS 'Whether the accreditation was archived, being FAILED for long enough.';
@@ -0,0 +1,19 @@
+CREATE TABLE documents
+(
+    hash       varchar(64)              NOT NULL, -- the hex encoded SHA-256 of the content, which makes it content-addressed
+    content    bytea                    NOT NULL, -- the raw (decoded) bytes of the document
+    size       bigint                   NOT NULL,
+    created_ts timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (hash)
+);
+
+COMMENT
+ON TABLE documents IS 'The content of the accreditation documents, used when the document store is set to postgres.';
+
+ALTER TABLE accreditations
+    ADD COLUMN document_hash varchar(64),
+    ADD COLUMN document_size bigint,
+    ALTER COLUMN document_content DROP NOT NULL;
+
+COMMENT
+ON COLUMN accreditations.document_hash IS 'The reference of the document content in the document store.';
@@ -0,0 +1,5 @@
+-- V3 (DocumentStoreBackfillMigration) has moved every document_content to the document store by now
+ALTER TABLE accreditations
+    ALTER COLUMN document_hash SET NOT NULL,
+    ALTER COLUMN document_size SET NOT NULL,
+    DROP COLUMN document_content;
@@ -0,0 +1,11 @@
+CREATE TABLE accreditation_outbox
+(
+    id          bigserial,                          -- the order in which the messages were written, and are relayed
+    message_key varchar                  NOT NULL, -- the Kafka message key, the user ID
+    payload     bytea                    NOT NULL, -- the serialized AccreditationStateChange
+    created_ts  timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+COMMENT
+ON TABLE accreditation_outbox IS 'The audit messages written together with the accreditation changes, deleted once Kafka acknowledged them.';
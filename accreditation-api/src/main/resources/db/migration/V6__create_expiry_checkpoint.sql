@@ -0,0 +1,16 @@
+CREATE TABLE expiry_checkpoints
+(
+    job        varchar                  NOT NULL, -- the name of the expiry job
+    cutoff_ts  timestamp with time zone NOT NULL, -- accreditations last updated before this are expired by the run
+    last_id    UUID                     NOT NULL, -- the highest accreditation id processed so far
+    expired    bigint                   NOT NULL DEFAULT 0,
+    started_ts timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_ts timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job)
+);
+
+COMMENT
+ON TABLE expiry_checkpoints IS 'The progress of the expiry runs in flight, so that an interrupted run resumes where it stopped.';
+
+-- the expiry job scans the CONFIRMED accreditations in id order
+CREATE INDEX accreditations_confirmed_id_idx ON accreditations (id) WHERE status = 'CONFIRMED';
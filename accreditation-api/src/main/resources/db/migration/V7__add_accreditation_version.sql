@@ -0,0 +1,6 @@
+-- replaces updated_ts as the stamp of the stamped lock: it is incremented by every update of the status, and compared
+-- exactly, whatever the precision of the timestamps on either side
+ALTER TABLE accreditations ADD COLUMN version int NOT NULL DEFAULT 0;
+
+COMMENT
+ON COLUMN accreditations.version IS 'Incremented by every update, used as the stamp of the stamped lock.';
@@ -0,0 +1,41 @@
+-- the check before inserting let two concurrent creations both succeed: of the PENDING accreditations of a user, all
+-- but the latest are failed, so that the index can be created. Each is audited as an admin finalisation would be, with
+-- a FINALISE message in the outbox, so that the topic (and a replay of it) agrees with the table. The messages are
+-- version 2 JSON, which AccreditationStateChangeDeserializer reads whatever the configured encoding: the content of the
+-- documents is in the document store by now, out of reach of SQL, so they carry no version 1 request.
+WITH failed AS (
+    UPDATE accreditations a
+        SET status = 'FAILED',
+            updated_ts = CURRENT_TIMESTAMP,
+            version = a.version + 1
+        WHERE a.status = 'PENDING'
+            AND EXISTS (SELECT 1
+                        FROM accreditations newer
+                        WHERE newer.user_id = a.user_id
+                          AND newer.status = 'PENDING'
+                          AND (newer.created_ts, newer.id) > (a.created_ts, a.id))
+        RETURNING a.*)
+INSERT
+INTO accreditation_outbox (message_key, payload)
+SELECT u.user_id,
+       convert_to(json_build_object(
+                          'version', 2,
+                          'timestamp', to_char(f.updated_ts AT TIME ZONE 'UTC', 'YYYY-MM-DD"T"HH24:MI:SS.US"Z"'),
+                          'action', 'FINALISE',
+                          'user_id', u.user_id,
+                          'accreditation_id', f.id,
+                          'accreditation_type', f.type,
+                          'status', f.status,
+                          'old_status', 'PENDING',
+                          'document', json_build_object(
+                                  'name', f.document_name,
+                                  'mime_type', f.document_mime_type,
+                                  'hash', f.document_hash,
+                                  'size', f.document_size))::text, 'UTF8')
+FROM failed f
+         JOIN users u ON u.id = f.user_id
+ORDER BY f.created_ts, f.id;
+
+-- a user has at most one PENDING accreditation: enforced here rather than by checking before inserting, which two
+-- concurrent creations could both pass. New accreditations are inserted with ON CONFLICT against this index.
+CREATE UNIQUE INDEX accreditations_pending_user_id_idx ON accreditations (user_id) WHERE status = 'PENDING';
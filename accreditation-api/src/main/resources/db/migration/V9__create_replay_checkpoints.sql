@@ -0,0 +1,11 @@
+CREATE TABLE replay_checkpoints
+(
+    source      varchar                  NOT NULL, -- the event log replayed, e.g. kafka:accreditations
+    partition   int                      NOT NULL,
+    next_offset bigint                   NOT NULL, -- the offset of the first event not applied yet
+    updated_ts  timestamp with time zone NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (source, partition)
+);
+
+COMMENT
+ON TABLE replay_checkpoints IS 'How far the replay of the audit events got in each partition, updated with the events applied.';
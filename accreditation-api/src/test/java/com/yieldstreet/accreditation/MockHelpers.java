@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.yieldstreet.accreditation.documents.DocumentReference;
 import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
 import com.yieldstreet.accreditation.persistence.User;
 
 import java.nio.charset.StandardCharsets;
@@ -56,13 +58,27 @@ public class MockHelpers {
     accreditation.setUpdatedTs(OffsetDateTime.now());
     accreditation.setDocumentName(RNG.nextInt(1994, 2022) + ".pdf");
     accreditation.setDocumentMimeType("application/pdf");
-    accreditation.setDocumentContent(randomString(RNG.nextInt(20, 100)));
+    String content = randomString(RNG.nextInt(20, 100));
+    DocumentReference documentReference = DocumentReference.forContent(Base64.getDecoder().decode(content));
+    accreditation.setDocumentHash(documentReference.hash());
+    accreditation.setDocumentSize(documentReference.size());
     accreditation.setType(randomEnum(Accreditation.AccreditationType.class));
     accreditation.setStatus(status);
 
     return accreditation;
   }
 
+  public static List<AccreditationStatusView> mockStatusViews(int count) {
+    return Stream.generate(
+            () ->
+                new AccreditationStatusView(
+                    UUID.randomUUID(),
+                    randomEnum(Accreditation.AccreditationType.class),
+                    randomEnum(Accreditation.AccreditationStatus.class)))
+        .limit(count)
+        .collect(Collectors.toList());
+  }
+
   public static String randomString(int length) {
     // the ascii range of printable characters including space
     String raw =
@@ -0,0 +1,96 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.yieldstreet.accreditation.persistence.AccreditationArchivalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AccreditationArchivalJobTest {
+
+  private static final int CHUNK_SIZE = 2;
+
+  @Mock AccreditationArchivalRepository mockArchivalRepository;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
+  private AutoCloseable closeable;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private AccreditationArchivalJob archivalJob;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    archivalJob =
+        new AccreditationArchivalJob(
+            mockArchivalRepository,
+            new TransactionTemplate(mockTransactionManager),
+            meterRegistry,
+            365,
+            CHUNK_SIZE);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void archiveInChunks() {
+    when(mockArchivalRepository.archiveChunk(any(), eq(CHUNK_SIZE))).thenReturn(2, 2, 1);
+
+    assertEquals(5, archivalJob.archiveTerminalAccreditations());
+
+    // with the same cutoff, a year ago
+    ArgumentCaptor<OffsetDateTime> cutoffTs = ArgumentCaptor.forClass(OffsetDateTime.class);
+    verify(mockArchivalRepository, times(3)).archiveChunk(cutoffTs.capture(), eq(CHUNK_SIZE));
+    assertEquals(1, cutoffTs.getAllValues().stream().distinct().count());
+    assertTrue(cutoffTs.getValue().isBefore(OffsetDateTime.now().minusDays(364)));
+    // one transaction per chunk
+    verify(mockTransactionManager, times(3)).commit(any());
+    assertEquals(
+        1,
+        meterRegistry.get("accreditation.archival.runs").tag("outcome", "success").timer().count());
+    assertEquals(5, meterRegistry.get("accreditation.archival.archived").summary().totalAmount());
+  }
+
+  @Test
+  void nothingToArchive() {
+    when(mockArchivalRepository.archiveChunk(any(), eq(CHUNK_SIZE))).thenReturn(0);
+
+    assertEquals(0, archivalJob.archiveTerminalAccreditations());
+
+    verify(mockArchivalRepository).archiveChunk(any(), eq(CHUNK_SIZE));
+  }
+
+  @Test
+  void failedChunkOnlyRollsBackItself() {
+    when(mockArchivalRepository.archiveChunk(any(), eq(CHUNK_SIZE)))
+        .thenReturn(2)
+        .thenThrow(new IllegalStateException("Connection lost"));
+
+    assertThrows(IllegalStateException.class, () -> archivalJob.archiveTerminalAccreditations());
+
+    verify(mockTransactionManager).commit(any());
+    verify(mockTransactionManager).rollback(any());
+    assertEquals(
+        1,
+        meterRegistry.get("accreditation.archival.runs").tag("outcome", "failure").timer().count());
+    assertEquals(0, meterRegistry.get("accreditation.archival.archived").summary().count());
+  }
+}
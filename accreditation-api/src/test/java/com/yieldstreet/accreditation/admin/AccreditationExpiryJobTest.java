@@ -0,0 +1,146 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.yieldstreet.accreditation.MockHelpers;
+import com.yieldstreet.accreditation.audit.KafkaProducer;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationExpiryRepository;
+import com.yieldstreet.accreditation.persistence.ExpiryCheckpoint;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AccreditationExpiryJobTest {
+
+  private static final int CHUNK_SIZE = 2;
+
+  @Mock AccreditationExpiryRepository mockExpiryRepository;
+
+  @Mock KafkaProducer mockKafkaProducer;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
+  private AutoCloseable closeable;
+
+  /** The checkpoint table */
+  private final AtomicReference<ExpiryCheckpoint> checkpoint = new AtomicReference<>();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private AccreditationExpiryJob expiryJob;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    expiryJob =
+        new AccreditationExpiryJob(
+            mockExpiryRepository,
+            mockKafkaProducer,
+            new TransactionTemplate(mockTransactionManager),
+            meterRegistry,
+            30,
+            CHUNK_SIZE);
+
+    doAnswer(
+            invocation -> {
+              checkpoint.compareAndSet(
+                  null, new ExpiryCheckpoint(invocation.getArgument(1), new UUID(0, 0), 0));
+              return null;
+            })
+        .when(mockExpiryRepository)
+        .startRun(eq(AccreditationExpiryJob.JOB), any());
+    when(mockExpiryRepository.lockCheckpoint(AccreditationExpiryJob.JOB))
+        .thenAnswer(invocation -> Optional.ofNullable(checkpoint.get()));
+    doAnswer(invocation -> { checkpoint.set(invocation.getArgument(1)); return null; })
+        .when(mockExpiryRepository)
+        .saveCheckpoint(eq(AccreditationExpiryJob.JOB), any());
+    doAnswer(invocation -> { checkpoint.set(null); return null; })
+        .when(mockExpiryRepository)
+        .deleteCheckpoint(AccreditationExpiryJob.JOB);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void expireInChunks() {
+    List<Accreditation> first = MockHelpers.mockAccreditations("123456", 2);
+    List<Accreditation> second = MockHelpers.mockAccreditations("654321", 1);
+    when(mockExpiryRepository.expireChunk(any(), any(), eq(CHUNK_SIZE)))
+        .thenReturn(first)
+        .thenReturn(second)
+        .thenReturn(Collections.emptyList());
+
+    assertEquals(3, expiryJob.expireOldConfirmedAccreditations());
+
+    verify(mockExpiryRepository).expireChunk(any(), eq(new UUID(0, 0)), eq(CHUNK_SIZE));
+    verify(mockExpiryRepository).expireChunk(any(), eq(first.get(1).getId()), eq(CHUNK_SIZE));
+    verify(mockExpiryRepository).expireChunk(any(), eq(second.get(0).getId()), eq(CHUNK_SIZE));
+    verify(mockKafkaProducer).notifyScheduledExpire(first, Status.CONFIRMED);
+    verify(mockKafkaProducer).notifyScheduledExpire(second, Status.CONFIRMED);
+    // one transaction per chunk, plus the one finding nothing left
+    verify(mockTransactionManager, times(3)).commit(any());
+    assertNull(checkpoint.get());
+    assertEquals(
+        1,
+        meterRegistry.get("accreditation.expiry.runs").tag("outcome", "success").timer().count());
+    assertEquals(3, meterRegistry.get("accreditation.expiry.expired").summary().totalAmount());
+  }
+
+  @Test
+  void resumeInterruptedRun() {
+    OffsetDateTime cutoffTs = OffsetDateTime.now().minusDays(45);
+    UUID lastId = UUID.randomUUID();
+    checkpoint.set(new ExpiryCheckpoint(cutoffTs, lastId, 1000));
+    when(mockExpiryRepository.expireChunk(cutoffTs, lastId, CHUNK_SIZE))
+        .thenReturn(MockHelpers.mockAccreditations("123456", 1));
+    when(mockExpiryRepository.expireChunk(eq(cutoffTs), not(eq(lastId)), eq(CHUNK_SIZE)))
+        .thenReturn(Collections.emptyList());
+
+    assertEquals(1001, expiryJob.expireOldConfirmedAccreditations());
+
+    verify(mockExpiryRepository, never()).expireChunk(not(eq(cutoffTs)), any(), anyInt());
+  }
+
+  @Test
+  void failedChunkOnlyRollsBackItself() {
+    List<Accreditation> first = MockHelpers.mockAccreditations("123456", 2);
+    when(mockExpiryRepository.expireChunk(any(), any(), eq(CHUNK_SIZE)))
+        .thenReturn(first)
+        .thenThrow(new IllegalStateException("Connection lost"));
+
+    assertThrows(IllegalStateException.class, () -> expiryJob.expireOldConfirmedAccreditations());
+
+    verify(mockTransactionManager).commit(any());
+    verify(mockTransactionManager).rollback(any());
+    // the next run carries on after the first chunk
+    assertEquals(first.get(1).getId(), checkpoint.get().lastId());
+    assertEquals(2, checkpoint.get().expired());
+    assertEquals(
+        1,
+        meterRegistry.get("accreditation.expiry.runs").tag("outcome", "failure").timer().count());
+    assertEquals(0, meterRegistry.get("accreditation.expiry.expired").summary().count());
+  }
+}
@@ -0,0 +1,212 @@
+package com.yieldstreet.accreditation.admin;
+
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
+import com.yieldstreet.accreditation.persistence.AccreditationListingRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationListingView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class AccreditationExporterTest {
+
+  private static final AccreditationFilter FILTER =
+      new AccreditationFilter(
+          Accreditation.AccreditationStatus.CONFIRMED, null, null, null, null, null);
+
+  private static final OffsetDateTime CREATED_TS =
+      OffsetDateTime.parse("2022-11-03T17:45:12.123456+02:00");
+
+  private static final UUID FIRST_ID = UUID.fromString("7c5cc8e1-4d0a-4c9c-9d3c-2b0d5b0d0c01");
+
+  private static final UUID SECOND_ID = UUID.fromString("7c5cc8e1-4d0a-4c9c-9d3c-2b0d5b0d0c02");
+
+  @Mock AccreditationListingRepository mockAccreditationListingRepository;
+
+  @Mock DocumentStore mockDocumentStore;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
+  private AutoCloseable closeable;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private AccreditationExporter exporter;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    exporter =
+        new AccreditationExporter(
+            mockAccreditationListingRepository,
+            mockDocumentStore,
+            mockTransactionManager,
+            meterRegistry);
+
+    List<AccreditationListingView> rows =
+        List.of(
+            new AccreditationListingView(
+                FIRST_ID,
+                "user1",
+                Accreditation.AccreditationType.BY_INCOME,
+                Accreditation.AccreditationStatus.CONFIRMED,
+                "2018.pdf",
+                "application/pdf",
+                "hash1",
+                3,
+                CREATED_TS,
+                CREATED_TS),
+            new AccreditationListingView(
+                SECOND_ID,
+                "user2",
+                Accreditation.AccreditationType.BY_NET_WORTH,
+                Accreditation.AccreditationStatus.CONFIRMED,
+                "tax return, \"final\".pdf",
+                "application/pdf",
+                "hash2",
+                2,
+                CREATED_TS.plusSeconds(1),
+                CREATED_TS.plusSeconds(2)));
+    doAnswer(
+            invocation -> {
+              Consumer<AccreditationListingView> action = invocation.getArgument(1);
+              rows.forEach(action);
+              return null;
+            })
+        .when(mockAccreditationListingRepository)
+        .forEach(eq(FILTER), any());
+    when(mockDocumentStore.load("hash1"))
+        .thenAnswer(invocation -> Optional.of(ByteBuffer.wrap(new byte[] {1, 2, 3})));
+    when(mockDocumentStore.load("hash2"))
+        .thenAnswer(invocation -> Optional.of(ByteBuffer.wrap(new byte[] {4, 5})));
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  private String export(AccreditationExporter.Format format, boolean includeDocuments)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exporter.export(FILTER, format, includeDocuments).writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void ndjson() throws IOException {
+    String ndjson = export(AccreditationExporter.Format.NDJSON, false);
+
+    assertEquals(
+        "{\"accreditation_id\":\""
+            + FIRST_ID
+            + "\",\"user_id\":\"user1\",\"accreditation_type\":\"BY_INCOME\","
+            + "\"status\":\"CONFIRMED\",\"document_name\":\"2018.pdf\","
+            + "\"document_mime_type\":\"application/pdf\",\"document_size\":3,"
+            + "\"created_ts\":\"2022-11-03T17:45:12.123456+02:00\","
+            + "\"updated_ts\":\"2022-11-03T17:45:12.123456+02:00\"}\n"
+            + "{\"accreditation_id\":\""
+            + SECOND_ID
+            + "\",\"user_id\":\"user2\",\"accreditation_type\":\"BY_NET_WORTH\","
+            + "\"status\":\"CONFIRMED\",\"document_name\":\"tax return, \\\"final\\\".pdf\","
+            + "\"document_mime_type\":\"application/pdf\",\"document_size\":2,"
+            + "\"created_ts\":\"2022-11-03T17:45:13.123456+02:00\","
+            + "\"updated_ts\":\"2022-11-03T17:45:14.123456+02:00\"}\n",
+        ndjson);
+    verifyNoInteractions(mockDocumentStore);
+    assertEquals(2, meterRegistry.get("accreditation.export.rows").counter().count());
+    // in a single read-only transaction
+    verify(mockTransactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    verify(mockTransactionManager).commit(any());
+  }
+
+  @Test
+  void csv() throws IOException {
+    String csv = export(AccreditationExporter.Format.CSV, false);
+
+    assertEquals(
+        "accreditation_id,user_id,accreditation_type,status,document_name,document_mime_type,"
+            + "document_size,created_ts,updated_ts\r\n"
+            + FIRST_ID
+            + ",user1,BY_INCOME,CONFIRMED,2018.pdf,application/pdf,3,"
+            + "2022-11-03T17:45:12.123456+02:00,2022-11-03T17:45:12.123456+02:00\r\n"
+            + SECOND_ID
+            + ",user2,BY_NET_WORTH,CONFIRMED,\"tax return, \"\"final\"\".pdf\",application/pdf,2,"
+            + "2022-11-03T17:45:13.123456+02:00,2022-11-03T17:45:14.123456+02:00\r\n",
+        csv);
+    verifyNoInteractions(mockDocumentStore);
+  }
+
+  @Test
+  void documentsWhenAskedFor() throws IOException {
+    String[] ndjson = export(AccreditationExporter.Format.NDJSON, true).split("\n");
+    assertTrue(ndjson[0].endsWith(",\"document_content\":\"AQID\"}"), ndjson[0]);
+    assertTrue(ndjson[1].endsWith(",\"document_content\":\"BAU=\"}"), ndjson[1]);
+
+    String[] csv = export(AccreditationExporter.Format.CSV, true).split("\r\n");
+    assertTrue(csv[0].endsWith(",updated_ts,document_content"), csv[0]);
+    assertTrue(csv[1].endsWith(",AQID"), csv[1]);
+    assertTrue(csv[2].endsWith(",BAU="), csv[2]);
+  }
+
+  @Test
+  void failedWriteRollsBack() {
+    OutputStream failing =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+        };
+    when(mockDocumentStore.load(any()))
+        .thenAnswer(invocation -> Optional.of(ByteBuffer.wrap(new byte[128 * 1024])));
+
+    IOException error =
+        assertThrows(
+            IOException.class,
+            () ->
+                exporter
+                    .export(FILTER, AccreditationExporter.Format.NDJSON, true)
+                    .writeTo(failing));
+    assertEquals("Broken pipe", error.getMessage());
+    verify(mockTransactionManager).rollback(any());
+    verify(mockTransactionManager, never()).commit(any());
+  }
+
+  @Test
+  void formatNames() {
+    assertEquals(AccreditationExporter.Format.CSV, AccreditationExporter.Format.fromName("csv"));
+    assertEquals(
+        AccreditationExporter.Format.NDJSON, AccreditationExporter.Format.fromName("NDJSON"));
+    assertThrows(
+        IllegalArgumentException.class, () -> AccreditationExporter.Format.fromName("xml"));
+  }
+}
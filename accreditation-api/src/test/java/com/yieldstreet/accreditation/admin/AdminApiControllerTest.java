@@ -1,22 +1,39 @@
 package com.yieldstreet.accreditation.admin;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yieldstreet.accreditation.config.WebConfig;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
 import com.yieldstreet.model.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static com.yieldstreet.accreditation.MockHelpers.getObjectMapper;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -26,12 +43,18 @@ class AdminApiControllerTest {
 
   @Mock private AdminService mockAdminService;
 
+  @Mock private AccreditationExporter mockAccreditationExporter;
+
   private MockMvc mockMvc;
 
   private AutoCloseable closeable;
 
+  private SimpleMeterRegistry meterRegistry;
+
   private static final String CREATE_ACCREDITATION = "/user/accreditation";
   private static final String FINALISE_ACCREDITATION = "/user/accreditation/{accreditationId}";
+  private static final String UPLOAD_ACCREDITATION = "/user/accreditation/upload";
+  private static final String BATCH_ACCREDITATIONS = "/user/accreditation/batch";
 
   private final ObjectMapper objectMapper = getObjectMapper();
 
@@ -39,11 +62,17 @@ class AdminApiControllerTest {
   public void setup() {
     closeable = MockitoAnnotations.openMocks(this);
 
-    AdminApiController adminApiController = new AdminApiController(mockAdminService);
+    meterRegistry = new SimpleMeterRegistry();
+    AdminApiController adminApiController =
+        new AdminApiController(mockAdminService, mockAccreditationExporter, meterRegistry);
+
+    FormattingConversionService conversionService = new DefaultFormattingConversionService();
+    new WebConfig().addFormatters(conversionService);
 
     this.mockMvc =
         MockMvcBuilders.standaloneSetup(adminApiController)
             .setMessageConverters(new MappingJackson2HttpMessageConverter(this.objectMapper))
+            .setConversionService(conversionService)
             .build();
   }
 
@@ -258,6 +287,43 @@ class AdminApiControllerTest {
         .andExpect(status().is4xxClientError());
   }
 
+  @Test
+  void validUpload() throws Exception {
+    MockMultipartFile document =
+        new MockMultipartFile("document", "2018.pdf", "application/pdf", new byte[] {37, 80, 68, 70});
+
+    AccreditationResponse response = new AccreditationResponse().accreditationId(UUID.randomUUID());
+
+    when(mockAdminService.uploadAccreditation(
+            eq("0123456789"), eq(AccreditationType.INCOME), eq("2018.pdf"), eq("application/pdf"), any()))
+        .thenReturn(response);
+
+    mockMvc
+        .perform(
+            multipart(UPLOAD_ACCREDITATION)
+                .file(document)
+                .param("user_id", "0123456789")
+                .param("accreditation_type", "BY_INCOME")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(content().json(objectMapper.writeValueAsString(response)));
+  }
+
+  @Test
+  void uploadWithInvalidType() throws Exception {
+    MockMultipartFile document =
+        new MockMultipartFile("document", "2018.pdf", "application/pdf", new byte[] {37, 80, 68, 70});
+
+    mockMvc
+        .perform(
+            multipart(UPLOAD_ACCREDITATION)
+                .file(document)
+                .param("user_id", "0123456789")
+                .param("accreditation_type", "BY_NOTHING")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().is4xxClientError());
+  }
+
   @Test
   void finalizeAccreditationConfirmed() throws Exception {
 
@@ -366,4 +432,130 @@ class AdminApiControllerTest {
                             .content(request))
             .andExpect(status().is4xxClientError());
   }
+
+  @Test
+  void finalizeAccreditationsBatch() throws Exception {
+    UUID confirmed = UUID.randomUUID();
+    UUID unknown = UUID.randomUUID();
+    List<FinaliseAccreditationItem> items =
+        List.of(
+            new FinaliseAccreditationItem().accreditationId(confirmed).outcome(FinalStatus.CONFIRMED),
+            new FinaliseAccreditationItem().accreditationId(unknown).outcome(FinalStatus.FAILED));
+    BatchAccreditationResponse response =
+        new BatchAccreditationResponse()
+            .results(
+                List.of(
+                    new BatchItemResult().accreditationId(confirmed).outcome(BatchItemOutcome.OK),
+                    new BatchItemResult()
+                        .accreditationId(unknown)
+                        .outcome(BatchItemOutcome.NOT_FOUND)));
+
+    when(mockAdminService.finalizeAccreditations(items)).thenReturn(response);
+
+    mockMvc
+        .perform(
+            put(BATCH_ACCREDITATIONS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new BatchFinaliseAccreditationRequest().items(items))))
+        .andExpect(status().isOk())
+        .andExpect(content().json(objectMapper.writeValueAsString(response)));
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get("accreditation.requests")
+            .tag("operation", "finalise_batch")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void emptyBatch() throws Exception {
+    mockMvc
+        .perform(
+            post(BATCH_ACCREDITATIONS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(
+                    objectMapper.writeValueAsString(
+                        new BatchCreateAccreditationRequest().items(Collections.emptyList()))))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(mockAdminService);
+  }
+
+  @Test
+  void listAccreditations() throws Exception {
+    AccreditationPage page =
+        new AccreditationPage()
+            .items(
+                List.of(
+                    new AccreditationSummary()
+                        .accreditationId(UUID.randomUUID())
+                        .userId("0123456789")
+                        .accreditationType(AccreditationType.INCOME)
+                        .status(Status.PENDING)
+                        .documentName("2018.pdf")
+                        .documentMimeType("application/pdf")
+                        .documentSize(1234L)
+                        .createdTs(OffsetDateTime.parse("2022-11-03T17:45:12.123456Z"))
+                        .updatedTs(OffsetDateTime.parse("2022-11-03T17:45:12.123456Z"))))
+            .nextCursor("next");
+    AccreditationFilter filter =
+        new AccreditationFilter(
+            Accreditation.AccreditationStatus.PENDING,
+            Accreditation.AccreditationType.BY_INCOME,
+            OffsetDateTime.parse("2022-11-01T00:00Z"),
+            null,
+            null,
+            OffsetDateTime.parse("2022-12-01T00:00Z"));
+    when(mockAdminService.listAccreditations(filter, "previous", 10)).thenReturn(page);
+
+    mockMvc
+        .perform(
+            get(CREATE_ACCREDITATION)
+                .param("status", "PENDING")
+                .param("accreditation_type", "BY_INCOME")
+                .param("created_from", "2022-11-01T00:00Z")
+                .param("updated_to", "2022-12-01T00:00Z")
+                .param("cursor", "previous")
+                .param("limit", "10")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(content().json(objectMapper.writeValueAsString(page)));
+
+    assertEquals(
+        1, meterRegistry.get("accreditation.requests").tag("operation", "list").timer().count());
+  }
+
+  @Test
+  void listAccreditationsOfAnyStatus() throws Exception {
+    AccreditationFilter filter = new AccreditationFilter(null, null, null, null, null, null);
+    when(mockAdminService.listAccreditations(filter, null, 10))
+        .thenReturn(new AccreditationPage().items(List.of()));
+
+    mockMvc
+        .perform(get(CREATE_ACCREDITATION).param("limit", "10").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    verify(mockAdminService).listAccreditations(filter, null, 10);
+  }
+
+  @Test
+  void listAccreditationsWithInvalidParameters() throws Exception {
+    mockMvc
+        .perform(get(CREATE_ACCREDITATION).param("status", "UNKNOWN"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get(CREATE_ACCREDITATION).param("limit", "1001"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get(CREATE_ACCREDITATION).param("limit", "0"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(mockAdminService);
+  }
 }
@@ -2,44 +2,102 @@ package com.yieldstreet.accreditation.admin;
 
 import com.yieldstreet.accreditation.MockHelpers;
 import com.yieldstreet.accreditation.audit.KafkaProducer;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.accreditation.documents.DocumentStore;
 import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationBatchRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationCursor;
+import com.yieldstreet.accreditation.persistence.AccreditationFilter;
+import com.yieldstreet.accreditation.persistence.AccreditationListingRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationListingView;
 import com.yieldstreet.accreditation.persistence.AccreditationRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationStamp;
+import com.yieldstreet.accreditation.persistence.StampedStatusUpdate;
 import com.yieldstreet.accreditation.persistence.User;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
 import com.yieldstreet.accreditation.persistence.UserRepository;
+import com.yieldstreet.model.AccreditationPage;
 import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.BatchItemOutcome;
+import com.yieldstreet.model.BatchItemResult;
 import com.yieldstreet.model.CreateAccreditationRequest;
 import com.yieldstreet.model.Document;
 import com.yieldstreet.model.FinalStatus;
+import com.yieldstreet.model.FinaliseAccreditationItem;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 class AdminServiceTest {
   @Mock UserRepository mockUserRepository;
 
   @Mock AccreditationRepository mockAccreditationRepository;
 
+  @Mock AccreditationBatchRepository mockAccreditationBatchRepository;
+
+  @Mock AccreditationListingRepository mockAccreditationListingRepository;
+
   @Mock KafkaProducer mockKafkaProducer;
 
+  @Mock DocumentStore mockDocumentStore;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
   private AutoCloseable closeable;
 
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserIdResolver userIdResolver;
+
   private AdminService adminService;
 
   @BeforeEach
   public void setup() {
     closeable = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    userIdResolver = new UserIdResolver(mockUserRepository, meterRegistry, 16);
 
     adminService =
-        new AdminService(mockUserRepository, mockAccreditationRepository, mockKafkaProducer);
+        new AdminService(
+            mockUserRepository,
+            userIdResolver,
+            mockAccreditationRepository,
+            mockAccreditationBatchRepository,
+            mockAccreditationListingRepository,
+            mockKafkaProducer,
+            mockDocumentStore,
+            new TransactionTemplate(mockTransactionManager),
+            meterRegistry);
+    ReflectionTestUtils.setField(adminService, "finaliseRetryBackoff", Duration.ZERO);
   }
 
   @AfterEach
@@ -51,9 +109,12 @@ class AdminServiceTest {
   void disallowNewRequestsIfPreviousOnesArePending() {
 
     String userId = "123456";
-    when(mockAccreditationRepository.findByUserUserIdAndStatus(
-            userId, Accreditation.AccreditationStatus.PENDING))
-        .thenReturn(MockHelpers.mockAccreditations(userId, 1));
+    byte[] content = MockHelpers.randomString(64).getBytes();
+    when(mockDocumentStore.store(content, "application/pdf"))
+        .thenReturn(DocumentReference.forContent(content));
+    // the insert conflicts with the PENDING accreditation of the user
+    when(mockAccreditationBatchRepository.insertPendingAccreditation(any(Accreditation.class)))
+        .thenReturn(Optional.empty());
 
     CreateAccreditationRequest request = new CreateAccreditationRequest();
     request.setUserId(userId);
@@ -62,11 +123,151 @@ class AdminServiceTest {
         new Document()
             .name("2018.pdf")
             .mimeType("application/pdf")
-            .content("952109582109582gkdsgsdg"));
+            .content(Base64.getEncoder().encodeToString(content)));
 
     assertThrows(
         AdminService.UserAlreadyPendingAccreditationError.class,
         () -> adminService.createAccreditation(request));
+    verifyNoInteractions(mockKafkaProducer);
+    assertEquals(1, rejections("already_pending"));
+  }
+
+  @Test
+  void rejectPendingUserBeforeStoringTheDocument() {
+    String userId = "123456";
+    when(mockAccreditationRepository.findUserIdsWithStatus(
+            List.of(userId), Accreditation.AccreditationStatus.PENDING))
+        .thenReturn(List.of(userId));
+
+    CreateAccreditationRequest request = new CreateAccreditationRequest();
+    request.setUserId(userId);
+    request.setAccreditationType(AccreditationType.INCOME);
+    request.setDocument(
+        new Document()
+            .name("2018.pdf")
+            .mimeType("application/pdf")
+            .content(Base64.getEncoder().encodeToString("content".getBytes())));
+
+    assertThrows(
+        AdminService.UserAlreadyPendingAccreditationError.class,
+        () -> adminService.createAccreditation(request));
+    assertThrows(
+        AdminService.UserAlreadyPendingAccreditationError.class,
+        () ->
+            adminService.uploadAccreditation(
+                userId,
+                AccreditationType.INCOME,
+                "2018.pdf",
+                "application/pdf",
+                new ByteArrayInputStream("content".getBytes())));
+    verifyNoInteractions(mockDocumentStore, mockKafkaProducer);
+    verify(mockAccreditationBatchRepository, never()).insertPendingAccreditation(any());
+    assertEquals(2, rejections("already_pending"));
+  }
+
+  @Test
+  void storeDecodedDocumentContent() {
+    String userId = "123456";
+    byte[] content = MockHelpers.randomString(64).getBytes();
+    DocumentReference reference = DocumentReference.forContent(content);
+
+    when(mockDocumentStore.store(content, "application/pdf")).thenReturn(reference);
+    when(mockAccreditationBatchRepository.insertPendingAccreditation(any(Accreditation.class)))
+        .thenAnswer(invocation -> Optional.of(inserted(invocation.getArgument(0), 42)));
+
+    CreateAccreditationRequest request = new CreateAccreditationRequest();
+    request.setUserId(userId);
+    request.setAccreditationType(AccreditationType.INCOME);
+    request.setDocument(
+        new Document()
+            .name("2018.pdf")
+            .mimeType("application/pdf")
+            .content(Base64.getEncoder().encodeToString(content)));
+
+    adminService.createAccreditation(request);
+
+    verify(mockAccreditationBatchRepository)
+        .insertPendingAccreditation(
+            argThat(
+                accreditation ->
+                    userId.equals(accreditation.getUser().getUserId())
+                        && reference.hash().equals(accreditation.getDocumentHash())
+                        && accreditation.getDocumentSize() == content.length));
+    verify(mockKafkaProducer).notifyCreate(any(Accreditation.class));
+  }
+
+  @Test
+  void knownUserIsNotLookedUp() {
+    String userId = "123456";
+    byte[] content = MockHelpers.randomString(64).getBytes();
+
+    // the internal user id each insert is given
+    List<Integer> givenUserIds = new ArrayList<>();
+    when(mockDocumentStore.store(content, "application/pdf"))
+        .thenReturn(DocumentReference.forContent(content));
+    when(mockAccreditationBatchRepository.insertPendingAccreditation(any(Accreditation.class)))
+        .thenAnswer(
+            invocation -> {
+              Accreditation accreditation = invocation.getArgument(0);
+              givenUserIds.add(accreditation.getUser().getId());
+              return Optional.of(inserted(accreditation, 42));
+            });
+
+    CreateAccreditationRequest request = new CreateAccreditationRequest();
+    request.setUserId(userId);
+    request.setAccreditationType(AccreditationType.INCOME);
+    request.setDocument(
+        new Document()
+            .name("2018.pdf")
+            .mimeType("application/pdf")
+            .content(Base64.getEncoder().encodeToString(content)));
+
+    adminService.createAccreditation(request);
+    assertEquals(42, userIdResolver.getIfPresent(userId).orElseThrow());
+
+    adminService.createAccreditation(request);
+    assertEquals(Arrays.asList(null, 42), givenUserIds);
+    verifyNoInteractions(mockUserRepository);
+  }
+
+  @Test
+  void rejectDocumentContentWhichIsNotBase64() {
+    String userId = "123456";
+
+    CreateAccreditationRequest request = new CreateAccreditationRequest();
+    request.setUserId(userId);
+    request.setAccreditationType(AccreditationType.INCOME);
+    request.setDocument(
+        new Document()
+            .name("2018.pdf")
+            .mimeType("application/pdf")
+            .content("this is not base64!"));
+
+    assertThrows(
+        AdminService.InvalidDocumentContentError.class,
+        () -> adminService.createAccreditation(request));
+    verifyNoInteractions(mockDocumentStore, mockAccreditationBatchRepository);
+  }
+
+  @Test
+  void rejectUploadLargerThanAllowed() {
+    String userId = "123456";
+    ReflectionTestUtils.setField(adminService, "maxDocumentSize", DataSize.ofBytes(10));
+    when(mockDocumentStore.store(any(InputStream.class), any()))
+        .thenAnswer(
+            invocation ->
+                DocumentReference.forContent(invocation.getArgument(0, InputStream.class).readAllBytes()));
+
+    assertThrows(
+        AdminService.DocumentTooLargeError.class,
+        () ->
+            adminService.uploadAccreditation(
+                userId,
+                AccreditationType.INCOME,
+                "2018.pdf",
+                "application/pdf",
+                new ByteArrayInputStream(new byte[11])));
+    verifyNoInteractions(mockAccreditationBatchRepository);
   }
 
   @Test
@@ -105,7 +306,7 @@ class AdminServiceTest {
 
     when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
     when(mockAccreditationRepository.finaliseAccreditationStatus(
-            Accreditation.AccreditationStatus.CONFIRMED, uuid, accreditation.getUpdatedTs()))
+            Accreditation.AccreditationStatus.CONFIRMED, uuid, accreditation.getVersion()))
         .thenReturn(1);
 
     assertTrue(adminService.finalizeAccreditation(uuid, FinalStatus.CONFIRMED).isPresent());
@@ -120,7 +321,7 @@ class AdminServiceTest {
 
     when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
     when(mockAccreditationRepository.finaliseAccreditationStatus(
-            Accreditation.AccreditationStatus.FAILED, uuid, accreditation.getUpdatedTs()))
+            Accreditation.AccreditationStatus.FAILED, uuid, accreditation.getVersion()))
             .thenReturn(1);
 
     assertTrue(adminService.finalizeAccreditation(uuid, FinalStatus.FAILED).isPresent());
@@ -135,7 +336,7 @@ class AdminServiceTest {
 
     when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
     when(mockAccreditationRepository.finaliseAccreditationStatus(
-            Accreditation.AccreditationStatus.EXPIRED, uuid, accreditation.getUpdatedTs()))
+            Accreditation.AccreditationStatus.EXPIRED, uuid, accreditation.getVersion()))
             .thenReturn(1);
 
     assertTrue(adminService.finalizeAccreditation(uuid, FinalStatus.EXPIRED).isPresent());
@@ -149,12 +350,283 @@ class AdminServiceTest {
         MockHelpers.mockAccreditation(uuid, user, Accreditation.AccreditationStatus.CONFIRMED);
 
     when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
+    // updated again in parallel every time it is read
+    when(mockAccreditationRepository.findStampById(uuid))
+        .thenReturn(
+            Optional.of(
+                new AccreditationStamp(uuid, Accreditation.AccreditationStatus.CONFIRMED, 1)))
+        .thenReturn(
+            Optional.of(
+                new AccreditationStamp(uuid, Accreditation.AccreditationStatus.CONFIRMED, 2)));
     when(mockAccreditationRepository.finaliseAccreditationStatus(
-            Accreditation.AccreditationStatus.EXPIRED, uuid, accreditation.getUpdatedTs()))
+            eq(Accreditation.AccreditationStatus.EXPIRED), eq(uuid), anyInt()))
         .thenReturn(0);
 
     assertThrows(
         AdminService.ConcurrentUpdateError.class,
         () -> adminService.finalizeAccreditation(uuid, FinalStatus.EXPIRED));
+    verify(mockAccreditationRepository, times(3))
+        .finaliseAccreditationStatus(eq(Accreditation.AccreditationStatus.EXPIRED), eq(uuid), anyInt());
+    verify(mockTransactionManager, times(3)).commit(any());
+    verifyNoInteractions(mockKafkaProducer);
+    assertEquals(3, meterRegistry.get("accreditation.finalise.conflicts").counter().count());
+    assertEquals(2, meterRegistry.get("accreditation.finalise.retries").counter().count());
+    assertEquals(1, rejections("concurrent_update"));
+  }
+
+  @Test
+  void retryAfterConcurrentUpdate() {
+    UUID uuid = UUID.randomUUID();
+    User user = MockHelpers.mockUser("133214");
+    Accreditation accreditation =
+        MockHelpers.mockAccreditation(uuid, user, Accreditation.AccreditationStatus.PENDING);
+
+    when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
+    // confirmed in parallel
+    when(mockAccreditationRepository.findStampById(uuid))
+        .thenReturn(
+            Optional.of(
+                new AccreditationStamp(uuid, Accreditation.AccreditationStatus.CONFIRMED, 1)));
+    when(mockAccreditationRepository.finaliseAccreditationStatus(
+            Accreditation.AccreditationStatus.EXPIRED, uuid, 0))
+        .thenReturn(0);
+    when(mockAccreditationRepository.finaliseAccreditationStatus(
+            Accreditation.AccreditationStatus.EXPIRED, uuid, 1))
+        .thenReturn(1);
+
+    assertTrue(adminService.finalizeAccreditation(uuid, FinalStatus.EXPIRED).isPresent());
+    verify(mockKafkaProducer).notifyFinalise(accreditation, Status.EXPIRED, Status.CONFIRMED);
+    assertEquals(1, meterRegistry.get("accreditation.finalise.retries").counter().count());
+    // each attempt in a transaction of its own
+    verify(mockTransactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void concurrentUpdateToTheSameStatusIsIdempotent() {
+    UUID uuid = UUID.randomUUID();
+    User user = MockHelpers.mockUser("133214");
+    Accreditation accreditation =
+        MockHelpers.mockAccreditation(uuid, user, Accreditation.AccreditationStatus.PENDING);
+
+    when(mockAccreditationRepository.findById(uuid)).thenReturn(Optional.of(accreditation));
+    when(mockAccreditationRepository.findStampById(uuid))
+        .thenReturn(
+            Optional.of(
+                new AccreditationStamp(uuid, Accreditation.AccreditationStatus.CONFIRMED, 1)));
+
+    assertTrue(adminService.finalizeAccreditation(uuid, FinalStatus.CONFIRMED).isPresent());
+    verify(mockAccreditationRepository)
+        .finaliseAccreditationStatus(Accreditation.AccreditationStatus.CONFIRMED, uuid, 0);
+    verifyNoInteractions(mockKafkaProducer);
+    assertEquals(0, rejections("concurrent_update"));
+  }
+
+  @Test
+  void createBatchReportsEachItem() {
+    byte[] content = MockHelpers.randomString(64).getBytes();
+    when(mockAccreditationRepository.findUserIdsWithStatus(
+            anyCollection(), eq(Accreditation.AccreditationStatus.PENDING)))
+        .thenReturn(List.of("pending"));
+    when(mockDocumentStore.store(content, "application/pdf"))
+        .thenReturn(DocumentReference.forContent(content));
+    User existing = MockHelpers.mockUser("existing");
+    User created = MockHelpers.mockUser("new");
+    when(mockUserRepository.findByUserIdIn(Set.of("existing", "new")))
+        .thenReturn(List.of(existing));
+    when(mockUserRepository.findByUserIdIn(Set.of("new"))).thenReturn(List.of(created));
+    when(mockAccreditationRepository.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Accreditation> accreditations = invocation.getArgument(0);
+              accreditations.forEach(accreditation -> accreditation.setId(UUID.randomUUID()));
+              return accreditations;
+            });
+
+    String encoded = Base64.getEncoder().encodeToString(content);
+    List<BatchItemResult> results =
+        adminService
+            .createAccreditations(
+                List.of(
+                    createRequest("existing", encoded),
+                    createRequest("pending", encoded),
+                    createRequest("new", encoded),
+                    createRequest("new", encoded),
+                    createRequest("invalid", "this is not base64!")))
+            .getResults();
+
+    assertEquals(
+        List.of(
+            BatchItemOutcome.OK,
+            BatchItemOutcome.ALREADY_PENDING,
+            BatchItemOutcome.OK,
+            BatchItemOutcome.ALREADY_PENDING,
+            BatchItemOutcome.INVALID_DOCUMENT),
+        results.stream().map(BatchItemResult::getOutcome).collect(Collectors.toList()));
+    assertNotNull(results.get(0).getAccreditationId());
+    assertNull(results.get(1).getAccreditationId());
+    verify(mockAccreditationBatchRepository).createMissingUsers(Set.of("new"));
+    verify(mockKafkaProducer)
+        .notifyCreate(
+            argThat(
+                (List<Accreditation> accreditations) ->
+                    accreditations.size() == 2
+                        && accreditations.get(0).getUser() == existing
+                        && accreditations.get(1).getUser() == created));
+  }
+
+  @Test
+  void finaliseBatchReportsEachItem() {
+    User user = MockHelpers.mockUser("133214");
+    Accreditation pending =
+        MockHelpers.mockAccreditation(UUID.randomUUID(), user, Accreditation.AccreditationStatus.PENDING);
+    Accreditation failed =
+        MockHelpers.mockAccreditation(UUID.randomUUID(), user, Accreditation.AccreditationStatus.FAILED);
+    Accreditation confirmed =
+        MockHelpers.mockAccreditation(UUID.randomUUID(), user, Accreditation.AccreditationStatus.CONFIRMED);
+    UUID unknown = UUID.randomUUID();
+
+    when(mockAccreditationRepository.findAllWithUserByIdIn(anyCollection()))
+        .thenReturn(List.of(pending, failed, confirmed));
+    // the confirmed one is updated in parallel every time it is read
+    when(mockAccreditationBatchRepository.finaliseAccreditationStatuses(anyList()))
+        .thenReturn(new int[] {1, 0}, new int[] {0}, new int[] {0});
+    when(mockAccreditationRepository.findStampsByIdIn(List.of(confirmed.getId())))
+        .thenReturn(
+            List.of(
+                new AccreditationStamp(
+                    confirmed.getId(), Accreditation.AccreditationStatus.CONFIRMED, 1)))
+        .thenReturn(
+            List.of(
+                new AccreditationStamp(
+                    confirmed.getId(), Accreditation.AccreditationStatus.CONFIRMED, 2)));
+
+    List<BatchItemResult> results =
+        adminService
+            .finalizeAccreditations(
+                List.of(
+                    finaliseItem(pending.getId(), FinalStatus.CONFIRMED),
+                    finaliseItem(failed.getId(), FinalStatus.CONFIRMED),
+                    finaliseItem(unknown, FinalStatus.CONFIRMED),
+                    finaliseItem(confirmed.getId(), FinalStatus.EXPIRED),
+                    finaliseItem(pending.getId(), FinalStatus.CONFIRMED),
+                    finaliseItem(pending.getId(), FinalStatus.FAILED),
+                    finaliseItem(confirmed.getId(), FinalStatus.EXPIRED)))
+            .getResults();
+
+    assertEquals(
+        List.of(
+            BatchItemOutcome.OK,
+            BatchItemOutcome.ALREADY_FAILED,
+            BatchItemOutcome.NOT_FOUND,
+            BatchItemOutcome.CONCURRENT_UPDATE,
+            BatchItemOutcome.OK,
+            BatchItemOutcome.CONCURRENT_UPDATE,
+            BatchItemOutcome.CONCURRENT_UPDATE),
+        results.stream().map(BatchItemResult::getOutcome).collect(Collectors.toList()));
+    verify(mockAccreditationBatchRepository)
+        .finaliseAccreditationStatuses(
+            List.of(
+                new StampedStatusUpdate(
+                    pending.getId(), Accreditation.AccreditationStatus.CONFIRMED, 0),
+                new StampedStatusUpdate(
+                    confirmed.getId(), Accreditation.AccreditationStatus.EXPIRED, 0)));
+    verify(mockAccreditationBatchRepository)
+        .finaliseAccreditationStatuses(
+            List.of(
+                new StampedStatusUpdate(
+                    confirmed.getId(), Accreditation.AccreditationStatus.EXPIRED, 2)));
+    verify(mockKafkaProducer)
+        .notifyFinalise(
+            List.of(new KafkaProducer.Finalisation(pending, Status.CONFIRMED, Status.PENDING)));
+    // the pending one is committed by the first attempt, before waiting to retry the other
+    verify(mockTransactionManager, times(3)).commit(any());
+    assertEquals(2, rejections("concurrent_update"));
+    assertEquals(1, rejections("already_failed"));
+  }
+
+  @Test
+  void listAccreditationsPageByPage() {
+    AccreditationFilter filter =
+        new AccreditationFilter(
+            Accreditation.AccreditationStatus.PENDING, null, null, null, null, null);
+    List<AccreditationListingView> rows = listingViews(4);
+    when(mockAccreditationListingRepository.findPage(filter, null, 3))
+        .thenReturn(rows.subList(0, 3));
+
+    AccreditationPage first = adminService.listAccreditations(filter, null, 2);
+
+    assertEquals(
+        List.of(rows.get(0).id(), rows.get(1).id()),
+        first.getItems().stream().map(summary -> summary.getAccreditationId()).toList());
+    assertEquals(Status.PENDING, first.getItems().get(0).getStatus());
+    assertNotNull(first.getNextCursor());
+
+    // the cursor keeps the creation time to the microsecond
+    AccreditationCursor after = rows.get(1).cursor();
+    when(mockAccreditationListingRepository.findPage(filter, after, 3))
+        .thenReturn(rows.subList(2, 4));
+
+    AccreditationPage last = adminService.listAccreditations(filter, first.getNextCursor(), 2);
+
+    assertEquals(
+        List.of(rows.get(2).id(), rows.get(3).id()),
+        last.getItems().stream().map(summary -> summary.getAccreditationId()).toList());
+    assertNull(last.getNextCursor());
+  }
+
+  @Test
+  void listAccreditationsWithInvalidCursor() {
+    AccreditationFilter filter = new AccreditationFilter(null, null, null, null, null, null);
+
+    for (String cursor : new String[] {"not a cursor", "bm90IGEgY3Vyc29y", "MTIzOnh5eg"}) {
+      assertThrows(
+          AdminService.InvalidCursorError.class,
+          () -> adminService.listAccreditations(filter, cursor, 10));
+    }
+    verifyNoInteractions(mockAccreditationListingRepository);
+  }
+
+  private static List<AccreditationListingView> listingViews(int count) {
+    OffsetDateTime createdTs = OffsetDateTime.parse("2022-11-03T17:45:12.123456+02:00");
+    List<AccreditationListingView> views = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      views.add(
+          new AccreditationListingView(
+              UUID.randomUUID(),
+              "user" + i,
+              Accreditation.AccreditationType.BY_INCOME,
+              Accreditation.AccreditationStatus.PENDING,
+              "2018.pdf",
+              "application/pdf",
+              "sha256:abc",
+              1234,
+              createdTs.plusNanos(i * 1000L),
+              createdTs));
+    }
+    return views;
+  }
+
+  /** Sets the ids the insert statement would have returned. */
+  private static Accreditation inserted(Accreditation accreditation, int userId) {
+    accreditation.setId(UUID.randomUUID());
+    if (accreditation.getUser().getId() == null) {
+      accreditation.getUser().setId(userId);
+    }
+    return accreditation;
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry.get("accreditation.rejections").tag("reason", reason).counter().count();
+  }
+
+  private static CreateAccreditationRequest createRequest(String userId, String content) {
+    return new CreateAccreditationRequest()
+        .userId(userId)
+        .accreditationType(AccreditationType.INCOME)
+        .document(new Document().name("2018.pdf").mimeType("application/pdf").content(content));
+  }
+
+  private static FinaliseAccreditationItem finaliseItem(UUID accreditationId, FinalStatus outcome) {
+    return new FinaliseAccreditationItem().accreditationId(accreditationId).outcome(outcome);
   }
 }
@@ -0,0 +1,85 @@
+package com.yieldstreet.accreditation.admin;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRequestSizeFilterTest {
+
+  private static final String BATCH_ACCREDITATIONS = "/user/accreditation/batch";
+
+  private final BatchRequestSizeFilter filter = new BatchRequestSizeFilter(DataSize.ofBytes(16));
+
+  /** Reads the whole body, as the JSON message converter does. */
+  private final MockFilterChain readingChain =
+      new MockFilterChain(
+          new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+                throws IOException {
+              response.getOutputStream().write(request.getInputStream().readAllBytes());
+            }
+          });
+
+  @Test
+  void passSmallBatches() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", BATCH_ACCREDITATIONS);
+    request.setContent("{\"items\":[]}".getBytes());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request, response, readingChain);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("{\"items\":[]}", response.getContentAsString());
+  }
+
+  @Test
+  void rejectLargeBatchesBeforeReadingThem() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", BATCH_ACCREDITATIONS);
+    request.setContent("{\"items\":[{},{},{}]}".getBytes());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request, response, readingChain);
+
+    assertEquals(413, response.getStatus());
+    assertNull(readingChain.getRequest());
+  }
+
+  @Test
+  void rejectLargeBatchesWithoutLengthWhileReadingThem() {
+    MockHttpServletRequest request =
+        new MockHttpServletRequest("POST", BATCH_ACCREDITATIONS) {
+          @Override
+          public long getContentLengthLong() {
+            // chunked
+            return -1;
+          }
+        };
+    request.setContent("{\"items\":[{},{},{}]}".getBytes());
+
+    assertThrows(
+        BatchRequestSizeFilter.BatchTooLargeError.class,
+        () -> filter.doFilter(request, new MockHttpServletResponse(), readingChain));
+  }
+
+  @Test
+  void leaveOtherRequestsAlone() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", BATCH_ACCREDITATIONS);
+    request.setContent("{\"items\":[{},{},{}]}".getBytes());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request, response, readingChain);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("{\"items\":[{},{},{}]}", response.getContentAsString());
+  }
+}
@@ -0,0 +1,157 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import com.yieldstreet.model.Status;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccreditationStateChangeDeserializerTest {
+
+  private static final String TOPIC = "accreditations";
+
+  private static final OffsetDateTime TIMESTAMP =
+      OffsetDateTime.of(2022, 11, 3, 17, 45, 12, 123456789, ZoneOffset.ofHours(2));
+
+  private final AccreditationStateChangeSerializer jsonSerializer =
+      new AccreditationStateChangeSerializer();
+
+  private final AccreditationStateChangeCompactSerializer compactSerializer =
+      new AccreditationStateChangeCompactSerializer();
+
+  private final AccreditationStateChangeDeserializer deserializer =
+      new AccreditationStateChangeDeserializer();
+
+  private static AccreditationStateChange slim() {
+    DocumentReference reference = DocumentReference.forContent(new byte[] {1, 2, 3});
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        TIMESTAMP,
+        AccreditationStateChange.Action.FINALISE,
+        "g8NlYJnk7zK9BlB1J2Ebjs0AkhCTpE1V",
+        UUID.randomUUID().toString(),
+        AccreditationType.NET_WORTH,
+        Status.CONFIRMED,
+        Status.PENDING,
+        new AccreditationStateChange.DocumentDetails(
+            "2018.pdf", "application/pdf", reference.hash(), reference.size()),
+        null);
+  }
+
+  private static AccreditationStateChange full() {
+    CreateAccreditationRequest request =
+        new CreateAccreditationRequest()
+            .userId("ümlaut")
+            .accreditationType(AccreditationType.INCOME)
+            .document(
+                new Document()
+                    .name("2018.pdf")
+                    .mimeType("application/pdf")
+                    .content("ICAiQC8qIjogWyJzcmMvKiJdCiAgICB9CiAgfQp9Cg=="));
+    return new AccreditationStateChange(
+        null,
+        TIMESTAMP,
+        AccreditationStateChange.Action.CREATE,
+        "ümlaut",
+        UUID.randomUUID().toString(),
+        null,
+        Status.PENDING,
+        null,
+        null,
+        request);
+  }
+
+  @Test
+  void compactRoundTrip() {
+    for (AccreditationStateChange stateChange : new AccreditationStateChange[] {slim(), full()}) {
+      byte[] compact = compactSerializer.serialize(TOPIC, stateChange);
+
+      assertEquals(CompactStateChangeFormat.MAGIC, compact[0]);
+      assertEquals(CompactStateChangeFormat.SCHEMA_VERSION, compact[1]);
+      assertEquals(stateChange, deserializer.deserialize(TOPIC, compact));
+    }
+  }
+
+  @Test
+  void compactIsSmallerThanJson() {
+    AccreditationStateChange stateChange = slim();
+
+    byte[] json = jsonSerializer.serialize(TOPIC, stateChange);
+    byte[] compact = compactSerializer.serialize(TOPIC, stateChange);
+
+    assertTrue(compact.length * 3 < json.length, compact.length + " vs " + json.length);
+  }
+
+  @Test
+  void readsJson() {
+    AccreditationStateChange stateChange = slim();
+
+    byte[] json = jsonSerializer.serialize(TOPIC, stateChange);
+
+    assertEquals('{', json[0]);
+    assertEquals(stateChange, deserializer.deserialize(TOPIC, json));
+  }
+
+  @Test
+  void idsAndHashesInAnotherFormatAreKept() {
+    AccreditationStateChange stateChange =
+        new AccreditationStateChange(
+            AccreditationStateChange.SLIM_VERSION,
+            TIMESTAMP,
+            AccreditationStateChange.Action.SCHEDULED_EXPIRE,
+            "123456",
+            UUID.randomUUID().toString().toUpperCase(),
+            AccreditationType.INCOME,
+            Status.EXPIRED,
+            Status.CONFIRMED,
+            new AccreditationStateChange.DocumentDetails("a.pdf", "application/pdf", "md5:abc", 0),
+            null);
+
+    byte[] compact = compactSerializer.serialize(TOPIC, stateChange);
+
+    assertEquals(stateChange, deserializer.deserialize(TOPIC, compact));
+  }
+
+  @Test
+  void unknownSchemaVersionIsRejected() {
+    byte[] compact = compactSerializer.serialize(TOPIC, slim());
+    compact[1] = 99;
+
+    SerializationException error =
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, compact));
+    assertTrue(error.getMessage().contains("99"));
+  }
+
+  @Test
+  void truncatedMessageIsRejected() {
+    byte[] compact = compactSerializer.serialize(TOPIC, slim());
+
+    assertThrows(
+        SerializationException.class,
+        () -> deserializer.deserialize(TOPIC, Arrays.copyOf(compact, compact.length - 1)));
+    assertThrows(
+        SerializationException.class,
+        () -> deserializer.deserialize(TOPIC, "not json".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void offsetOutOfRangeIsRejected() {
+    // schema version 1 without flags, at the epoch, with an offset of 100000 seconds: over 18 hours
+    byte[] compact = {0, 1, 0, 0, 0, (byte) 0xC0, (byte) 0x9A, 0x0C};
+
+    SerializationException error =
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, compact));
+    assertInstanceOf(DateTimeException.class, error.getCause());
+  }
+}
@@ -0,0 +1,106 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.yieldstreet.accreditation.MockHelpers;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccreditationStateChangeFactoryTest {
+
+  private static final byte[] CONTENT = {1, 2, 3};
+
+  @Mock DocumentStore mockDocumentStore;
+
+  private AutoCloseable closeable;
+
+  private Accreditation accreditation;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+
+    accreditation =
+        MockHelpers.mockAccreditation(
+            UUID.randomUUID(),
+            MockHelpers.mockUser("123456"),
+            Accreditation.AccreditationStatus.CONFIRMED);
+    when(mockDocumentStore.load(accreditation.getDocumentHash()))
+        .thenAnswer(invocation -> Optional.of(ByteBuffer.wrap(CONTENT)));
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void slimEventReferencesTheDocument() {
+    AccreditationStateChange stateChange =
+        create(AccreditationStateChangeFactory.Format.SLIM);
+
+    assertEquals(AccreditationStateChange.SLIM_VERSION, stateChange.version());
+    assertEquals("123456", stateChange.userId());
+    assertNotNull(stateChange.accreditationType());
+    assertEquals(accreditation.getDocumentHash(), stateChange.document().hash());
+    assertEquals(accreditation.getDocumentSize(), stateChange.document().size());
+    assertEquals(accreditation.getDocumentMimeType(), stateChange.document().mimeType());
+    assertNull(stateChange.request());
+    verifyNoInteractions(mockDocumentStore);
+  }
+
+  @Test
+  void compatEventAlsoCarriesTheRequest() {
+    AccreditationStateChange stateChange =
+        create(AccreditationStateChangeFactory.Format.COMPAT);
+
+    assertEquals(AccreditationStateChange.SLIM_VERSION, stateChange.version());
+    assertEquals(accreditation.getDocumentHash(), stateChange.document().hash());
+    assertEquals(
+        Base64.getEncoder().encodeToString(CONTENT),
+        stateChange.request().getDocument().getContent());
+  }
+
+  @Test
+  void fullEventIsUnversioned() {
+    AccreditationStateChange stateChange =
+        create(AccreditationStateChangeFactory.Format.FULL);
+
+    assertNull(stateChange.version());
+    assertNull(stateChange.accreditationType());
+    assertNull(stateChange.document());
+    assertEquals("123456", stateChange.request().getUserId());
+    assertEquals(
+        Base64.getEncoder().encodeToString(CONTENT),
+        stateChange.request().getDocument().getContent());
+  }
+
+  @Test
+  void failIfTheDocumentIsMissing() {
+    when(mockDocumentStore.load(accreditation.getDocumentHash())).thenReturn(Optional.empty());
+
+    assertThrows(
+        IllegalStateException.class, () -> create(AccreditationStateChangeFactory.Format.FULL));
+  }
+
+  private AccreditationStateChange create(AccreditationStateChangeFactory.Format format) {
+    return new AccreditationStateChangeFactory(mockDocumentStore, format)
+        .create(
+            AccreditationStateChange.Action.FINALISE,
+            accreditation,
+            Status.EXPIRED,
+            Status.CONFIRMED);
+  }
+}
@@ -0,0 +1,28 @@
+package com.yieldstreet.accreditation.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Stands in for the broker: keeps what was published, or fails every publish when told to. */
+class InMemoryOutboxPublisher implements OutboxPublisher {
+
+  private final List<OutboxMessage> published = new ArrayList<>();
+
+  private boolean failing;
+
+  @Override
+  public void publish(List<OutboxMessage> messages) {
+    if (failing) {
+      throw new IllegalStateException("Broker unavailable");
+    }
+    published.addAll(messages);
+  }
+
+  List<OutboxMessage> published() {
+    return published;
+  }
+
+  void setFailing(boolean failing) {
+    this.failing = failing;
+  }
+}
@@ -0,0 +1,151 @@
+package com.yieldstreet.accreditation.audit;
+
+import com.yieldstreet.accreditation.MockHelpers;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import reactor.core.Scannable;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KafkaProducerTest {
+
+  @Mock OutboxRepository mockOutboxRepository;
+
+  @Mock AccreditationStateChangeFactory mockStateChangeFactory;
+
+  @Mock ApplicationEventPublisher mockEventPublisher;
+
+  private AutoCloseable closeable;
+
+  private Sinks.Many<Message<AccreditationStateChange>> many;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private Accreditation accreditation;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    many = Sinks.many().unicast().onBackpressureBuffer();
+    meterRegistry = new SimpleMeterRegistry();
+
+    accreditation =
+        MockHelpers.mockAccreditation(
+            UUID.randomUUID(),
+            MockHelpers.mockUser("123456"),
+            Accreditation.AccreditationStatus.PENDING);
+    when(mockStateChangeFactory.create(
+            AccreditationStateChange.Action.CREATE, accreditation, Status.PENDING, null))
+        .thenReturn(stateChange(AccreditationStateChange.Action.CREATE, accreditation));
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void writeToTheOutbox() {
+    producer(true).notifyCreate(accreditation);
+
+    ArgumentCaptor<AccreditationStateChange> stateChange =
+        ArgumentCaptor.forClass(AccreditationStateChange.class);
+    verify(mockOutboxRepository).append(stateChange.capture());
+    assertEquals(accreditation.getId().toString(), stateChange.getValue().accreditationId());
+    assertEquals(AccreditationStateChange.Action.CREATE, stateChange.getValue().action());
+
+    assertEquals(0, many.scan(Scannable.Attr.BUFFERED));
+    verify(mockEventPublisher).publishEvent(stateChange.getValue());
+  }
+
+  @Test
+  void writeExpiredChunkToTheOutboxAtOnce() {
+    List<Accreditation> accreditations = MockHelpers.mockAccreditations("123456", 3);
+    when(mockStateChangeFactory.create(
+            eq(AccreditationStateChange.Action.SCHEDULED_EXPIRE),
+            any(Accreditation.class),
+            eq(Status.EXPIRED),
+            eq(Status.CONFIRMED)))
+        .thenAnswer(
+            invocation ->
+                stateChange(
+                    AccreditationStateChange.Action.SCHEDULED_EXPIRE,
+                    invocation.getArgument(1)));
+
+    producer(true).notifyScheduledExpire(accreditations, Status.CONFIRMED);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<AccreditationStateChange>> stateChanges =
+        ArgumentCaptor.forClass(List.class);
+    verify(mockOutboxRepository).appendAll(stateChanges.capture());
+    assertEquals(
+        accreditations.stream().map(a -> a.getId().toString()).collect(Collectors.toList()),
+        stateChanges.getValue().stream()
+            .map(AccreditationStateChange::accreditationId)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  void emitStraightAwayWithoutOutbox() {
+    producer(false).notifyCreate(accreditation);
+
+    verifyNoInteractions(mockOutboxRepository);
+    assertEquals(1, many.scan(Scannable.Attr.BUFFERED));
+  }
+
+  @Test
+  void countMessagesTheSinkRejects() {
+    many.tryEmitComplete();
+
+    assertThrows(Sinks.EmissionException.class, () -> producer(false).notifyCreate(accreditation));
+    assertEquals(
+        1,
+        meterRegistry
+            .get("accreditation.audit.send.failures")
+            .tag("path", "sink")
+            .counter()
+            .count());
+  }
+
+  private KafkaProducer producer(boolean outboxEnabled) {
+    return new KafkaProducer(
+        many,
+        mockStateChangeFactory,
+        mockOutboxRepository,
+        outboxEnabled,
+        mockEventPublisher,
+        meterRegistry);
+  }
+
+  private static AccreditationStateChange stateChange(
+      AccreditationStateChange.Action action, Accreditation accreditation) {
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        null,
+        action,
+        "123456",
+        accreditation.getId().toString(),
+        null,
+        Status.PENDING,
+        null,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,119 @@
+package com.yieldstreet.accreditation.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+  private static final int BATCH_SIZE = 3;
+
+  @Mock OutboxRepository mockOutboxRepository;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
+  private AutoCloseable closeable;
+
+  private InMemoryOutboxPublisher publisher;
+
+  private OutboxRelay outboxRelay;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    publisher = new InMemoryOutboxPublisher();
+    outboxRelay =
+        new OutboxRelay(
+            mockOutboxRepository,
+            publisher,
+            new TransactionTemplate(mockTransactionManager),
+            BATCH_SIZE);
+    when(mockOutboxRepository.tryLockRelay()).thenReturn(true);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void relayUntilTheOutboxIsDrained() {
+    List<OutboxMessage> first = messages(1, 3);
+    List<OutboxMessage> second = messages(4, 5);
+    when(mockOutboxRepository.lockBatch(BATCH_SIZE)).thenReturn(first).thenReturn(second);
+
+    assertEquals(5, outboxRelay.relay());
+
+    assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(publisher.published()));
+    verify(mockOutboxRepository).delete(first);
+    verify(mockOutboxRepository).delete(second);
+    verify(mockTransactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void nothingToRelay() {
+    when(mockOutboxRepository.lockBatch(BATCH_SIZE)).thenReturn(Collections.emptyList());
+
+    assertEquals(0, outboxRelay.relay());
+
+    verify(mockOutboxRepository, never()).delete(any());
+  }
+
+  @Test
+  void skipThePollWhileAnotherInstanceRelays() {
+    when(mockOutboxRepository.tryLockRelay()).thenReturn(false);
+
+    assertEquals(0, outboxRelay.relay());
+
+    verify(mockOutboxRepository, never()).lockBatch(anyInt());
+    assertTrue(publisher.published().isEmpty());
+  }
+
+  @Test
+  void keepMessagesWhichCouldNotBePublished() {
+    when(mockOutboxRepository.lockBatch(BATCH_SIZE)).thenReturn(messages(1, 3));
+    publisher.setFailing(true);
+
+    assertEquals(0, outboxRelay.relay());
+
+    verify(mockOutboxRepository, never()).delete(any());
+    verify(mockTransactionManager).rollback(any());
+
+    // sent on the next poll, once the broker is back
+    publisher.setFailing(false);
+    when(mockOutboxRepository.lockBatch(BATCH_SIZE))
+        .thenReturn(messages(1, 3))
+        .thenReturn(Collections.emptyList());
+
+    assertEquals(3, outboxRelay.relay());
+    assertEquals(List.of(1L, 2L, 3L), ids(publisher.published()));
+  }
+
+  private static List<Long> ids(List<OutboxMessage> messages) {
+    return messages.stream().map(OutboxMessage::id).collect(Collectors.toList());
+  }
+
+  private static List<OutboxMessage> messages(long fromId, long toId) {
+    return LongStream.rangeClosed(fromId, toId)
+        .mapToObj(
+            id ->
+                new OutboxMessage(
+                    id, "user-" + id, ("message " + id).getBytes(StandardCharsets.UTF_8)))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,77 @@
+package com.yieldstreet.accreditation.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedDataSourceTest {
+
+  @Mock DataSource mockDataSource;
+
+  private AutoCloseable closeable;
+
+  private BoundedDataSource dataSource;
+
+  @BeforeEach
+  public void setup() throws SQLException {
+    closeable = MockitoAnnotations.openMocks(this);
+    when(mockDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    dataSource = new BoundedDataSource(mockDataSource, 2, Duration.ofMillis(50));
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void waitForAConnectionToBeClosed() throws SQLException {
+    Connection first = dataSource.getConnection();
+    dataSource.getConnection();
+
+    assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+
+    first.close();
+    // closing it again does not hand back another permit
+    first.close();
+    assertNotNull(dataSource.getConnection());
+    assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+    verify(mockDataSource, times(3)).getConnection();
+  }
+
+  @Test
+  void permitHandedBackIfTheConnectionFails() throws SQLException {
+    when(mockDataSource.getConnection())
+        .thenThrow(new SQLException("Connection refused"))
+        .thenAnswer(invocation -> mock(Connection.class));
+
+    assertThrows(SQLException.class, () -> dataSource.getConnection());
+
+    dataSource.getConnection();
+    dataSource.getConnection();
+  }
+
+  @Test
+  void callsPassedToTheConnection() throws SQLException {
+    Connection target = mock(Connection.class);
+    when(mockDataSource.getConnection()).thenReturn(target);
+
+    Connection connection = dataSource.getConnection();
+    connection.setAutoCommit(false);
+    connection.close();
+
+    verify(target).setAutoCommit(false);
+    verify(target).close();
+  }
+}
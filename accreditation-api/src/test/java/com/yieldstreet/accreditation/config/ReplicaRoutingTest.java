@@ -0,0 +1,173 @@
+package com.yieldstreet.accreditation.config;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingTest {
+
+  @Mock DataSource mockPrimary;
+
+  @Mock DataSource mockReplica;
+
+  @Mock Connection mockPrimaryConnection;
+
+  @Mock Connection mockReplicaConnection;
+
+  private AutoCloseable closeable;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ReplicaRouting routing;
+
+  private TransactionTemplate readOnlyTransaction;
+
+  private TransactionTemplate transaction;
+
+  @BeforeEach
+  public void setup() throws SQLException {
+    closeable = MockitoAnnotations.openMocks(this);
+    when(mockPrimary.getConnection()).thenReturn(mockPrimaryConnection);
+    when(mockReplica.getConnection()).thenReturn(mockReplicaConnection);
+
+    meterRegistry = new SimpleMeterRegistry();
+    routing = new ReplicaRouting(true, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    routing.bindTo(meterRegistry);
+
+    LazyConnectionDataSourceProxy dataSource =
+        new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(mockPrimary, mockReplica, routing));
+    dataSource.setDefaultAutoCommit(true);
+    dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    transaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  /** Runs a statement in a transaction, which takes the connection. */
+  private Void runStatement(TransactionTemplate template) {
+    return template.execute(
+        status -> {
+          DataSource dataSource =
+              ((DataSourceTransactionManager) template.getTransactionManager()).getDataSource();
+          try {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+          } catch (SQLException e) {
+            throw new IllegalStateException(e);
+          }
+          return null;
+        });
+  }
+
+  private void assertConnectedTo(Runnable transaction, DataSource expected, DataSource other)
+      throws SQLException {
+    clearInvocations(mockPrimary, mockReplica);
+    transaction.run();
+    verify(expected).getConnection();
+    verify(other, never()).getConnection();
+  }
+
+  private static AccreditationStateChange stateChange(
+      AccreditationStateChange.Action action, String userId) {
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        OffsetDateTime.now(),
+        action,
+        userId,
+        UUID.randomUUID().toString(),
+        AccreditationType.NET_WORTH,
+        Status.PENDING,
+        null,
+        null,
+        null);
+  }
+
+  @Test
+  void readOnlyTransactionsGoToTheReplica() throws SQLException {
+    routing.lagMeasured(0.5);
+
+    assertConnectedTo(() -> runStatement(readOnlyTransaction), mockReplica, mockPrimary);
+    assertConnectedTo(() -> runStatement(transaction), mockPrimary, mockReplica);
+    // the replica connection is made read-only, as the transaction is
+    verify(mockReplicaConnection).setReadOnly(true);
+
+    assertEquals(
+        1, meterRegistry.get("accreditation.db.reads").tag("target", "replica").functionCounter().count());
+    assertEquals(
+        0, meterRegistry.get("accreditation.db.reads").tag("target", "primary").functionCounter().count());
+  }
+
+  @Test
+  void primaryWhileTheReplicaLags() throws SQLException {
+    // not measured yet
+    assertConnectedTo(() -> runStatement(readOnlyTransaction), mockPrimary, mockReplica);
+
+    routing.lagMeasured(5.5);
+    assertConnectedTo(() -> runStatement(readOnlyTransaction), mockPrimary, mockReplica);
+    assertEquals(5.5, meterRegistry.get("accreditation.db.replica.lag").gauge().value());
+
+    routing.lagMeasured(Double.NaN);
+    assertConnectedTo(() -> runStatement(readOnlyTransaction), mockPrimary, mockReplica);
+
+    routing.lagMeasured(5);
+    assertConnectedTo(() -> runStatement(readOnlyTransaction), mockReplica, mockPrimary);
+  }
+
+  @Test
+  void primaryForTheUsersWhoseAccreditationsJustChanged() throws SQLException {
+    routing.lagMeasured(0);
+    routing.onStateChange(stateChange(AccreditationStateChange.Action.CREATE, "creator"));
+    routing.onStateChange(stateChange(AccreditationStateChange.Action.FINALISE, "finalised"));
+    routing.onStateChange(
+        stateChange(AccreditationStateChange.Action.SCHEDULED_EXPIRE, "expired"));
+
+    for (String userId : List.of("creator", "finalised", "expired")) {
+      assertConnectedTo(
+          () -> routing.read(userId, () -> runStatement(readOnlyTransaction)),
+          mockPrimary,
+          mockReplica);
+    }
+    assertConnectedTo(
+        () -> routing.read("someone else", () -> runStatement(readOnlyTransaction)),
+        mockReplica,
+        mockPrimary);
+  }
+
+  @Test
+  void alwaysPrimaryWithoutReplica() {
+    ReplicaRouting disabled =
+        new ReplicaRouting(false, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    disabled.lagMeasured(0);
+
+    assertEquals(
+        ReplicaRouting.Target.PRIMARY,
+        readOnlyTransaction.execute(status -> disabled.target()));
+  }
+}
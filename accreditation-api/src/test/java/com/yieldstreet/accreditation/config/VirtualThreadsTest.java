@@ -0,0 +1,25 @@
+package com.yieldstreet.accreditation.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+  @Test
+  void virtualThreadsFromJava21() throws Exception {
+    if (Runtime.version().feature() < 21) {
+      assertThrows(IllegalStateException.class, () -> VirtualThreads.factory("test-"));
+      return;
+    }
+
+    ThreadFactory factory = VirtualThreads.factory("test-");
+    Thread thread = factory.newThread(() -> {});
+    Method isVirtual = Thread.class.getMethod("isVirtual");
+    assertTrue((Boolean) isVirtual.invoke(thread));
+    assertEquals("test-0", thread.getName());
+  }
+}
@@ -0,0 +1,82 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCodecTest {
+
+  private static byte[] text() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append("Line ").append(i).append(": net worth statement of the account holder\n");
+    }
+    return text.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void roundTrip() {
+    byte[] text = text();
+    byte[] random = new byte[100_000];
+    new Random(42).nextBytes(random);
+
+    for (DocumentCodec codec : DocumentCodec.values()) {
+      for (byte[] content : new byte[][] {text, random, new byte[0]}) {
+        assertArrayEquals(content, codec.decode(codec.encode(content)), codec.getName());
+      }
+    }
+    assertTrue(DocumentCodec.LZ4.encode(text).length * 5 < text.length);
+    assertTrue(DocumentCodec.ZSTD.encode(text).length * 10 < text.length);
+  }
+
+  @Test
+  void streamsAndArraysShareTheFormat() throws IOException {
+    byte[] text = text();
+
+    for (DocumentCodec codec : DocumentCodec.values()) {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      try (OutputStream out = codec.encoder(encoded)) {
+        out.write(text);
+      }
+      assertArrayEquals(text, codec.decode(encoded.toByteArray()), codec.getName());
+
+      try (InputStream in = codec.decoder(new ByteArrayInputStream(codec.encode(text)))) {
+        assertArrayEquals(text, in.readAllBytes(), codec.getName());
+      }
+    }
+  }
+
+  @Test
+  void names() {
+    assertEquals("zstd", DocumentCodec.ZSTD.getName());
+    assertEquals(DocumentCodec.LZ4, DocumentCodec.fromName("lz4"));
+    assertThrows(IllegalArgumentException.class, () -> DocumentCodec.fromName("gzip"));
+  }
+
+  @Test
+  void codecByMimeType() {
+    DocumentCodecs codecs =
+        new DocumentCodecs("application/pdf=none, image/*=none,text/csv=zstd,text/*=lz4", "zstd");
+
+    assertEquals(DocumentCodec.NONE, codecs.forMimeType("application/pdf"));
+    assertEquals(DocumentCodec.NONE, codecs.forMimeType("image/png"));
+    assertEquals(DocumentCodec.ZSTD, codecs.forMimeType("text/csv"));
+    assertEquals(DocumentCodec.LZ4, codecs.forMimeType("text/plain; charset=UTF-8"));
+    // the default
+    assertEquals(DocumentCodec.ZSTD, codecs.forMimeType("application/json"));
+    assertEquals(DocumentCodec.ZSTD, codecs.forMimeType("not a type"));
+    assertEquals(DocumentCodec.ZSTD, codecs.forMimeType(null));
+
+    assertEquals(DocumentCodec.LZ4, new DocumentCodecs("", "lz4").forMimeType("image/png"));
+    assertThrows(IllegalArgumentException.class, () -> new DocumentCodecs("image/png", "zstd"));
+    assertThrows(IllegalArgumentException.class, () -> new DocumentCodecs("", "snappy"));
+  }
+}
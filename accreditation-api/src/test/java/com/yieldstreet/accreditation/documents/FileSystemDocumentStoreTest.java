@@ -0,0 +1,67 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemDocumentStoreTest {
+
+  @TempDir Path root;
+
+  @Test
+  void storeAndLoad() {
+    FileSystemDocumentStore documentStore = new FileSystemDocumentStore(root);
+    byte[] content = "%PDF-1.4 some document".getBytes(StandardCharsets.UTF_8);
+
+    DocumentReference reference = documentStore.store(content);
+    assertEquals(DocumentReference.forContent(content), reference);
+    assertEquals(content.length, reference.size());
+
+    Optional<ByteBuffer> loaded = documentStore.load(reference.hash());
+    assertTrue(loaded.isPresent());
+    byte[] loadedContent = new byte[loaded.get().remaining()];
+    loaded.get().get(loadedContent);
+    assertArrayEquals(content, loadedContent);
+  }
+
+  @Test
+  void storeStreamedContent() throws Exception {
+    FileSystemDocumentStore documentStore = new FileSystemDocumentStore(root);
+    byte[] content = "%PDF-1.4 some streamed document".getBytes(StandardCharsets.UTF_8);
+
+    DocumentReference reference = documentStore.store(new ByteArrayInputStream(content));
+    assertEquals(DocumentReference.forContent(content), reference);
+    assertEquals(documentStore.store(content), documentStore.store(new ByteArrayInputStream(content)));
+
+    // nothing is left behind from spooling
+    try (Stream<Path> files = Files.walk(root)) {
+      assertEquals(1, files.filter(Files::isRegularFile).count());
+    }
+  }
+
+  @Test
+  void sameContentIsStoredOnce() throws Exception {
+    FileSystemDocumentStore documentStore = new FileSystemDocumentStore(root);
+    byte[] content = "%PDF-1.4 some document".getBytes(StandardCharsets.UTF_8);
+
+    assertEquals(documentStore.store(content), documentStore.store(content));
+    try (Stream<Path> files = Files.walk(root)) {
+      assertEquals(1, files.filter(Files::isRegularFile).count());
+    }
+  }
+
+  @Test
+  void unknownDocument() {
+    FileSystemDocumentStore documentStore = new FileSystemDocumentStore(root);
+    assertTrue(documentStore.load(DocumentReference.forContent(new byte[] {1}).hash()).isEmpty());
+  }
+}
@@ -0,0 +1,206 @@
+package com.yieldstreet.accreditation.documents;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link PostgresDocumentStore} and the V3 backfill ({@link
+ * DocumentStoreBackfillMigration}) against a local PostgreSQL: the schema is migrated up to V2,
+ * seeded with accreditations holding their base64 content, then migrated to the latest version.
+ *
+ * <p>The database is the one of the service ({@code DB_HOST}, {@code DB_PORT}, {@code DB_NAME},
+ * {@code DB_USERNAME} and {@code DB_PASSWORD}), in a {@code document_store} schema of its own which
+ * is dropped afterwards. The test is skipped when the database cannot be reached.
+ */
+@EnabledIf("databaseAvailable")
+class PostgresDocumentStoreTest {
+
+  private static final String SCHEMA = "document_store";
+
+  private static final String URL =
+      "jdbc:postgresql://"
+          + env("DB_HOST", "localhost")
+          + ":"
+          + env("DB_PORT", "5432")
+          + "/"
+          + env("DB_NAME", "yieldstreet");
+
+  private static final String USERNAME = env("DB_USERNAME", "yieldstreet");
+
+  private static final String PASSWORD = env("DB_PASSWORD", "");
+
+  private static final byte[] DOCUMENT =
+      "%PDF-1.4 the same document, uploaded twice".getBytes(StandardCharsets.UTF_8);
+
+  /** Accepted before the API validated the encoding */
+  private static final String NOT_BASE64 = "not base64 at all!";
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private static PostgresDocumentStore documentStore;
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null ? defaultValue : value;
+  }
+
+  static boolean databaseAvailable() {
+    try (Connection ignored = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+      return true;
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  @BeforeAll
+  static void migrate() throws SQLException {
+    dropSchema();
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(URL + "?currentSchema=" + SCHEMA, USERNAME, PASSWORD);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DocumentCodecs documentCodecs = new DocumentCodecs("application/pdf=none", "zstd");
+    documentStore = new PostgresDocumentStore(dataSource, documentCodecs);
+
+    // batches of 2, so that the backfill commits more than one
+    Flyway flyway =
+        Flyway.configure()
+            .dataSource(dataSource)
+            .schemas(SCHEMA)
+            .locations("classpath:db/migration")
+            .javaMigrations(
+                new DocumentStoreBackfillMigration(documentStore, "postgres", 2),
+                new DocumentCodecMigration(documentCodecs, 2))
+            .target(MigrationVersion.fromVersion("2"))
+            .load();
+    flyway.migrate();
+
+    jdbcTemplate.update("INSERT INTO users (user_id) VALUES ('user-1'), ('user-2')");
+    String content = Base64.getEncoder().encodeToString(DOCUMENT);
+    for (String[] accreditation :
+        List.of(
+            new String[] {"user-1", "a.pdf", content},
+            new String[] {"user-2", "b.pdf", content},
+            new String[] {"user-2", "c.txt", NOT_BASE64})) {
+      jdbcTemplate.update(
+          "INSERT INTO accreditations (user_id, type, document_name, document_mime_type,"
+              + " document_content, status)"
+              + " SELECT id, 'BY_INCOME', ?, 'application/pdf', ?, 'CONFIRMED' FROM users"
+              + " WHERE user_id = ?",
+          accreditation[1],
+          accreditation[2],
+          accreditation[0]);
+    }
+
+    Flyway.configure()
+        .configuration(flyway.getConfiguration())
+        .target(MigrationVersion.LATEST)
+        .load()
+        .migrate();
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        Statement statement = connection.createStatement()) {
+      statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+  }
+
+  private static byte[] load(String hash) {
+    Optional<ByteBuffer> loaded = documentStore.load(hash);
+    assertTrue(loaded.isPresent(), () -> "No document " + hash);
+    byte[] content = new byte[loaded.get().remaining()];
+    loaded.get().get(content);
+    return content;
+  }
+
+  private static int countDocuments(String hash) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM documents WHERE hash = ?", Integer.class, hash);
+  }
+
+  @Test
+  void backfillMovesTheContentToTheDocuments() {
+    Map<String, DocumentReference> references =
+        jdbcTemplate.query(
+            "SELECT document_name, document_hash, document_size FROM accreditations",
+            rs -> {
+              Map<String, DocumentReference> result = new HashMap<>();
+              while (rs.next()) {
+                result.put(
+                    rs.getString("document_name"),
+                    new DocumentReference(
+                        rs.getString("document_hash"), rs.getLong("document_size")));
+              }
+              return result;
+            });
+
+    assertEquals(3, references.size());
+    assertEquals(DocumentReference.forContent(DOCUMENT), references.get("a.pdf"));
+    assertArrayEquals(DOCUMENT, load(references.get("a.pdf").hash()));
+    // the same content is kept once
+    assertEquals(references.get("a.pdf"), references.get("b.pdf"));
+    assertEquals(1, countDocuments(references.get("a.pdf").hash()));
+    // content which was not base64 is kept as it was sent
+    byte[] notBase64 = NOT_BASE64.getBytes(StandardCharsets.UTF_8);
+    assertEquals(DocumentReference.forContent(notBase64), references.get("c.txt"));
+    assertArrayEquals(notBase64, load(references.get("c.txt").hash()));
+  }
+
+  @Test
+  void storeAndLoad() {
+    byte[] content = "a text document, ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    DocumentReference reference = documentStore.store(content, "text/plain");
+    assertEquals(DocumentReference.forContent(content), reference);
+    assertArrayEquals(content, load(reference.hash()));
+    // compressed with the default codec, which the table records
+    assertEquals(
+        "zstd",
+        jdbcTemplate.queryForObject(
+            "SELECT codec FROM documents WHERE hash = ?", String.class, reference.hash()));
+    assertTrue(
+        jdbcTemplate.queryForObject(
+                "SELECT octet_length(content) FROM documents WHERE hash = ?",
+                Integer.class,
+                reference.hash())
+            < content.length);
+
+    String missing = DocumentReference.forContent(new byte[0]).hash();
+    assertEquals(Optional.empty(), documentStore.load(missing));
+  }
+
+  @Test
+  void sameContentIsStoredOnce() {
+    byte[] content = "%PDF-1.4 stored again and again".getBytes(StandardCharsets.UTF_8);
+
+    DocumentReference reference = documentStore.store(content, "application/pdf");
+    assertEquals(
+        reference, documentStore.store(new ByteArrayInputStream(content), "application/pdf"));
+    assertEquals(reference, documentStore.store(content, "text/plain"));
+
+    assertEquals(1, countDocuments(reference.hash()));
+    assertArrayEquals(content, load(reference.hash()));
+  }
+}
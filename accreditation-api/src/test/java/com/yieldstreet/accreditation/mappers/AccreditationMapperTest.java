@@ -1,11 +1,12 @@
 package com.yieldstreet.accreditation.mappers;
 
-import com.yieldstreet.accreditation.persistence.Accreditation;
-import com.yieldstreet.accreditation.persistence.User;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
 import com.yieldstreet.model.AccreditationStatusDetails;
+import com.yieldstreet.model.AccreditationStatusResponse;
 import org.junit.jupiter.api.Test;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.yieldstreet.accreditation.MockHelpers.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -14,19 +15,29 @@ class AccreditationMapperTest {
 
   @Test
   void mapToStatusDetails() {
-    String userId = "0124152";
-    User user = mockUser(userId);
-    Accreditation accreditation =
-        mockAccreditation(
-            UUID.randomUUID(), user, randomEnum(Accreditation.AccreditationStatus.class));
+    AccreditationStatusView accreditation = mockStatusViews(1).get(0);
 
     AccreditationStatusDetails accreditationStatusDetails =
         AccreditationMapper.mapToStatusDetails(accreditation);
     assertEquals(
-        StatusMapper.mapToStatus(accreditation.getStatus()),
+        StatusMapper.mapToStatus(accreditation.status()),
         accreditationStatusDetails.getStatus());
     assertEquals(
-        AccreditationTypeMapper.mapPersistedAccreditationType(accreditation.getType()),
+        AccreditationTypeMapper.mapPersistedAccreditationType(accreditation.type()),
         accreditationStatusDetails.getAccreditationType());
   }
+
+  @Test
+  void mapToStatusResponseKeepsOrder() {
+    String userId = "0124152";
+    List<AccreditationStatusView> accreditations = mockStatusViews(20);
+
+    AccreditationStatusResponse response =
+        AccreditationMapper.mapToStatusResponse(userId, accreditations);
+    assertEquals(userId, response.getUserId());
+
+    List<String> expectedIds = new ArrayList<>();
+    accreditations.forEach(accreditation -> expectedIds.add(accreditation.id().toString()));
+    assertEquals(expectedIds, new ArrayList<>(response.getAccreditationStatuses().keySet()));
+  }
 }
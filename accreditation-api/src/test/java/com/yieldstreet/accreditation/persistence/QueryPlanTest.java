@@ -0,0 +1,392 @@
+package com.yieldstreet.accreditation.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the queries of the repositories are served by indexes: each repository method is
+ * called against a local PostgreSQL, seeded with 200 000 accreditations, and every statement it
+ * runs is explained first, failing the test if its plan has a sequential scan. The exports of whole
+ * tables, which read every row anyway, are not covered.
+ *
+ * <p>The database is the one of the service ({@code DB_HOST}, {@code DB_PORT}, {@code DB_NAME},
+ * {@code DB_USERNAME} and {@code DB_PASSWORD}), in a {@code query_plans} schema of its own which is
+ * dropped afterwards. The test is skipped when the database cannot be reached.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("databaseAvailable")
+@Import({
+  AccreditationListingRepository.class,
+  AccreditationExpiryRepository.class,
+  AccreditationBatchRepository.class,
+  AccreditationArchivalRepository.class,
+  QueryPlanTest.ExplainConfig.class
+})
+class QueryPlanTest {
+
+  private static final String SCHEMA = "query_plans";
+
+  private static final String URL =
+      "jdbc:postgresql://"
+          + env("DB_HOST", "localhost")
+          + ":"
+          + env("DB_PORT", "5432")
+          + "/"
+          + env("DB_NAME", "yieldstreet");
+
+  private static final String USERNAME = env("DB_USERNAME", "yieldstreet");
+
+  private static final String PASSWORD = env("DB_PASSWORD", "");
+
+  private static final OffsetDateTime NOW = OffsetDateTime.now();
+
+  @Autowired AccreditationRepository accreditationRepository;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired AccreditationListingRepository accreditationListingRepository;
+
+  @Autowired AccreditationExpiryRepository accreditationExpiryRepository;
+
+  @Autowired AccreditationBatchRepository accreditationBatchRepository;
+
+  @Autowired AccreditationArchivalRepository accreditationArchivalRepository;
+
+  @Autowired ExplainingDataSource explainingDataSource;
+
+  private static String env(String name, String defaultValue) {
+    String value = System.getenv(name);
+    return value == null ? defaultValue : value;
+  }
+
+  static boolean databaseAvailable() {
+    try (Connection ignored = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+      return true;
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  @DynamicPropertySource
+  static void database(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> URL + "?currentSchema=" + SCHEMA);
+    registry.add("spring.datasource.username", () -> USERNAME);
+    registry.add("spring.datasource.password", () -> PASSWORD);
+    registry.add("spring.flyway.schemas", () -> SCHEMA);
+    registry.add("spring.flyway.locations", () -> "classpath:db/migration,classpath:db/query-plans");
+    registry.add("spring.flyway.clean-disabled", () -> "false");
+  }
+
+  @AfterAll
+  static void dropSchema() throws SQLException {
+    try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        Statement statement = connection.createStatement()) {
+      statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+  }
+
+  /** Runs the call, failing if any statement it runs would scan a table sequentially. */
+  private void assertIndexed(Runnable call) {
+    List<ExplainedStatement> statements = explainingDataSource.explain(call);
+    assertFalse(statements.isEmpty(), "No statement was run");
+    for (ExplainedStatement statement : statements) {
+      assertFalse(
+          statement.plan().toString().contains("\"Node Type\":\"Seq Scan\""),
+          () -> "Sequential scan in the plan of " + statement.sql() + "\n" + statement.plan());
+    }
+  }
+
+  private UUID anyAccreditationId(Accreditation.AccreditationStatus status) {
+    return accreditationListingRepository
+        .findPage(new AccreditationFilter(status, null, null, null, null, null), null, 1)
+        .get(0)
+        .id();
+  }
+
+  @Test
+  void userStatuses() {
+    int userId = userRepository.findIdByUserId("user-1234").orElseThrow();
+    assertIndexed(() -> userRepository.findIdByUserId("user-1234"));
+    assertIndexed(() -> accreditationRepository.findStatusesByUserInternalId(userId));
+    assertIndexed(() -> accreditationRepository.findStampByUserInternalId(userId));
+  }
+
+  @Test
+  void batchLookups() {
+    List<String> userIds = List.of("user-1", "user-2", "user-3");
+    assertIndexed(() -> userRepository.findByUserIdIn(userIds));
+    assertIndexed(
+        () ->
+            accreditationRepository.findUserIdsWithStatus(
+                userIds, Accreditation.AccreditationStatus.PENDING));
+    assertIndexed(
+        () ->
+            accreditationRepository.findUserIdsWithStatus(
+                userIds, Accreditation.AccreditationStatus.CONFIRMED));
+    assertIndexed(() -> accreditationBatchRepository.createMissingUsers(userIds));
+  }
+
+  @Test
+  void accreditationsById() {
+    UUID id = anyAccreditationId(Accreditation.AccreditationStatus.PENDING);
+    List<UUID> ids = List.of(id, anyAccreditationId(Accreditation.AccreditationStatus.CONFIRMED));
+    assertIndexed(() -> accreditationRepository.findById(id));
+    assertIndexed(() -> accreditationRepository.findAllWithUserByIdIn(ids));
+    assertIndexed(() -> accreditationRepository.findStampById(id));
+    assertIndexed(() -> accreditationRepository.findStampsByIdIn(ids));
+  }
+
+  @Test
+  void statusUpdates() {
+    UUID id = anyAccreditationId(Accreditation.AccreditationStatus.PENDING);
+    assertIndexed(
+        () ->
+            accreditationRepository.finaliseAccreditationStatus(
+                Accreditation.AccreditationStatus.CONFIRMED, id, 0));
+    assertIndexed(
+        () ->
+            accreditationBatchRepository.finaliseAccreditationStatuses(
+                List.of(
+                    new StampedStatusUpdate(id, Accreditation.AccreditationStatus.FAILED, 1))));
+  }
+
+  @Test
+  void pendingInsert() {
+    Accreditation accreditation = new Accreditation();
+    accreditation.setUser(new User());
+    accreditation.getUser().setUserId("user-3");
+    accreditation.setType(Accreditation.AccreditationType.BY_INCOME);
+    accreditation.setDocumentName("2018.pdf");
+    accreditation.setDocumentMimeType("application/pdf");
+    accreditation.setDocumentHash("0".repeat(64));
+    accreditation.setDocumentSize(1024L);
+    assertIndexed(() -> accreditationBatchRepository.insertPendingAccreditation(accreditation));
+  }
+
+  @Test
+  void expiry() {
+    // the usual run, with a few accreditations to expire
+    assertIndexed(
+        () ->
+            accreditationExpiryRepository.expireChunk(
+                NOW.minusMonths(9), new UUID(0, 0), 500));
+    // and one which has nothing to do
+    assertIndexed(
+        () ->
+            accreditationExpiryRepository.expireChunk(
+                NOW.minusYears(2), new UUID(0, 0), 500));
+  }
+
+  @Test
+  void archival() {
+    // the usual run, with the accreditations which became old enough since the last one
+    assertIndexed(() -> accreditationArchivalRepository.archiveChunk(NOW.minusMonths(3), 1000));
+    // and one which has nothing to do
+    assertIndexed(() -> accreditationArchivalRepository.archiveChunk(NOW.minusYears(1), 1000));
+  }
+
+  @Test
+  void listing() {
+    List<AccreditationFilter> filters =
+        List.of(
+            new AccreditationFilter(null, null, null, null, null, null),
+            new AccreditationFilter(
+                Accreditation.AccreditationStatus.PENDING, null, null, null, null, null),
+            new AccreditationFilter(
+                null, Accreditation.AccreditationType.BY_NET_WORTH, null, null, null, null),
+            new AccreditationFilter(
+                Accreditation.AccreditationStatus.CONFIRMED,
+                Accreditation.AccreditationType.BY_INCOME,
+                NOW.minusMonths(3),
+                NOW,
+                null,
+                null),
+            new AccreditationFilter(null, null, null, null, NOW.minusDays(7), NOW));
+    for (AccreditationFilter filter : filters) {
+      assertIndexed(() -> accreditationListingRepository.findPage(filter, null, 100));
+      assertIndexed(
+          () ->
+              accreditationListingRepository.findPage(
+                  filter, new AccreditationCursor(NOW.minusMonths(6), new UUID(0, 0)), 100));
+    }
+    // an export of the last week, and one of the accreditations updated in the last hour
+    assertIndexed(
+        () ->
+            accreditationListingRepository.forEach(
+                new AccreditationFilter(null, null, NOW.minusDays(7), NOW, null, null),
+                view -> {}));
+    assertIndexed(
+        () ->
+            accreditationListingRepository.forEach(
+                new AccreditationFilter(null, null, null, null, NOW.minusHours(1), NOW),
+                view -> {}));
+  }
+
+  /** A statement run by a repository, with the plan PostgreSQL chose for it. */
+  record ExplainedStatement(String sql, JsonNode plan) {}
+
+  /**
+   * Wraps the data source of the test, so that while {@link #explain} runs a call, every prepared
+   * statement is explained with its parameters, on the same connection, before it is executed.
+   */
+  static class ExplainingDataSource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private List<ExplainedStatement> explained;
+
+    List<ExplainedStatement> explain(Runnable call) {
+      explained = new ArrayList<>();
+      try {
+        call.run();
+        return explained;
+      } finally {
+        explained = null;
+      }
+    }
+
+    DataSource wrap(DataSource dataSource) {
+      return proxy(
+          DataSource.class,
+          dataSource,
+          (method, args, result) ->
+              method.getName().equals("getConnection")
+                  ? wrap((Connection) result)
+                  : result);
+    }
+
+    private Connection wrap(Connection connection) {
+      return proxy(
+          Connection.class,
+          connection,
+          (method, args, result) ->
+              method.getName().equals("prepareStatement")
+                  ? wrap((PreparedStatement) result, connection, (String) args[0])
+                  : result);
+    }
+
+    private PreparedStatement wrap(
+        PreparedStatement statement, Connection connection, String sql) {
+      List<Object[]> parameters = new ArrayList<>();
+      return (PreparedStatement)
+          Proxy.newProxyInstance(
+              getClass().getClassLoader(),
+              new Class<?>[] {PreparedStatement.class},
+              (proxy, method, args) -> {
+                String name = method.getName();
+                if (explained != null) {
+                  if (name.startsWith("set")
+                      && args != null
+                      && args.length >= 2
+                      && args[0] instanceof Integer) {
+                    parameters.add(new Object[] {method, args});
+                  } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                    explained.add(explainStatement(connection, sql, parameters));
+                  }
+                }
+                try {
+                  return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              });
+    }
+
+    private static ExplainedStatement explainStatement(
+        Connection connection, String sql, List<Object[]> parameters) throws Exception {
+      try (PreparedStatement explain =
+          connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+        for (Object[] parameter : parameters) {
+          ((Method) parameter[0]).invoke(explain, (Object[]) parameter[1]);
+        }
+        try (ResultSet rs = explain.executeQuery()) {
+          rs.next();
+          return new ExplainedStatement(sql, MAPPER.readTree(rs.getString(1)));
+        }
+      }
+    }
+
+    private interface ResultWrapper {
+      Object wrap(Method method, Object[] args, Object result) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+      return (T)
+          Proxy.newProxyInstance(
+              type.getClassLoader(),
+              new Class<?>[] {type},
+              (proxy, method, args) -> {
+                try {
+                  return wrapper.wrap(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              });
+    }
+  }
+
+  @TestConfiguration
+  static class ExplainConfig {
+
+    @Bean
+    ExplainingDataSource explainingDataSource() {
+      return new ExplainingDataSource();
+    }
+
+    /** Explains the statements of the repositories. */
+    @Bean
+    static BeanPostProcessor explainingDataSourcePostProcessor(
+        ObjectProvider<ExplainingDataSource> explaining) {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource
+              ? explaining.getObject().wrap(dataSource)
+              : bean;
+        }
+      };
+    }
+
+    /** Starts from an empty schema, which the seed of {@code db/query-plans} fills once migrated. */
+    @Bean
+    FlywayMigrationStrategy cleanMigrate() {
+      return flyway -> {
+        flyway.clean();
+        flyway.migrate();
+      };
+    }
+  }
+}
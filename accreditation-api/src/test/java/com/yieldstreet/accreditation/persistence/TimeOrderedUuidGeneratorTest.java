@@ -0,0 +1,43 @@
+package com.yieldstreet.accreditation.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidGeneratorTest {
+
+  @Test
+  void versionSevenWithTheTimestampFirst() {
+    long later = System.currentTimeMillis() + 60_000;
+    UUID uuid = TimeOrderedUuidGenerator.generate(later);
+
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    // unless an id of a later time was generated before
+    assertTrue(uuid.getMostSignificantBits() >>> 16 >= later);
+    assertTrue(uuid.getMostSignificantBits() >>> 16 < later + 60_000);
+    assertEquals(uuid, UUID.fromString(uuid.toString()));
+  }
+
+  @Test
+  void increasingWithinTheSameMillisecond() {
+    long later = System.currentTimeMillis() + 120_000;
+    Set<UUID> uuids = new HashSet<>();
+    String previous = "";
+    // more than the 4096 values of the counter, which then runs into the next millisecond
+    for (int i = 0; i < 10000; i++) {
+      String uuid = TimeOrderedUuidGenerator.generate(later).toString();
+      // as compared by Postgres (and as strings), unlike UUID.compareTo which uses signed longs
+      assertTrue(previous.compareTo(uuid) < 0);
+      assertEquals('7', uuid.charAt(14));
+      uuids.add(UUID.fromString(uuid));
+      previous = uuid;
+    }
+
+    assertEquals(10000, uuids.size());
+  }
+}
@@ -0,0 +1,95 @@
+package com.yieldstreet.accreditation.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserIdResolverTest {
+
+  @Mock UserRepository mockUserRepository;
+
+  private AutoCloseable closeable;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserIdResolver resolver;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    resolver = new UserIdResolver(mockUserRepository, meterRegistry, 1000);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void resolvedIdIsRemembered() {
+    when(mockUserRepository.findIdByUserId("123456")).thenReturn(Optional.of(42));
+
+    assertEquals(OptionalInt.of(42), resolver.resolve("123456"));
+    assertEquals(OptionalInt.of(42), resolver.resolve("123456"));
+
+    verify(mockUserRepository, times(1)).findIdByUserId("123456");
+    assertEquals(1, gets("hit"));
+    assertEquals(1, gets("miss"));
+  }
+
+  @Test
+  void unknownUserIsNotRemembered() {
+    when(mockUserRepository.findIdByUserId("123456"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(42));
+
+    assertTrue(resolver.resolve("123456").isEmpty());
+    assertEquals(OptionalInt.of(42), resolver.resolve("123456"));
+  }
+
+  @Test
+  void usersSharingASlotAreTold() {
+    // "Aa" and "BB" have the same hash code, so they share a slot
+    resolver.remember("Aa", 1);
+    resolver.remember("BB", 2);
+
+    assertTrue(resolver.getIfPresent("Aa").isEmpty());
+    assertEquals(OptionalInt.of(2), resolver.getIfPresent("BB"));
+  }
+
+  @Test
+  void rememberedOnlyOnceCommitted() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      resolver.remember("123456", 42);
+      assertTrue(resolver.getIfPresent("123456").isEmpty());
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      assertEquals(OptionalInt.of(42), resolver.getIfPresent("123456"));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private double gets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", "user_ids")
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+}
@@ -0,0 +1,95 @@
+package com.yieldstreet.accreditation.reader;
+
+import com.yieldstreet.accreditation.mappers.AccreditationMapper;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.model.AccreditationStatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.yieldstreet.accreditation.MockHelpers.mockStatusViews;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class ReactiveUserApiControllerTest {
+    @Mock
+    private AccreditationStatusReader mockReader;
+
+    private WebTestClient webTestClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AutoCloseable closeable;
+
+    private static final String USER_ACCREDITATIONS = "/user/{userId}/accreditation";
+
+    @BeforeEach
+    public void setup() {
+        closeable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ReactiveUserApiController controller = new ReactiveUserApiController(mockReader, meterRegistry);
+
+        this.webTestClient = WebTestClient.bindToController(controller).build();
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void getAccreditationsForUnknownUser() {
+        String userId = "1234567890";
+
+        when(mockReader.findStatusesByUserId(userId)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri(USER_ACCREDITATIONS, userId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        assertEquals(1, meterRegistry.get("accreditation.requests").timer().count());
+    }
+
+    @Test
+    void getAccreditationForUserWithoutData() {
+        String userId = "1234567890";
+
+        when(mockReader.findStatusesByUserId(userId)).thenReturn(Mono.just(List.of()));
+
+        webTestClient.get().uri(USER_ACCREDITATIONS, userId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AccreditationStatusResponse.class)
+                .isEqualTo(AccreditationMapper.mapToStatusResponse(userId, List.of()));
+    }
+
+    @Test
+    void getAccreditationForUserWithData() {
+        String userId = "1234567890";
+
+        List<AccreditationStatusView> accreditations = mockStatusViews(10);
+
+        when(mockReader.findStatusesByUserId(userId)).thenReturn(Mono.just(accreditations));
+
+        webTestClient.get().uri(USER_ACCREDITATIONS, userId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(AccreditationStatusResponse.class)
+                .isEqualTo(AccreditationMapper.mapToStatusResponse(userId, accreditations));
+
+        assertEquals(1, meterRegistry.get("accreditation.requests").timer().count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.yieldstreet.accreditation.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileEventLogTest {
+
+  @TempDir Path directory;
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void appendAndRead() {
+    FileEventLog log = new FileEventLog(directory);
+    try (FileEventLog.Appender appender = log.appender(1)) {
+      appender.append(bytes("a"), bytes("first"));
+      appender.append(null, bytes("second"));
+      appender.append(bytes("c"), null);
+    }
+    try (FileEventLog.Appender appender = log.appender(0)) {
+      appender.append(bytes("d"), bytes("other"));
+    }
+
+    assertEquals(List.of(0, 1), log.partitions());
+    try (EventLog.Reader reader = log.open(1, 0)) {
+      List<EventLog.LoggedEvent> events = reader.read(2);
+      assertEquals(2, events.size());
+      assertEquals(0, events.get(0).offset());
+      assertArrayEquals(bytes("a"), events.get(0).key());
+      assertArrayEquals(bytes("first"), events.get(0).value());
+      assertNull(events.get(1).key());
+
+      events = reader.read(2);
+      assertEquals(1, events.size());
+      assertEquals(2, events.get(0).offset());
+      assertNull(events.get(0).value());
+
+      assertTrue(reader.read(2).isEmpty());
+    }
+  }
+
+  @Test
+  void openFromAnOffset() {
+    FileEventLog log = new FileEventLog(directory);
+    try (FileEventLog.Appender appender = log.appender(0)) {
+      for (int i = 0; i < 10; i++) {
+        appender.append(bytes("key"), bytes("event " + i));
+      }
+    }
+
+    try (EventLog.Reader reader = log.open(0, 7)) {
+      List<EventLog.LoggedEvent> events = reader.read(100);
+      assertEquals(3, events.size());
+      assertEquals(7, events.get(0).offset());
+      assertArrayEquals(bytes("event 7"), events.get(0).value());
+    }
+    try (EventLog.Reader reader = log.open(0, 20)) {
+      assertTrue(reader.read(100).isEmpty());
+    }
+  }
+
+  @Test
+  void truncatedEventIsRejected() throws IOException {
+    FileEventLog log = new FileEventLog(directory);
+    try (FileEventLog.Appender appender = log.appender(0)) {
+      appender.append(bytes("key"), bytes("event"));
+    }
+    Path file = directory.resolve("0.log");
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+    try (EventLog.Reader reader = log.open(0, 0)) {
+      assertThrows(UncheckedIOException.class, () -> reader.read(10));
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.documents.DocumentReference;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.model.AccreditationType;
+import com.yieldstreet.model.CreateAccreditationRequest;
+import com.yieldstreet.model.Document;
+import com.yieldstreet.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReplayBatchTest {
+
+  private static final OffsetDateTime T0 =
+      OffsetDateTime.of(2022, 11, 3, 17, 45, 12, 123456789, ZoneOffset.UTC);
+
+  private static final DocumentReference DOCUMENT = DocumentReference.forContent(new byte[] {1, 2, 3});
+
+  @Mock DocumentStore mockDocumentStore;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  static AccreditationStateChange create(String userId, UUID id, OffsetDateTime timestamp) {
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        timestamp,
+        AccreditationStateChange.Action.CREATE,
+        userId,
+        id.toString(),
+        AccreditationType.NET_WORTH,
+        Status.PENDING,
+        null,
+        new AccreditationStateChange.DocumentDetails(
+            "2018.pdf", "application/pdf", DOCUMENT.hash(), DOCUMENT.size()),
+        null);
+  }
+
+  static AccreditationStateChange finalise(
+      String userId, UUID id, Status status, Status oldStatus, OffsetDateTime timestamp) {
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        timestamp,
+        status == Status.EXPIRED
+            ? AccreditationStateChange.Action.SCHEDULED_EXPIRE
+            : AccreditationStateChange.Action.FINALISE,
+        userId,
+        id.toString(),
+        AccreditationType.NET_WORTH,
+        status,
+        oldStatus,
+        null,
+        null);
+  }
+
+  @Test
+  void createdThenFinalisedInTheSameBatch() {
+    UUID id = UUID.randomUUID();
+
+    ReplayBatch batch =
+        ReplayBatch.of(
+            List.of(
+                create("123456", id, T0),
+                finalise("123456", id, Status.CONFIRMED, Status.PENDING, T0.plusMinutes(1)),
+                finalise("123456", id, Status.EXPIRED, Status.CONFIRMED, T0.plusMinutes(2))),
+            mockDocumentStore);
+
+    assertEquals(3, batch.events());
+    assertEquals(0, batch.skipped());
+    assertEquals(1, batch.users().size());
+    assertEquals(T0.withNano(123456000), batch.users().get("123456"));
+    assertTrue(batch.updated().isEmpty());
+
+    ReplayBatch.NewAccreditation accreditation = batch.created().iterator().next();
+    assertEquals(id, accreditation.id());
+    assertEquals(Accreditation.AccreditationType.BY_NET_WORTH, accreditation.type());
+    assertEquals(DOCUMENT.hash(), accreditation.documentHash());
+    assertEquals(Accreditation.AccreditationStatus.EXPIRED, accreditation.status());
+    assertEquals(T0.withNano(123456000), accreditation.createdTs());
+    assertEquals(T0.plusMinutes(2).withNano(123456000), accreditation.updatedTs());
+    assertEquals(2, accreditation.version());
+  }
+
+  @Test
+  void latestStatusOfAnEarlierAccreditation() {
+    UUID earlier = UUID.randomUUID();
+    UUID id = UUID.randomUUID();
+
+    ReplayBatch batch =
+        ReplayBatch.of(
+            List.of(
+                finalise("123456", earlier, Status.CONFIRMED, Status.PENDING, T0),
+                create("123456", id, T0.plusMinutes(1)),
+                finalise("123456", earlier, Status.EXPIRED, Status.CONFIRMED, T0.plusMinutes(2))),
+            mockDocumentStore);
+
+    ReplayBatch.StatusUpdate update = batch.updated().iterator().next();
+    assertEquals(earlier, update.id());
+    assertEquals(Accreditation.AccreditationStatus.EXPIRED, update.status());
+    assertEquals(2, update.updates());
+    assertEquals(Accreditation.AccreditationStatus.PENDING, batch.created().iterator().next().status());
+  }
+
+  @Test
+  void newerPendingAccreditationSupersedesTheOlderOne() {
+    UUID older = UUID.randomUUID();
+    UUID newer = UUID.randomUUID();
+
+    ReplayBatch batch =
+        ReplayBatch.of(
+            List.of(create("123456", older, T0), create("123456", newer, T0.plusMinutes(1))),
+            mockDocumentStore);
+
+    assertEquals(0, batch.skipped());
+    assertEquals(1, batch.superseded());
+    List<ReplayBatch.NewAccreditation> created = List.copyOf(batch.created());
+    assertEquals(older, created.get(0).id());
+    assertEquals(Accreditation.AccreditationStatus.FAILED, created.get(0).status());
+    assertEquals(T0.plusMinutes(1).withNano(123456000), created.get(0).updatedTs());
+    assertEquals(1, created.get(0).version());
+    assertEquals(newer, created.get(1).id());
+    assertEquals(Accreditation.AccreditationStatus.PENDING, created.get(1).status());
+  }
+
+  @Test
+  void documentOfAVersion1EventIsStored() {
+    byte[] content = {4, 5, 6};
+    DocumentReference reference = DocumentReference.forContent(content);
+    when(mockDocumentStore.store(any(byte[].class), any())).thenReturn(reference);
+    CreateAccreditationRequest request =
+        new CreateAccreditationRequest()
+            .userId("123456")
+            .accreditationType(AccreditationType.INCOME)
+            .document(
+                new Document()
+                    .name("2019.pdf")
+                    .mimeType("application/pdf")
+                    .content(Base64.getEncoder().encodeToString(content)));
+    AccreditationStateChange stateChange =
+        new AccreditationStateChange(
+            null,
+            T0,
+            AccreditationStateChange.Action.CREATE,
+            "123456",
+            UUID.randomUUID().toString(),
+            null,
+            Status.PENDING,
+            null,
+            null,
+            request);
+
+    ReplayBatch batch = ReplayBatch.of(List.of(stateChange), mockDocumentStore);
+
+    verify(mockDocumentStore).store(content, "application/pdf");
+    ReplayBatch.NewAccreditation accreditation = batch.created().iterator().next();
+    assertEquals(Accreditation.AccreditationType.BY_INCOME, accreditation.type());
+    assertEquals("2019.pdf", accreditation.documentName());
+    assertEquals(reference.hash(), accreditation.documentHash());
+    assertEquals(3, accreditation.documentSize());
+  }
+
+  @Test
+  void creationWithoutDocumentIsSkipped() {
+    AccreditationStateChange stateChange =
+        new AccreditationStateChange(
+            AccreditationStateChange.SLIM_VERSION,
+            T0,
+            AccreditationStateChange.Action.CREATE,
+            "123456",
+            UUID.randomUUID().toString(),
+            AccreditationType.INCOME,
+            Status.PENDING,
+            null,
+            null,
+            null);
+
+    ReplayBatch batch = ReplayBatch.of(List.of(stateChange), mockDocumentStore);
+
+    assertEquals(1, batch.skipped());
+    assertTrue(batch.created().isEmpty());
+    assertTrue(batch.users().isEmpty());
+  }
+}
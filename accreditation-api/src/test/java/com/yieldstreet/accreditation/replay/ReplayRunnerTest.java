@@ -0,0 +1,242 @@
+package com.yieldstreet.accreditation.replay;
+
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeCompactSerializer;
+import com.yieldstreet.accreditation.audit.AccreditationStateChangeSerializer;
+import com.yieldstreet.accreditation.documents.DocumentStore;
+import com.yieldstreet.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplayRunnerTest {
+
+  private static final int BATCH_SIZE = 2;
+
+  @TempDir Path directory;
+
+  @Mock ReplayRepository mockReplayRepository;
+
+  @Mock DocumentStore mockDocumentStore;
+
+  @Mock PlatformTransactionManager mockTransactionManager;
+
+  private AutoCloseable closeable;
+
+  private FileEventLog eventLog;
+
+  /** The checkpoint table, by partition */
+  private final Map<Integer, Long> checkpoints = new ConcurrentHashMap<>();
+
+  /** The latest status written of each accreditation */
+  private final Map<UUID, Status> statuses = new ConcurrentHashMap<>();
+
+  private ReplayRunner replayRunner;
+
+  @BeforeEach
+  public void setup() {
+    closeable = MockitoAnnotations.openMocks(this);
+    eventLog = new FileEventLog(directory);
+    replayRunner =
+        new ReplayRunner(
+            eventLog,
+            mockReplayRepository,
+            mockDocumentStore,
+            new TransactionTemplate(mockTransactionManager),
+            2,
+            BATCH_SIZE,
+            Duration.ofMillis(100));
+
+    when(mockReplayRepository.findNextOffset(anyString(), anyInt()))
+        .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<Integer>getArgument(1))));
+    doAnswer(
+            invocation -> {
+              checkpoints.put(invocation.getArgument(1), invocation.getArgument(2));
+              return null;
+            })
+        .when(mockReplayRepository)
+        .saveCheckpoint(anyString(), anyInt(), anyLong());
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    closeable.close();
+  }
+
+  /** The latest PENDING accreditation written of each user */
+  private final Map<String, UUID> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Records the statuses written, failing the PENDING accreditation of a user older than a new one
+   * as the repository does.
+   */
+  private void recordWrites() {
+    when(mockReplayRepository.write(any()))
+        .thenAnswer(
+            invocation -> {
+              ReplayBatch batch = invocation.getArgument(0);
+              batch.updated().forEach(
+                  updated -> statuses.put(updated.id(), Status.fromValue(updated.status().name())));
+              int superseded = 0;
+              for (ReplayBatch.NewAccreditation created : batch.created()) {
+                Status status = Status.fromValue(created.status().name());
+                statuses.put(created.id(), status);
+                UUID older =
+                    status == Status.PENDING ? pending.put(created.userId(), created.id()) : null;
+                if (older != null && statuses.replace(older, Status.PENDING, Status.FAILED)) {
+                  superseded++;
+                }
+              }
+              return new ReplayRepository.WriteResult(0, superseded);
+            });
+  }
+
+  /** Logs a user's accreditation created, confirmed then expired, in both encodings */
+  private UUID logHistory(FileEventLog.Appender appender, String userId) {
+    UUID id = UUID.randomUUID();
+    OffsetDateTime timestamp = OffsetDateTime.now();
+    byte[] key = userId.getBytes(StandardCharsets.UTF_8);
+    appender.append(
+        key,
+        new AccreditationStateChangeSerializer()
+            .serialize("accreditations", ReplayBatchTest.create(userId, id, timestamp)));
+    appender.append(
+        key,
+        new AccreditationStateChangeCompactSerializer()
+            .serialize(
+                "accreditations",
+                ReplayBatchTest.finalise(
+                    userId, id, Status.CONFIRMED, Status.PENDING, timestamp.plusSeconds(1))));
+    appender.append(
+        key,
+        new AccreditationStateChangeSerializer()
+            .serialize(
+                "accreditations",
+                ReplayBatchTest.finalise(
+                    userId, id, Status.EXPIRED, Status.CONFIRMED, timestamp.plusSeconds(2))));
+    return id;
+  }
+
+  @Test
+  void replaysEveryPartitionAndCheckpoints() throws InterruptedException {
+    recordWrites();
+    List<UUID> ids = new ArrayList<>();
+    for (int partition = 0; partition < 3; partition++) {
+      try (FileEventLog.Appender appender = eventLog.appender(partition)) {
+        ids.add(logHistory(appender, "user-" + partition));
+        ids.add(logHistory(appender, "other-" + partition));
+      }
+    }
+
+    ReplayRunner.ReplayResult result = replayRunner.replay();
+
+    assertEquals(18, result.events());
+    assertEquals(0, result.skipped());
+    assertEquals(0, result.superseded());
+    assertEquals(Map.of(0, 6L, 1, 6L, 2, 6L), checkpoints);
+    // 3 batches of 2 events per partition
+    verify(mockReplayRepository, times(9)).write(any());
+    for (UUID id : ids) {
+      assertEquals(Status.EXPIRED, statuses.get(id));
+    }
+  }
+
+  @Test
+  void resumesFromTheCheckpoint() throws InterruptedException {
+    recordWrites();
+    try (FileEventLog.Appender appender = eventLog.appender(0)) {
+      logHistory(appender, "user-0");
+      logHistory(appender, "user-1");
+    }
+    checkpoints.put(0, 4L);
+
+    ReplayRunner.ReplayResult result = replayRunner.replay();
+
+    assertEquals(2, result.events());
+    assertEquals(6L, checkpoints.get(0));
+    assertEquals(1, statuses.size());
+  }
+
+  @Test
+  void unreadableEventsAreSkipped() throws InterruptedException {
+    recordWrites();
+    UUID id;
+    try (FileEventLog.Appender appender = eventLog.appender(0)) {
+      id = logHistory(appender, "user-0");
+      appender.append(new byte[0], "not an event".getBytes(StandardCharsets.UTF_8));
+    }
+
+    ReplayRunner.ReplayResult result = replayRunner.replay();
+
+    assertEquals(4, result.events());
+    assertEquals(1, result.skipped());
+    assertEquals(4L, checkpoints.get(0));
+    assertEquals(Status.EXPIRED, statuses.get(id));
+  }
+
+  /** V8 failed the older PENDING accreditations of a user after the newer ones were created */
+  @Test
+  void olderPendingAccreditationsAreSuperseded() throws InterruptedException {
+    recordWrites();
+    List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    OffsetDateTime timestamp = OffsetDateTime.now();
+    // the first two in the same batch, the third in the next one
+    try (FileEventLog.Appender appender = eventLog.appender(0)) {
+      for (int i = 0; i < ids.size(); i++) {
+        appender.append(
+            "user-0".getBytes(StandardCharsets.UTF_8),
+            new AccreditationStateChangeSerializer()
+                .serialize(
+                    "accreditations",
+                    ReplayBatchTest.create("user-0", ids.get(i), timestamp.plusSeconds(i))));
+      }
+    }
+
+    ReplayRunner.ReplayResult result = replayRunner.replay();
+
+    assertEquals(3, result.events());
+    assertEquals(0, result.skipped());
+    assertEquals(2, result.superseded());
+    assertEquals(3L, checkpoints.get(0));
+    assertEquals(Status.FAILED, statuses.get(ids.get(0)));
+    assertEquals(Status.FAILED, statuses.get(ids.get(1)));
+    assertEquals(Status.PENDING, statuses.get(ids.get(2)));
+  }
+
+  @Test
+  void failedBatchIsNotCheckpointed() {
+    try (FileEventLog.Appender appender = eventLog.appender(0)) {
+      logHistory(appender, "user-0");
+    }
+    when(mockReplayRepository.write(any()))
+        .thenReturn(new ReplayRepository.WriteResult(0, 0))
+        .thenThrow(new IllegalStateException("Database unavailable"));
+
+    IllegalStateException error = assertThrows(IllegalStateException.class, () -> replayRunner.replay());
+
+    assertEquals("Database unavailable", error.getCause().getMessage());
+    assertEquals(2L, checkpoints.get(0));
+  }
+}
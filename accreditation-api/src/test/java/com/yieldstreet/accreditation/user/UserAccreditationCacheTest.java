@@ -0,0 +1,123 @@
+package com.yieldstreet.accreditation.user;
+
+import com.yieldstreet.accreditation.MockHelpers;
+import com.yieldstreet.accreditation.audit.AccreditationStateChange;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
+import com.yieldstreet.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAccreditationCacheTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserAccreditationCache cache;
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final Function<String, UserAccreditations> loader =
+      userId -> {
+        loads.incrementAndGet();
+        return new UserAccreditations(
+            new UserAccreditationsStamp(2, OffsetDateTime.now(), 2), MockHelpers.mockStatusViews(2));
+      };
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    cache =
+        new UserAccreditationCache(
+            meterRegistry, 100, Duration.ofMinutes(5), false, Duration.ofSeconds(5));
+  }
+
+  @Test
+  void invalidateOnLocalStateChange() {
+    cache.get("123456", loader);
+    cache.get("654321", loader);
+
+    cache.onStateChange(stateChange("123456"));
+    cache.get("123456", loader);
+    cache.get("654321", loader);
+
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void invalidateOnStateChangeFromTheTopic() {
+    cache.get("123456", loader);
+
+    cache
+        .userAccreditationInvalidation()
+        .accept(
+            MessageBuilder.withPayload(new byte[0])
+                .setHeader(
+                    KafkaHeaders.RECEIVED_MESSAGE_KEY, "123456".getBytes(StandardCharsets.UTF_8))
+                .build());
+    cache.get("123456", loader);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidateAgainOnceTheReplicaCaughtUp() throws InterruptedException {
+    cache =
+        new UserAccreditationCache(
+            meterRegistry, 100, Duration.ofMinutes(5), true, Duration.ofMillis(100));
+    cache.get("123456", loader);
+
+    cache.onStateChange(stateChange("123456"));
+    // loaded from the replica before it caught up with the change
+    cache.get("123456", loader);
+    cache.get("123456", loader);
+    assertEquals(2, loads.get());
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (loads.get() < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+      cache.get("123456", loader);
+    }
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void recordHitsAndMisses() {
+    cache.get("123456", loader);
+    cache.get("123456", loader);
+    cache.get("123456", loader);
+
+    assertEquals(
+        2.0,
+        meterRegistry.get("cache.gets").tag("cache", "user_accreditations").tag("result", "hit")
+            .functionCounter().count());
+    assertEquals(
+        1.0,
+        meterRegistry.get("cache.gets").tag("cache", "user_accreditations").tag("result", "miss")
+            .functionCounter().count());
+  }
+
+  private static AccreditationStateChange stateChange(String userId) {
+    return new AccreditationStateChange(
+        AccreditationStateChange.SLIM_VERSION,
+        null,
+        AccreditationStateChange.Action.FINALISE,
+        userId,
+        UUID.randomUUID().toString(),
+        null,
+        Status.CONFIRMED,
+        Status.PENDING,
+        null,
+        null);
+  }
+}
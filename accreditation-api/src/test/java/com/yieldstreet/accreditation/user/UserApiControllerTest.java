@@ -2,28 +2,34 @@ package com.yieldstreet.accreditation.user;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yieldstreet.accreditation.mappers.AccreditationMapper;
-import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
 import com.yieldstreet.model.AccreditationStatusDetails;
 import com.yieldstreet.model.AccreditationStatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.yieldstreet.accreditation.MockHelpers.getObjectMapper;
-import static com.yieldstreet.accreditation.MockHelpers.mockAccreditations;
-import static org.mockito.Mockito.when;
+import static com.yieldstreet.accreditation.MockHelpers.mockStatusViews;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class UserApiControllerTest {
@@ -36,13 +42,20 @@ class UserApiControllerTest {
 
     private static final String USER_ACCREDITATIONS = "/user/{userId}/accreditation";
 
+    private static final UserAccreditationsStamp STAMP =
+            new UserAccreditationsStamp(10, OffsetDateTime.parse("2022-11-03T17:45:12.123456Z"), 12);
+
+    /** The ETag of {@link #STAMP}: the count, the microseconds of the last update and the versions */
+    private static final String ETAG = "\"10-5ec9484dfbc40-12\"";
+
     private final ObjectMapper objectMapper = getObjectMapper();
 
     @BeforeEach
     public void setup() {
         closeable = MockitoAnnotations.openMocks(this);
 
-        UserApiController userApiController = new UserApiController(mockUserService);
+        UserApiController userApiController =
+                new UserApiController(mockUserService, new SimpleMeterRegistry());
 
         this.mockMvc = MockMvcBuilders.standaloneSetup(userApiController)
                 .setMessageConverters(new MappingJackson2HttpMessageConverter(this.objectMapper))
@@ -58,6 +71,9 @@ class UserApiControllerTest {
     void getAccreditationNoData() throws Exception {
         String userId = "1234567890";
 
+        when(mockUserService.getUserAccreditations(userId))
+                .thenReturn(new UserAccreditations(new UserAccreditationsStamp(0, null, 0), List.of()));
+
         mockMvc.perform(get(USER_ACCREDITATIONS, userId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
@@ -91,10 +107,10 @@ class UserApiControllerTest {
     void getAccreditationForUserWithData() throws Exception {
         String userId = "1234567890";
 
-        List<Accreditation> accreditations = mockAccreditations(userId, 10);
+        List<AccreditationStatusView> accreditations = mockStatusViews(10);
 
         Map<String, AccreditationStatusDetails> statusDetailsMap = accreditations.stream()
-                .collect(Collectors.toMap(accreditation -> accreditation.getId().toString(), AccreditationMapper::mapToStatusDetails));
+                .collect(Collectors.toMap(accreditation -> accreditation.id().toString(), AccreditationMapper::mapToStatusDetails));
 
         AccreditationStatusResponse expectedResponse = new AccreditationStatusResponse();
         expectedResponse.setAccreditationStatuses(statusDetailsMap);
@@ -103,13 +119,66 @@ class UserApiControllerTest {
         String expected = objectMapper.writeValueAsString(expectedResponse);
 
         when(mockUserService.getUserAccreditations(userId))
-                .thenReturn(accreditations);
+                .thenReturn(new UserAccreditations(STAMP, accreditations));
 
         mockMvc.perform(get(USER_ACCREDITATIONS, userId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(content().json(expected));
+        verify(mockUserService, never()).getUserAccreditationsStamp(anyString());
+    }
+
+    @Test
+    void notModifiedWithoutLoadingTheStatuses() throws Exception {
+        String userId = "1234567890";
+
+        when(mockUserService.getUserAccreditationsStamp(userId))
+                .thenReturn(STAMP);
+
+        for (String ifNoneMatch : List.of(ETAG, "W/" + ETAG, "\"other\", " + ETAG, "*")) {
+            mockMvc.perform(get(USER_ACCREDITATIONS, userId)
+                            .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                    .andExpect(content().string(""));
+        }
+        verify(mockUserService, never()).getUserAccreditations(anyString());
+        verify(mockUserService, never()).getUserAccreditations(anyString(), any());
+    }
+
+    @Test
+    void modifiedStatusesAreReturned() throws Exception {
+        String userId = "1234567890";
+        UserAccreditationsStamp current =
+                new UserAccreditationsStamp(10, STAMP.lastUpdatedTs().plusNanos(1000), 13);
+
+        when(mockUserService.getUserAccreditationsStamp(userId))
+                .thenReturn(current);
+        when(mockUserService.getUserAccreditations(userId, current))
+                .thenReturn(new UserAccreditations(current, mockStatusViews(10)));
+
+        mockMvc.perform(get(USER_ACCREDITATIONS, userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"10-5ec9484dfbc41-13\""));
+    }
+
+    @Test
+    void conditionalGetForUnknownUser() throws Exception {
+        String userId = "1234567890";
+
+        when(mockUserService.getUserAccreditationsStamp(userId))
+                .thenThrow(new UserService.UserNotFound());
+
+        mockMvc.perform(get(USER_ACCREDITATIONS, userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, "*")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
     }
 }
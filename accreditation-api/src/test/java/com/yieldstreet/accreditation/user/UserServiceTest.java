@@ -1,20 +1,28 @@
 package com.yieldstreet.accreditation.user;
 
 import com.yieldstreet.accreditation.MockHelpers;
-import com.yieldstreet.accreditation.persistence.Accreditation;
+import com.yieldstreet.accreditation.config.ReplicaRouting;
 import com.yieldstreet.accreditation.persistence.AccreditationRepository;
+import com.yieldstreet.accreditation.persistence.AccreditationStatusView;
+import com.yieldstreet.accreditation.persistence.UserAccreditationsStamp;
+import com.yieldstreet.accreditation.persistence.UserIdResolver;
 import com.yieldstreet.accreditation.persistence.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 class UserServiceTest {
     @Mock
@@ -23,6 +31,9 @@ class UserServiceTest {
     @Mock
     AccreditationRepository mockAccreditationRepository;
 
+    @Mock
+    PlatformTransactionManager mockTransactionManager;
+
     private AutoCloseable closeable;
 
     private UserService userService;
@@ -31,7 +42,17 @@ class UserServiceTest {
     public void setup() {
         closeable = MockitoAnnotations.openMocks(this);
 
-        userService = new UserService(mockUserRepository, mockAccreditationRepository);
+        userService = new UserService(
+                new UserIdResolver(mockUserRepository, new SimpleMeterRegistry(), 100),
+                mockAccreditationRepository,
+                new UserAccreditationCache(
+                        new SimpleMeterRegistry(),
+                        100,
+                        Duration.ofMinutes(5),
+                        false,
+                        Duration.ofSeconds(5)),
+                new ReplicaRouting(false, Duration.ofSeconds(5), Duration.ofSeconds(10)),
+                mockTransactionManager);
     }
 
     @AfterEach
@@ -43,34 +64,109 @@ class UserServiceTest {
     void userNotFound() {
         String userId = "214214";
 
-        when(mockUserRepository.findByUserId(userId))
+        when(mockUserRepository.findIdByUserId(userId))
                 .thenReturn(Optional.empty());
 
         assertThrows(UserService.UserNotFound.class,
                 () -> userService.getUserAccreditations(userId));
+        verifyNoInteractions(mockAccreditationRepository);
     }
 
     @Test
     void userFoundButEmpty() {
         String userId = "214214";
 
-        when(mockUserRepository.findByUserId(userId))
-                .thenReturn(Optional.of(MockHelpers.mockUser(userId)));
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.of(42));
 
-        List<Accreditation> userAccreditations = userService.getUserAccreditations(userId);
+        List<AccreditationStatusView> userAccreditations =
+                userService.getUserAccreditations(userId).statuses();
         assertTrue(userAccreditations.isEmpty());
     }
 
     @Test
-    void dataFoundWithoutUserCheckNeeded() {
+    void dataFoundByInternalUserId() {
         String userId = "214214";
         int howMany = 10;
-        when(mockAccreditationRepository.findByUserUserIdOrderByCreatedTs(userId))
-                .thenReturn(MockHelpers.mockAccreditations(userId, howMany));
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.of(42));
+        when(mockAccreditationRepository.findStatusesByUserInternalId(42))
+                .thenReturn(MockHelpers.mockStatusViews(howMany));
 
-        List<Accreditation> userAccreditations = userService.getUserAccreditations(userId);
+        List<AccreditationStatusView> userAccreditations =
+                userService.getUserAccreditations(userId).statuses();
         assertFalse(userAccreditations.isEmpty());
         assertEquals(howMany, userAccreditations.size());
     }
 
+    @Test
+    void secondReadComesFromTheCache() {
+        String userId = "214214";
+        List<AccreditationStatusView> statusViews = MockHelpers.mockStatusViews(3);
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.of(42));
+        when(mockAccreditationRepository.findStatusesByUserInternalId(42))
+                .thenReturn(statusViews);
+
+        assertEquals(statusViews, userService.getUserAccreditations(userId).statuses());
+        assertEquals(statusViews, userService.getUserAccreditations(userId).statuses());
+
+        verify(mockAccreditationRepository, times(1)).findStatusesByUserInternalId(42);
+    }
+
+    @Test
+    void userNotFoundIsNotCached() {
+        String userId = "214214";
+
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(42));
+
+        assertThrows(UserService.UserNotFound.class,
+                () -> userService.getUserAccreditations(userId));
+        assertTrue(userService.getUserAccreditations(userId).statuses().isEmpty());
+    }
+
+    @Test
+    void statusesAndStampReadTogether() {
+        String userId = "214214";
+        List<AccreditationStatusView> statusViews = MockHelpers.mockStatusViews(3);
+        UserAccreditationsStamp stamp = new UserAccreditationsStamp(3, OffsetDateTime.now(), 5);
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.of(42));
+        when(mockAccreditationRepository.findStatusesByUserInternalId(42))
+                .thenReturn(statusViews);
+        when(mockAccreditationRepository.findStampByUserInternalId(42))
+                .thenReturn(stamp);
+
+        assertEquals(
+                new UserAccreditations(stamp, statusViews), userService.getUserAccreditations(userId));
+        assertEquals(stamp, userService.getUserAccreditationsStamp(userId));
+        // each in a repeatable read transaction
+        verify(mockTransactionManager, times(2)).getTransaction(
+                argThat(definition -> definition.isReadOnly()
+                        && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    @Test
+    void staleCachedStatusesAreReloaded() {
+        String userId = "214214";
+        UserAccreditationsStamp cached = new UserAccreditationsStamp(1, OffsetDateTime.now(), 0);
+        UserAccreditationsStamp current =
+                new UserAccreditationsStamp(1, cached.lastUpdatedTs().plusSeconds(1), 1);
+        when(mockUserRepository.findIdByUserId(userId))
+                .thenReturn(Optional.of(42));
+        when(mockAccreditationRepository.findStatusesByUserInternalId(42))
+                .thenReturn(MockHelpers.mockStatusViews(1));
+        when(mockAccreditationRepository.findStampByUserInternalId(42))
+                .thenReturn(cached, current);
+
+        assertEquals(cached, userService.getUserAccreditations(userId).stamp());
+        assertEquals(cached, userService.getUserAccreditations(userId, cached).stamp());
+        verify(mockAccreditationRepository, times(1)).findStatusesByUserInternalId(42);
+
+        assertEquals(current, userService.getUserAccreditations(userId, current).stamp());
+        assertEquals(current, userService.getUserAccreditations(userId).stamp());
+        verify(mockAccreditationRepository, times(2)).findStatusesByUserInternalId(42);
+    }
 }
@@ -0,0 +1,36 @@
+-- seeds the schema of QueryPlanTest once migrated: 20 000 users with 10 accreditations each, over the last 2 years, so
+-- that reading a whole table costs the planner more than any index. Most accreditations are EXPIRED or FAILED, half of
+-- the users have a PENDING one and the CONFIRMED ones were updated over the last year. The FAILED ones not updated for
+-- 6 months are archived, as the archival job would.
+INSERT INTO users (user_id, created_ts)
+SELECT 'user-' || u, now() - interval '2 years'
+FROM generate_series(1, 20000) u;
+
+INSERT INTO accreditations (id, user_id, type, document_name, document_mime_type, document_hash, document_size,
+                            status, created_ts, updated_ts, version)
+SELECT gen_random_uuid(),
+       u,
+       CASE WHEN n % 2 = 0 THEN 'BY_INCOME' ELSE 'BY_NET_WORTH' END,
+       n || '.pdf',
+       'application/pdf',
+       md5(u || '-' || n) || md5(n || '-' || u),
+       1024 * n,
+       CASE
+           WHEN n = 10 AND u % 2 = 0 THEN 'PENDING'
+           WHEN n >= 8 THEN 'CONFIRMED'
+           WHEN n % 3 = 0 THEN 'FAILED'
+           ELSE 'EXPIRED'
+           END,
+       now() - (11 - n) * interval '2 months' - u * interval '1 minute',
+       now() - (10 - n) * interval '1 month' - u * interval '1 minute',
+       CASE WHEN n = 10 AND u % 2 = 0 THEN 0 ELSE 1 END
+FROM generate_series(1, 20000) u,
+     generate_series(1, 10) n;
+
+UPDATE accreditations
+SET archived = true
+WHERE status = 'FAILED'
+  AND updated_ts < now() - interval '6 months';
+
+ANALYZE users;
+ANALYZE accreditations;
@@ -0,0 +1,12 @@
+#!/bin/bash
+echo "Starting up the accreditation reader locally ..."
+
+export DB_HOST=localhost
+export DB_PORT=5432
+export DB_USERNAME=yieldstreet
+export DB_PASSWORD=password
+export HTTP_PORT=9997
+
+java -cp ./accreditation-api/target/accreditation-api-1.0-SNAPSHOT.jar \
+  -Dloader.main=com.yieldstreet.accreditation.reader.ReaderMain \
+  org.springframework.boot.loader.PropertiesLauncher
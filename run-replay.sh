@@ -0,0 +1,13 @@
+#!/bin/bash
+echo "Replaying the audit events into the database ..."
+
+export DB_HOST=localhost
+export DB_PORT=5432
+export DB_USERNAME=yieldstreet
+export DB_PASSWORD=password
+export KAFKA_BROKERS=localhost:9093
+export KAFKA_TOPIC=accreditations
+
+java -cp ./accreditation-api/target/accreditation-api-1.0-SNAPSHOT.jar \
+  -Dloader.main=com.yieldstreet.accreditation.replay.ReplayMain \
+  org.springframework.boot.loader.PropertiesLauncher